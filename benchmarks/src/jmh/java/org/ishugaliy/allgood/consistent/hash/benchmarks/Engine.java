@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.benchmarks;
+
+import org.ishugaliy.allgood.consistent.hash.AnchorHashRing;
+import org.ishugaliy.allgood.consistent.hash.ConsistentHash;
+import org.ishugaliy.allgood.consistent.hash.HashRing;
+import org.ishugaliy.allgood.consistent.hash.JumpHashRing;
+import org.ishugaliy.allgood.consistent.hash.MaglevHashRing;
+import org.ishugaliy.allgood.consistent.hash.MultiProbeHashRing;
+import org.ishugaliy.allgood.consistent.hash.RendezvousHash;
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+
+import java.util.List;
+
+/**
+ * Consistent hash implementations compared by the ring benchmarks.
+ * Partition rate applies only to {@link HashRing} and its array variant,
+ * the rest of implementations have no virtual nodes and ignore it.
+ *
+ * @author Yuriy Shugaliy
+ */
+public enum Engine {
+
+    HASH_RING {
+        @Override
+        ConsistentHash<SimpleNode> build(List<SimpleNode> nodes, int partitionRate) {
+            return HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(partitionRate)
+                    .nodes(nodes)
+                    .build();
+        }
+    },
+    HASH_RING_LOCK_FREE {
+        @Override
+        ConsistentHash<SimpleNode> build(List<SimpleNode> nodes, int partitionRate) {
+            return HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(partitionRate)
+                    .lockFreeReads(true)
+                    .nodes(nodes)
+                    .build();
+        }
+    },
+    ARRAY_HASH_RING {
+        @Override
+        ConsistentHash<SimpleNode> build(List<SimpleNode> nodes, int partitionRate) {
+            return HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(partitionRate)
+                    .nodes(nodes)
+                    .buildArrayRing();
+        }
+    },
+    JUMP_HASH {
+        @Override
+        ConsistentHash<SimpleNode> build(List<SimpleNode> nodes, int partitionRate) {
+            return JumpHashRing.<SimpleNode>newBuilder()
+                    .nodes(nodes)
+                    .build();
+        }
+    },
+    MAGLEV_HASH {
+        @Override
+        ConsistentHash<SimpleNode> build(List<SimpleNode> nodes, int partitionRate) {
+            return MaglevHashRing.<SimpleNode>newBuilder()
+                    .nodes(nodes)
+                    .build();
+        }
+    },
+    RENDEZVOUS_HASH {
+        @Override
+        ConsistentHash<SimpleNode> build(List<SimpleNode> nodes, int partitionRate) {
+            return RendezvousHash.<SimpleNode>newBuilder()
+                    .nodes(nodes)
+                    .build();
+        }
+    },
+    MULTI_PROBE_HASH {
+        @Override
+        ConsistentHash<SimpleNode> build(List<SimpleNode> nodes, int partitionRate) {
+            return MultiProbeHashRing.<SimpleNode>newBuilder()
+                    .nodes(nodes)
+                    .build();
+        }
+    },
+    ANCHOR_HASH {
+        @Override
+        ConsistentHash<SimpleNode> build(List<SimpleNode> nodes, int partitionRate) {
+            // room for the nodes added by the mutation benchmarks
+            return AnchorHashRing.<SimpleNode>newBuilder()
+                    .capacity(Math.max(ANCHOR_CAPACITY, 4 * nodes.size()))
+                    .nodes(nodes)
+                    .build();
+        }
+    };
+
+    private static final int ANCHOR_CAPACITY = 1024;
+
+    abstract ConsistentHash<SimpleNode> build(List<SimpleNode> nodes, int partitionRate);
+}
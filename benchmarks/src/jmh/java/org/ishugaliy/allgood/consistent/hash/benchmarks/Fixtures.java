@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.benchmarks;
+
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Pre-generated benchmark input, built once per trial so neither key
+ * generation nor its garbage gets into the measured loop.
+ *
+ * @author Yuriy Shugaliy
+ */
+final class Fixtures {
+
+    // power of two, so the next key is picked by masking the counter
+    static final int KEYS_COUNT = 1 << 14;
+
+    private static final char[] ALPHABET =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_".toCharArray();
+    private static final long SEED = 42;
+
+    private Fixtures() {
+    }
+
+    static String[] keys(int length) {
+        return keys(KEYS_COUNT, length);
+    }
+
+    static String[] keys(int count, int length) {
+        Random random = new Random(SEED);
+        String[] keys = new String[count];
+        char[] chars = new char[length];
+        for (int i = 0; i < keys.length; i++) {
+            for (int j = 0; j < length; j++) {
+                chars[j] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            keys[i] = new String(chars);
+        }
+        return keys;
+    }
+
+    static List<SimpleNode> nodes(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(idx -> SimpleNode.of(prefix + ".node" + idx + ".api"))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.benchmarks;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link DefaultHasher#hash(String, int)}, {@link DefaultHasher#hash(CharSequence, int)},
+ * {@link DefaultHasher#hash(byte[], int, int, int)} and {@link DefaultHasher#hash(ByteBuffer, int, int, int)}
+ * over heap and direct buffers of every built-in hash function.
+ * Showing how hashing time depends on the hash function, key type and key length.
+ *
+ * @author Yuriy Shugaliy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HasherBenchmark {
+
+    // all the constants of the enum when values are not listed
+    @Param
+    private DefaultHasher hasher;
+
+    @Param({"16", "64", "256"})
+    private int keyLength;
+
+    private String[] keys;
+    private StringBuilder[] charKeys;
+    // all the keys one after another, the next key starts at cursor * keyLength
+    private byte[] bytes;
+    private ByteBuffer heapBuffer;
+    private ByteBuffer directBuffer;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        keys = Fixtures.keys(keyLength);
+        charKeys = new StringBuilder[keys.length];
+        bytes = new byte[keys.length * keyLength];
+        for (int i = 0; i < keys.length; i++) {
+            charKeys[i] = new StringBuilder(keys[i]);
+            byte[] key = keys[i].getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(key, 0, bytes, i * keyLength, keyLength);
+        }
+        heapBuffer = ByteBuffer.wrap(bytes);
+        directBuffer = ByteBuffer.allocateDirect(bytes.length);
+        directBuffer.put(bytes).clear();
+    }
+
+    @Benchmark
+    public long hash() {
+        return hasher.hash(nextKey(), 0);
+    }
+
+    @Benchmark
+    public long hashSeeded() {
+        return hasher.hash(nextKey(), cursor & 7);
+    }
+
+    @Benchmark
+    public long hashCharSequence() {
+        return hasher.hash(charKeys[nextIndex()], 0);
+    }
+
+    @Benchmark
+    public long hashBytes() {
+        return hasher.hash(bytes, nextIndex() * keyLength, keyLength, 0);
+    }
+
+    @Benchmark
+    public long hashHeapBuffer() {
+        return hasher.hash(heapBuffer, nextIndex() * keyLength, keyLength, 0);
+    }
+
+    @Benchmark
+    public long hashDirectBuffer() {
+        return hasher.hash(directBuffer, nextIndex() * keyLength, keyLength, 0);
+    }
+
+    private int nextIndex() {
+        return cursor++ & (Fixtures.KEYS_COUNT - 1);
+    }
+
+    private String nextKey() {
+        return keys[nextIndex()];
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.benchmarks;
+
+import org.ishugaliy.allgood.consistent.hash.ConsistentHash;
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ConsistentHash#locate(String)}, {@link ConsistentHash#locateNode(String)},
+ * {@link ConsistentHash#locate(String, int)} and
+ * {@link ConsistentHash#locate(String, org.ishugaliy.allgood.consistent.hash.node.Node[])}
+ * of every {@link Engine}.
+ * Showing how locate time depends on the implementation, ring size, partition rate and key length.
+ *
+ * @author Yuriy Shugaliy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocateBenchmark {
+
+    // all the constants of the enum when values are not listed
+    @Param
+    private Engine engine;
+
+    @Param({"10", "100", "1000"})
+    private int nodes;
+
+    @Param({"100", "1000"})
+    private int partitionRate;
+
+    @Param({"16", "64"})
+    private int keyLength;
+
+    // nodes count to be located per request
+    @Param({"3"})
+    private int count;
+
+    private ConsistentHash<SimpleNode> ring;
+    private SimpleNode[] located;
+    private String[] keys;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        ring = engine.build(Fixtures.nodes("aws", nodes), partitionRate);
+        located = new SimpleNode[count];
+        keys = Fixtures.keys(keyLength);
+    }
+
+    @Benchmark
+    public Optional<SimpleNode> locate() {
+        return ring.locate(nextKey());
+    }
+
+    @Benchmark
+    public SimpleNode locateNode() {
+        return ring.locateNode(nextKey());
+    }
+
+    @Benchmark
+    public Set<SimpleNode> locateN() {
+        return ring.locate(nextKey(), count);
+    }
+
+    @Benchmark
+    public int locateNIntoBuffer() {
+        return ring.locate(nextKey(), located);
+    }
+
+    private String nextKey() {
+        return keys[cursor++ & (Fixtures.KEYS_COUNT - 1)];
+    }
+}
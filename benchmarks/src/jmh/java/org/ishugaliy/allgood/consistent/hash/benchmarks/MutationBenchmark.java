@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.benchmarks;
+
+import org.ishugaliy.allgood.consistent.hash.ConsistentHash;
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ConsistentHash#add(org.ishugaliy.allgood.consistent.hash.node.Node)},
+ * {@link ConsistentHash#addAll(java.util.Collection)} and
+ * {@link ConsistentHash#remove(org.ishugaliy.allgood.consistent.hash.node.Node)}
+ * of every {@link Engine}.
+ * Showing how mutation time depends on the implementation, ring size and partition rate.
+ * <p>
+ * Each invocation mutates a ring of {@link Ring#nodes} nodes and the
+ * mutation is reverted out of the measured time, so the ring size stays
+ * the same across the whole trial. A single mutation takes microseconds
+ * at least, far above the {@link Level#Invocation} fixture overhead.
+ *
+ * @author Yuriy Shugaliy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutationBenchmark {
+
+    @Benchmark
+    public boolean add(Ring ring, Added added) {
+        return ring.ring.add(ring.spare);
+    }
+
+    @Benchmark
+    public boolean addAll(Ring ring, AddedAll addedAll) {
+        return ring.ring.addAll(ring.spares);
+    }
+
+    @Benchmark
+    public boolean remove(Ring ring, Removed removed) {
+        return ring.ring.remove(ring.spare);
+    }
+
+    /**
+     * Ring of {@link #nodes} nodes, shared by all the mutation benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class Ring {
+
+        // all the constants of the enum when values are not listed
+        @Param
+        private Engine engine;
+
+        @Param({"10", "100", "1000"})
+        private int nodes;
+
+        @Param({"100", "1000"})
+        private int partitionRate;
+
+        // nodes count to be added by addAll
+        @Param({"10"})
+        private int batch;
+
+        private ConsistentHash<SimpleNode> ring;
+        private SimpleNode spare;
+        private List<SimpleNode> spares;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ring = engine.build(Fixtures.nodes("aws", nodes), partitionRate);
+            spare = SimpleNode.of("gcp.node.api");
+            spares = Fixtures.nodes("gcp", batch);
+        }
+    }
+
+    /**
+     * Removes {@link Ring#spare} after each {@link #add(Ring, Added)}.
+     */
+    @State(Scope.Thread)
+    public static class Added {
+
+        @TearDown(Level.Invocation)
+        public void tearDown(Ring ring) {
+            ring.ring.remove(ring.spare);
+        }
+    }
+
+    /**
+     * Removes {@link Ring#spares} after each {@link #addAll(Ring, AddedAll)}.
+     */
+    @State(Scope.Thread)
+    public static class AddedAll {
+
+        @TearDown(Level.Invocation)
+        public void tearDown(Ring ring) {
+            ring.spares.forEach(ring.ring::remove);
+        }
+    }
+
+    /**
+     * Adds {@link Ring#spare} before each {@link #remove(Ring, Removed)}.
+     */
+    @State(Scope.Thread)
+    public static class Removed {
+
+        @Setup(Level.Invocation)
+        public void setUp(Ring ring) {
+            ring.ring.add(ring.spare);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hashes;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of AnchorHash.
+ * The hash has the fixed amount of buckets (capacity), each node takes one working bucket.
+ * Key is hashed to any bucket, and if the bucket was removed, the key is rehashed
+ * into the buckets that were working at the moment of removal, until the working bucket is found.
+ * So locate takes O(1) expected time, any node can be added or removed,
+ * and only the keys of the changed node move.
+ * <p>
+ * Removed bucket is taken by the next added node, so the node that replaces the failed one
+ * gets exactly its keys back.
+ * <p>
+ * Buckets are kept in immutable arrays replaced on each modification, so reads are lock-free.
+ *
+ * @see <a href="https://arxiv.org/abs/1812.09674">AnchorHash: A Scalable Consistent Hash</a>
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class AnchorHashRing<T extends Node> implements ConsistentHash<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnchorHashRing.class);
+
+    private final Lock mutex = new ReentrantLock();
+
+    // writer state, guarded by mutex: working buckets, their locations and stack of removed buckets
+    private final int[] working;
+    private final int[] locations;
+    private final int[] removed;
+    private int removedCount;
+
+    private volatile Anchor<T> anchor;
+
+    private final String name;
+    private final Hasher hasher;
+    private final int capacity;
+
+    /**
+     * Instance can be created only via builder {@link AnchorHashRing#newBuilder()}
+     *
+     * @param name the name of the hash
+     * @param hasher the hash function
+     * @param capacity the amount of buckets
+     */
+    AnchorHashRing(String name, Hasher hasher, int capacity) {
+        this.name = name;
+        this.hasher = hasher;
+        this.capacity = capacity;
+        this.working = new int[capacity];
+        this.locations = new int[capacity];
+        this.removed = new int[capacity];
+
+        int[] sizes = new int[capacity];
+        int[] successors = new int[capacity];
+        for (int b = capacity - 1; b >= 0; b--) {
+            working[b] = locations[b] = successors[b] = b;
+            sizes[b] = b;
+            removed[removedCount++] = b;
+        }
+        this.anchor = new Anchor<>(sizes, successors, new Object[capacity], Collections.emptyMap());
+        LOG.info("Anchor hash [{}] created: hasher [{}], capacity [{}]", name, hasher, capacity);
+    }
+
+    /**
+     * Create instance of {@link AnchorHashRingBuilder}
+     *
+     * @param <T> the type of node
+     * @return the anchor hash builder
+     */
+    public static <T extends Node> AnchorHashRingBuilder<T> newBuilder() {
+        return new AnchorHashRingBuilder<>();
+    }
+
+    @Override
+    public boolean add(T node) {
+        return addAll(Collections.singletonList(node));
+    }
+
+    @Override
+    public boolean addAll(Collection<T> nodes) {
+        if (nodes == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            Anchor<T> current = anchor;
+            int[] sizes = current.sizes.clone();
+            int[] successors = current.successors.clone();
+            Object[] table = current.nodes.clone();
+            Map<T, Integer> buckets = new HashMap<>(current.buckets);
+            for (T node : nodes) {
+                if (node == null || buckets.containsKey(node)) {
+                    continue;
+                }
+                if (removedCount == 0) {
+                    LOG.warn("Anchor hash [{}]: node [{}] was not added, capacity [{}] exceeded",
+                            name, node, capacity);
+                    continue;
+                }
+                int bucket = addBucket(sizes, successors, buckets.size());
+                table[bucket] = node;
+                buckets.put(node, bucket);
+                LOG.info("Anchor hash [{}]: node [{}] added to bucket [{}]", name, node, bucket);
+            }
+            if (buckets.size() == current.buckets.size()) {
+                return false;
+            }
+            anchor = new Anchor<>(sizes, successors, table, buckets);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return node != null && anchor.buckets.containsKey(node);
+    }
+
+    @Override
+    public boolean remove(T node) {
+        if (node == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            Anchor<T> current = anchor;
+            Integer bucket = current.buckets.get(node);
+            if (bucket == null) {
+                return false;
+            }
+            int[] sizes = current.sizes.clone();
+            int[] successors = current.successors.clone();
+            Object[] table = current.nodes.clone();
+            Map<T, Integer> buckets = new HashMap<>(current.buckets);
+            buckets.remove(node);
+            table[bucket] = null;
+            removeBucket(sizes, successors, bucket, buckets.size());
+            anchor = new Anchor<>(sizes, successors, table, buckets);
+            LOG.info("Anchor hash [{}]: node [{}] removed from bucket [{}]", name, node, bucket);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return new HashSet<>(anchor.buckets.keySet());
+    }
+
+    @Override
+    public Optional<T> locate(String key) {
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<T> locate(String key, int count) {
+        Anchor<T> current = anchor;
+        Set<T> res = new HashSet<>();
+        if (key != null && count > 0) {
+            if (count < current.buckets.size()) {
+                T[] located = (T[]) new Node[count];
+                Replicas.locate(current, hasher.hash(key, 0), located, count);
+                res.addAll(Arrays.asList(located));
+            } else {
+                res.addAll(current.buckets.keySet());
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public T locateNode(String key) {
+        return key != null ? nodeAt(hasher.hash(key, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(CharSequence key) {
+        return key != null ? nodeAt(hasher.hash(key, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(byte[] key, int offset, int length) {
+        return key != null ? nodeAt(hasher.hash(key, offset, length, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(ByteBuffer key, int offset, int length) {
+        return key != null ? nodeAt(hasher.hash(key, offset, length, 0)) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first node is the primary one, followed by replicas.
+     */
+    @Override
+    public int locate(String key, T[] out) {
+        Anchor<T> current = anchor;
+        int count = Math.min(out.length, current.buckets.size());
+        if (key == null || count == 0) {
+            return 0;
+        }
+        Replicas.locate(current, hasher.hash(key, 0), out, count);
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first node is the primary one, followed by replicas.
+     */
+    @Override
+    public int locate(String key, int count, List<T> out) {
+        Anchor<T> current = anchor;
+        count = Math.min(count, current.buckets.size());
+        if (key == null || count <= 0) {
+            return 0;
+        }
+        Replicas.locate(current, hasher.hash(key, 0), count, out);
+        return count;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return anchor.buckets.size();
+    }
+
+    public Hasher getHasher() {
+        return hasher;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Take the last removed bucket back into the working set.
+     */
+    private int addBucket(int[] sizes, int[] successors, int size) {
+        int bucket = removed[--removedCount];
+        sizes[bucket] = 0;
+        locations[working[size]] = size;
+        working[locations[bucket]] = bucket;
+        successors[bucket] = bucket;
+        return bucket;
+    }
+
+    /**
+     * Remove bucket from the working set, the bucket remembers the size of the working set after removal,
+     * and the last working bucket takes its location.
+     */
+    private void removeBucket(int[] sizes, int[] successors, int bucket, int size) {
+        removed[removedCount++] = bucket;
+        sizes[bucket] = size;
+        working[locations[bucket]] = working[size];
+        locations[working[size]] = locations[bucket];
+        successors[bucket] = working[size];
+    }
+
+    private T nodeAt(long hash) {
+        Anchor<T> current = anchor;
+        return current.buckets.isEmpty() ? null : current.node(current.bucket(hash));
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", AnchorHashRing.class.getSimpleName() + "[", "]")
+                .add("nodes= " + anchor.buckets.size())
+                .add("name= '" + name + "'")
+                .add("hasher= " + hasher)
+                .add("capacity= " + capacity)
+                .toString();
+    }
+
+    /**
+     * Immutable state of buckets, used by readers: size of the working set at the moment of bucket removal
+     * (0 for working buckets), successors of removed buckets and nodes of working buckets.
+     */
+    private static final class Anchor<T> implements Replicas.Lookup<T> {
+        private final int[] sizes;
+        private final int[] successors;
+        private final Object[] nodes;
+        private final Map<T, Integer> buckets;
+
+        private Anchor(int[] sizes, int[] successors, Object[] nodes, Map<T, Integer> buckets) {
+            this.sizes = sizes;
+            this.successors = successors;
+            this.nodes = nodes;
+            this.buckets = buckets;
+        }
+
+        /**
+         * Find working bucket of the key hash. The hash of removed bucket is rehashed into
+         * the buckets that were working at the moment of its removal, and buckets removed later
+         * are replaced by their successors.
+         */
+        @Override
+        public int bucket(long hash) {
+            int bucket = Hashes.reduce(hash, sizes.length);
+            while (sizes[bucket] > 0) {
+                int size = sizes[bucket];
+                int next = Hashes.reduce(Hashes.mix(hash, bucket), size);
+                while (sizes[next] >= size) {
+                    next = successors[next];
+                }
+                bucket = next;
+            }
+            return bucket;
+        }
+
+        @Override
+        public int buckets() {
+            return nodes.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T node(int bucket) {
+            return (T) nodes[bucket];
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Implementation of builder pattern for {@link AnchorHashRing}
+ *
+ * @param <T> the type of node to be used in {@link AnchorHashRing}
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class AnchorHashRingBuilder<T extends Node> {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private String name;
+    private Hasher hash;
+    private int capacity = DEFAULT_CAPACITY;
+    private Collection<T> nodes = Collections.emptyList();
+
+    /**
+     * Set name of the anchor hash
+     *
+     * @param name the name of the hash. If no name was set, default name will be generated
+     * @return builder instance
+     * @throws NullPointerException if name is null
+     */
+    public AnchorHashRingBuilder<T> name(String name) {
+        Objects.requireNonNull(name, "Name can not be null");
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Set hash function implementation, used to locate keys.
+     *
+     * @param hash the hash function, default value is {@link DefaultHasher#MURMUR_3}
+     * @return builder instance
+     */
+    public AnchorHashRingBuilder<T> hasher(Hasher hash) {
+        this.hash = hash;
+        return this;
+    }
+
+    /**
+     * Set capacity of the anchor hash, that is the maximum amount of nodes.
+     * Memory and modification time grow linearly with capacity, while locate slows down only
+     * logarithmically with the ratio of capacity to the amount of nodes,
+     * so capacity can be several times bigger than the expected amount of nodes.
+     *
+     * @param capacity the amount of buckets, default value is 1024
+     * @return builder instance
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public AnchorHashRingBuilder<T> capacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity has to be positive");
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Initialize anchor hash with list of nodes
+     *
+     * @param nodes the nodes list to be added
+     * @return builder instance
+     * @throws NullPointerException if nodes list is null
+     */
+    public AnchorHashRingBuilder<T> nodes(Collection<T> nodes) {
+        Objects.requireNonNull(nodes, "Nodes list can not be null");
+        this.nodes = nodes;
+        return this;
+    }
+
+    /**
+     * Build anchor hash.
+     *
+     * @return the anchor hash instance
+     */
+    public AnchorHashRing<T> build() {
+        name = name != null ? name : generateName();
+        hash = hash != null ? hash : DefaultHasher.MURMUR_3;
+
+        AnchorHashRing<T> ring = new AnchorHashRing<>(name, hash, capacity);
+        ring.addAll(nodes);
+        return ring;
+    }
+
+    private String generateName() {
+        return "anchor_hash_" + new Random().nextInt(10_000);
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.ishugaliy.allgood.consistent.hash.partition.SlotGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of Consistent Hash Ring with Virtual Nodes (partitions) based on sorted primitive arrays.
+ * Slots are kept in a sorted {@code long[]} with a parallel {@code int[]} of node ordinals,
+ * so each partition takes 12 bytes of heap, and nodes are located by binary search.
+ * <p>
+ * Partitions are placed the same way as in {@link HashRing},
+ * so both rings built with the same hasher, partition rate and nodes locate keys to the same nodes.
+ * Adding or removing node rebuilds the arrays, that takes O(V) time, where V is amount of partitions in the ring.
+ * <p>
+ * Ring state is an immutable {@link RingSnapshot}, replaced on each modification,
+ * so all read operations are lock-free.
+ *
+ * @param <T> the type of node to be used in the ring
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class ArrayHashRing<T extends Node> implements ConsistentHash<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArrayHashRing.class);
+
+    private final Lock mutex = new ReentrantLock();
+    private final NodeOrdinals<T> ordinals = new NodeOrdinals<>();
+    private long version;
+    private volatile RingSnapshot<T> snapshot;
+
+    private final String name;
+    private final Hasher hasher;
+    private final int partitionRate;
+    private final SlotGenerator slotGenerator;
+    private final int replicaTable;
+    private final RoutingCache<T> routingCache;
+
+    /**
+     * Instance can be created only via builder {@link HashRingBuilder#buildArrayRing()}
+     *
+     * @param name the name of the hash ring
+     * @param hasher the hash function
+     * @param partitionRate amount of partitions to be created per node
+     * @param slotGenerator the generator of partition slots
+     * @param replicaTable amount of distinct successors precomputed per slot, 0 to not precompute them
+     * @param routingCache capacity of the located nodes cache, 0 to not cache them
+     */
+    ArrayHashRing(String name, Hasher hasher, int partitionRate, SlotGenerator slotGenerator,
+                  int replicaTable, int routingCache) {
+        this.name = name;
+        this.hasher = hasher;
+        this.partitionRate = partitionRate;
+        this.slotGenerator = slotGenerator;
+        this.replicaTable = replicaTable;
+        this.routingCache = routingCache > 0 ? new RoutingCache<>(routingCache) : null;
+        this.snapshot = RingSnapshot.empty(hasher, replicaTable);
+        LOG.info("Array ring [{}] created: hasher [{}], slotGenerator [{}], partitionRate [{}], replicaTable [{}], "
+                + "routingCache [{}]", name, hasher, slotGenerator, partitionRate, replicaTable, routingCache);
+    }
+
+    @Override
+    public boolean add(T node) {
+        return addAll(Collections.singletonList(node));
+    }
+
+    @Override
+    public boolean addAll(Collection<T> nodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            return false;
+        }
+        Map<T, Integer> counts = new HashMap<>();
+        for (T node : nodes) {
+            if (node != null) {
+                counts.put(node, partitionRate);
+            }
+        }
+        if (counts.isEmpty()) {
+            return false;
+        }
+        // generate and sort slots outside the lock, only collisions are rehashed under it
+        PartitionBatch<T> batch = new PartitionBatch<>(hasher, slotGenerator, counts);
+        mutex.lock();
+        try {
+            return addNodes(batch);
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return snapshot.contains(node);
+    }
+
+    @Override
+    public boolean remove(T node) {
+        if (node == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            int ordinal = ordinals.release(node);
+            if (ordinal < 0) {
+                return false;
+            }
+            snapshot = snapshot.withoutOwner(++version, ordinals.copy(), ordinal);
+            LOG.info("Array ring [{}]: node [{}] removed", name, node);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return new HashSet<>(snapshot.getNodes());
+    }
+
+    @Override
+    public Optional<T> locate(String key) {
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    @Override
+    public Set<T> locate(String key, int count) {
+        return snapshot.locate(key, count);
+    }
+
+    @Override
+    public List<T> preferenceList(String key, int n) {
+        return snapshot.preferenceList(key, n);
+    }
+
+    @Override
+    public T locateNode(String key) {
+        RingSnapshot<T> current = snapshot;
+        if (routingCache == null || key == null) {
+            return current.locateNode(key);
+        }
+        T node = routingCache.get(key, current.getVersion());
+        if (node == null) {
+            node = current.locateNode(key);
+            if (node != null) {
+                routingCache.put(key, node, current.getVersion());
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public T locateNode(CharSequence key) {
+        return snapshot.locateNode(key);
+    }
+
+    @Override
+    public T locateNode(byte[] key, int offset, int length) {
+        return snapshot.locateNode(key, offset, length);
+    }
+
+    @Override
+    public T locateNode(ByteBuffer key, int offset, int length) {
+        return snapshot.locateNode(key, offset, length);
+    }
+
+    @Override
+    public int locate(String key, T[] out) {
+        return snapshot.locate(key, out);
+    }
+
+    @Override
+    public int locate(String key, int count, List<T> out) {
+        return snapshot.locate(key, count, out);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All keys are located against the same snapshot, see {@link RingSnapshot#locateAll(Collection)}.
+     */
+    @Override
+    public Map<T, List<String>> locateAll(Collection<String> keys) {
+        return snapshot.locateAll(keys);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Return current immutable snapshot of the ring.
+     *
+     * @return the ring snapshot
+     */
+    public RingSnapshot<T> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Return arcs of the ring, which keys are located to the node, see {@link RingSnapshot#ranges(Node)}.
+     *
+     * @param node the node
+     * @return the ranges, empty if node is not in the ring
+     */
+    public TokenRanges ranges(T node) {
+        return snapshot().ranges(node);
+    }
+
+    /**
+     * Return arcs of the ring, which keys have the node among their replicas,
+     * see {@link RingSnapshot#ranges(Node, int)}.
+     *
+     * @param node              the node
+     * @param replicationFactor the amount of replicas of each key
+     * @return the ranges, empty if node is not in the ring
+     * @throws IllegalArgumentException if replication factor is less than 1
+     */
+    public TokenRanges ranges(T node, int replicationFactor) {
+        return snapshot().ranges(node, replicationFactor);
+    }
+
+    /**
+     * Return fraction of the ring, which keys are located to the node.
+     *
+     * @param node the node
+     * @return the fraction in range [0, 1], 0 if node is not in the ring
+     */
+    public double ownershipFraction(T node) {
+        return snapshot().ownershipFraction(node);
+    }
+
+    public Hasher getHasher() {
+        return hasher;
+    }
+
+    public int getPartitionRate() {
+        return partitionRate;
+    }
+
+    public SlotGenerator getSlotGenerator() {
+        return slotGenerator;
+    }
+
+    public int getReplicaTable() {
+        return replicaTable;
+    }
+
+    /**
+     * Return statistics of the routing cache, see {@link HashRingBuilder#routingCache(int)}
+     *
+     * @return the cache statistics, with zero capacity if cache is disabled
+     */
+    public RoutingCacheStats getRoutingCacheStats() {
+        return routingCache != null ? routingCache.stats(snapshot.getVersion()) : RoutingCacheStats.DISABLED;
+    }
+
+    private boolean addNodes(PartitionBatch<T> batch) {
+        batch.retain(node -> !ordinals.contains(node));
+        if (batch.size() == 0) {
+            return false;
+        }
+        long[] slots = snapshot.slots();
+        batch.resolveCollisions(slot -> RingArrays.contains(slots, slots.length, slot));
+
+        List<T> added = batch.nodes();
+        added.forEach(ordinals::assign);
+        snapshot = snapshot.withSlots(++version, ordinals.copy(), batch.slots(), batch.owners(ordinals::get));
+
+        added.forEach(node -> LOG.info("Array ring [{}]: node [{}] added", name, node));
+        return true;
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", ArrayHashRing.class.getSimpleName() + "[", "]")
+                .add("nodes= " + snapshot.size())
+                .add("name= '" + name + "'")
+                .add("hasher= " + hasher)
+                .add("slotGenerator= " + slotGenerator)
+                .add("replicaTable= " + replicaTable)
+                .add("routingCache= " + (routingCache != null ? routingCache.capacity() : 0))
+                .add("partitionRate= " + partitionRate)
+                .toString();
+    }
+}
@@ -26,9 +26,10 @@ package org.ishugaliy.allgood.consistent.hash;
 
 import org.ishugaliy.allgood.consistent.hash.node.Node;
 
-import java.util.Collection;
-import java.util.Optional;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
 /**
  * Consistent Hash base interface
@@ -106,6 +107,163 @@ public interface ConsistentHash<T extends Node> {
      */
     Set<T> locate(String key, int count);
 
+    /**
+     * Find distinct nodes which most matches the key, ordered by preference,
+     * so the first node is the primary one and the next ones are replicas in order they should be tried.
+     *
+     * @param key the key
+     * @param n   the amount of nodes to be matched
+     * @return the unmodifiable ordered nodes list or empty list if no nodes were found
+     */
+    default List<T> preferenceList(String key, int n) {
+        List<T> res = new ArrayList<>();
+        locate(key, n, res);
+        return Collections.unmodifiableList(res);
+    }
+
+    /**
+     * Find node which most matches the key.
+     * Unlike {@link ConsistentHash#locate(String)} does not wrap result into {@link Optional},
+     * implementations are expected to locate the node without any allocation.
+     *
+     * @param key the key
+     * @return the node or <tt>null</tt> if no node was found
+     */
+    default T locateNode(String key) {
+        return locate(key).orElse(null);
+    }
+
+    /**
+     * Find node which most matches the char sequence key.
+     * Key is located the same way as the String with the same content.
+     *
+     * @param key the key
+     * @return the node or {@link Optional#empty()} if no node was found
+     */
+    default Optional<T> locate(CharSequence key) {
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    /**
+     * Find node which most matches the binary key
+     *
+     * @param key    the key bytes
+     * @param offset the index of the first key byte
+     * @param length the number of key bytes
+     * @return the node or {@link Optional#empty()} if no node was found
+     */
+    default Optional<T> locate(byte[] key, int offset, int length) {
+        return Optional.ofNullable(locateNode(key, offset, length));
+    }
+
+    /**
+     * Find node which most matches the binary key, stored in the buffer.
+     * Buffer position and limit are not changed.
+     *
+     * @param key    the buffer with the key, direct or heap one
+     * @param offset the absolute index of the first key byte
+     * @param length the number of key bytes
+     * @return the node or {@link Optional#empty()} if no node was found
+     */
+    default Optional<T> locate(ByteBuffer key, int offset, int length) {
+        return Optional.ofNullable(locateNode(key, offset, length));
+    }
+
+    /**
+     * Allocation-free version of {@link ConsistentHash#locate(CharSequence)}
+     *
+     * @param key the key
+     * @return the node or <tt>null</tt> if no node was found
+     */
+    default T locateNode(CharSequence key) {
+        return locateNode(key != null ? key.toString() : null);
+    }
+
+    /**
+     * Allocation-free version of {@link ConsistentHash#locate(byte[], int, int)}.
+     * Default implementation maps each byte to a char and locates the resulting String,
+     * ring implementations hash raw key bytes instead.
+     *
+     * @param key    the key bytes
+     * @param offset the index of the first key byte
+     * @param length the number of key bytes
+     * @return the node or <tt>null</tt> if no node was found
+     */
+    default T locateNode(byte[] key, int offset, int length) {
+        return locateNode(key != null ? new String(key, offset, length, ISO_8859_1) : null);
+    }
+
+    /**
+     * Allocation-free version of {@link ConsistentHash#locate(ByteBuffer, int, int)}
+     *
+     * @param key    the buffer with the key, direct or heap one
+     * @param offset the absolute index of the first key byte
+     * @param length the number of key bytes
+     * @return the node or <tt>null</tt> if no node was found
+     */
+    default T locateNode(ByteBuffer key, int offset, int length) {
+        if (key == null) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = key.get(offset + i);
+        }
+        return locateNode(bytes, 0, length);
+    }
+
+    /**
+     * Find distinct nodes which most matches the key and put them into caller-owned buffer.
+     * Amount of nodes to be located is defined by the buffer length.
+     * Implementations are expected to locate nodes without any allocation.
+     *
+     * @param key the key
+     * @param out the buffer to be filled with located nodes, starting from index 0
+     * @return amount of nodes put into the buffer
+     */
+    default int locate(String key, T[] out) {
+        int idx = 0;
+        for (T node : locate(key, out.length)) {
+            out[idx++] = node;
+        }
+        return idx;
+    }
+
+    /**
+     * Find distinct nodes which most matches the key and append them to caller-owned list.
+     * Implementations are expected to locate nodes without any allocation,
+     * except the ones made by the list itself.
+     *
+     * @param key   the key
+     * @param count the amount of nodes to be matched
+     * @param out   the list to which located nodes are appended
+     * @return amount of nodes appended to the list
+     */
+    default int locate(String key, int count, List<T> out) {
+        Set<T> nodes = locate(key, count);
+        out.addAll(nodes);
+        return nodes.size();
+    }
+
+    /**
+     * Locate nodes of all keys and group the keys by located nodes,
+     * so one batched request per node can be made.
+     * Keys for which no node was found (null keys or empty hash) are skipped.
+     *
+     * @param keys the keys to be located
+     * @return the keys grouped by located nodes, in the iteration order of the collection
+     */
+    default Map<T, List<String>> locateAll(Collection<String> keys) {
+        Map<T, List<String>> res = new HashMap<>();
+        for (String key : keys) {
+            T node = locateNode(key);
+            if (node != null) {
+                res.computeIfAbsent(node, n -> new ArrayList<>()).add(key);
+            }
+        }
+        return res;
+    }
+
     /**
      * Return number of nodes inside consistent hash
      *
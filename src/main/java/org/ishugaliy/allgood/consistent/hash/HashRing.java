@@ -26,24 +26,43 @@ package org.ishugaliy.allgood.consistent.hash;
 
 import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
 import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.metrics.RingMetrics;
 import org.ishugaliy.allgood.consistent.hash.node.Node;
 import org.ishugaliy.allgood.consistent.hash.partition.Partition;
 import org.ishugaliy.allgood.consistent.hash.partition.ReplicationPartition;
+import org.ishugaliy.allgood.consistent.hash.partition.SlotGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
-import static java.util.Collections.emptyList;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Implementation of Consistent Hash Ring with Virtual Nodes (partitions).
  * Hash ring is based on Binary Search Tree - {@link TreeMap}
+ * <p>
+ * Amount of node partitions is proportional to the node weight ({@link HashRingBuilder#weigher}),
+ * so nodes of different capacity get different shares of keys.
+ * <p>
+ * Partitions of nodes added by {@link #addAll(Collection)} are hashed, sorted and created in parallel,
+ * but the tree is built sequentially and keeps a partition, a boxed slot and a tree entry per partition,
+ * so building a ring of millions of partitions takes seconds on any amount of cores.
+ * {@link ArrayHashRing} keeps partitions in primitive arrays and suits such rings better.
+ * <p>
+ * By default all read operations are guarded by the ring read lock.
+ * With lock-free reads enabled ({@link HashRingBuilder#lockFreeReads(boolean)}) each modification
+ * publishes new immutable {@link RingSnapshot}, and read operations only do a volatile read of it.
+ * <p>
+ * With bounded loads enabled ({@link HashRingBuilder#boundedLoads(double)}) keys assigned
+ * by {@link #acquire(String)} are counted per node, and key is located on the first node clockwise,
+ * which load is below {@code (1 + epsilon)} times the average one.
  *
+ * @see <a href="https://arxiv.org/abs/1608.01350">Consistent Hashing with Bounded Loads</a>
  * @see <a href="https://docs.datastax.com/en/dse/6.8/dse-arch/datastax_enterprise/dbArch/archDataDistributeHashing.html"></a>
  *
  * @param <T> the type of node to be used in the ring
@@ -55,13 +74,24 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
     private static final Logger LOG = LoggerFactory.getLogger(HashRing.class);
 
     private final ReadWriteLock mutex = new ReentrantReadWriteLock(true);
-    private final Map<T, Set<Partition<T>>> nodes = new HashMap<>();
-    private final NavigableMap<Long, Partition<T>> ring = new TreeMap<>();
+    private final Map<T, List<Partition<T>>> nodes = new HashMap<>();
+    private final Map<T, Double> weights = new ConcurrentHashMap<>();
+    private NavigableMap<Long, Partition<T>> ring = new TreeMap<>();
+    private final NodeOrdinals<T> ordinals = new NodeOrdinals<>();
 
     private final String name;
     private final Hasher hasher;
     private final int partitionRate;
+    private final boolean lockFreeReads;
+    private final NodeLoads<T> loads;
+    private final ToDoubleFunction<T> weigher;
+    private final SlotGenerator slotGenerator;
+    private final int replicaTable;
+    private final RoutingCache<T> routingCache;
+    private final RingMetrics<T> metrics;
 
+    private volatile long version;
+    private volatile RingSnapshot<T> snapshot;
 
     /**
      * Instance can be created only via builder {@link HashRing#newBuilder()}
@@ -69,12 +99,31 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
      * @param name the name of the hash ring
      * @param hasher the hash function
      * @param partitionRate amount of partitions to be created per node
+     * @param lockFreeReads publish immutable snapshot on each modification and read it without locking
+     * @param loadEpsilon allowed excess of node load over the average one, 0 to disable bounded loads
+     * @param weigher the function to get node weight
+     * @param slotGenerator the generator of partition slots
+     * @param replicaTable amount of distinct successors precomputed per slot, 0 to not precompute them
+     * @param routingCache capacity of the located nodes cache, 0 to not cache them
+     * @param metrics the recorder of ring operations or <tt>null</tt> to not record them
      */
-    HashRing(String name, Hasher hasher, int partitionRate) {
+    HashRing(String name, Hasher hasher, int partitionRate, boolean lockFreeReads, double loadEpsilon,
+             ToDoubleFunction<T> weigher, SlotGenerator slotGenerator, int replicaTable, int routingCache,
+             RingMetrics<T> metrics) {
         this.name = name;
         this.hasher = hasher;
         this.partitionRate = partitionRate;
-        LOG.info("Ring [{}] created: hasher [{}], partitionRate [{}]", name, hasher, partitionRate);
+        this.lockFreeReads = lockFreeReads;
+        this.loads = loadEpsilon > 0 ? new NodeLoads<>(loadEpsilon) : null;
+        this.weigher = weigher;
+        this.slotGenerator = slotGenerator;
+        this.replicaTable = replicaTable;
+        this.routingCache = routingCache > 0 ? new RoutingCache<>(routingCache) : null;
+        this.metrics = metrics;
+        this.snapshot = lockFreeReads ? RingSnapshot.empty(hasher, replicaTable) : null;
+        LOG.info("Ring [{}] created: hasher [{}], slotGenerator [{}], partitionRate [{}], lockFreeReads [{}], "
+                        + "loadEpsilon [{}], replicaTable [{}], routingCache [{}]",
+                name, hasher, slotGenerator, partitionRate, lockFreeReads, loadEpsilon, replicaTable, routingCache);
     }
 
     /**
@@ -87,35 +136,58 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
         return new HashRingBuilder<>();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if weight of the node is not positive finite number
+     */
     @Override
     public boolean add(T node) {
-        mutex.writeLock().lock();
-        try {
-            return addNode(node);
-        } finally {
-            mutex.writeLock().unlock();
-        }
+        return mutate(() -> insert(node, false)) != null;
+    }
+
+    /**
+     * Add node to the ring and report arcs of the ring, which moved to the node.
+     *
+     * @param node the node
+     * @return the moved arcs, empty if node was not added
+     * @throws IllegalArgumentException if weight of the node is not positive finite number
+     */
+    public RingDelta<T> addWithDelta(T node) {
+        RingDelta<T> delta = mutate(() -> insert(node, true));
+        return delta != null ? delta : RingDelta.empty();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if weight of any node is not positive finite number,
+     *                                  no node is added in this case
+     */
     @Override
     public boolean addAll(Collection<T> nodes) {
-        mutex.writeLock().lock();
-        try {
-            if (nodes == null) {
-                nodes = emptyList();
-            }
-            nodes = nodes.stream()
-                    .filter(this::addNode)
-                    .collect(Collectors.toList());
-            return !nodes.isEmpty();
-        } finally {
-            mutex.writeLock().unlock();
-        }
+        return mutate(() -> insertAll(nodes, false)) != null;
+    }
+
+    /**
+     * Add nodes to the ring and report arcs of the ring, which moved to the added nodes.
+     *
+     * @param nodes the nodes
+     * @return the moved arcs, empty if no node was added
+     * @throws IllegalArgumentException if weight of any node is not positive finite number,
+     *                                  no node is added in this case
+     */
+    public RingDelta<T> addAllWithDelta(Collection<T> nodes) {
+        RingDelta<T> delta = mutate(() -> insertAll(nodes, true));
+        return delta != null ? delta : RingDelta.empty();
     }
 
     @Override
     public boolean contains(T node) {
-        mutex.readLock().lock();
+        if (lockFreeReads) {
+            return snapshot.contains(node);
+        }
+        lockRead();
         try {
             return nodes.containsKey(node);
         } finally {
@@ -125,24 +197,26 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
 
     @Override
     public boolean remove(T node) {
-        mutex.writeLock().lock();
-        boolean removed = false;
-        try {
-            if (nodes.containsKey(node)) {
-                Set<Partition<T>> partitions = nodes.remove(node);
-                partitions.forEach(p -> ring.remove(p.getSlot()));
-                removed = true;
-                LOG.info("Ring [{}]: node [{}] removed", name, node);
-            }
-        } finally {
-            mutex.writeLock().unlock();
-        }
-        return removed;
+        return mutate(() -> delete(node, false)) != null;
+    }
+
+    /**
+     * Remove node from the ring and report arcs of the ring, which moved from the node to the other nodes.
+     *
+     * @param node the node
+     * @return the moved arcs, empty if node was not in the ring
+     */
+    public RingDelta<T> removeWithDelta(T node) {
+        RingDelta<T> delta = mutate(() -> delete(node, true));
+        return delta != null ? delta : RingDelta.empty();
     }
 
     @Override
     public Set<T> getNodes() {
-        mutex.readLock().lock();
+        if (lockFreeReads) {
+            return new HashSet<>(snapshot.getNodes());
+        }
+        lockRead();
         try {
             return new HashSet<>(nodes.keySet());
         } finally {
@@ -152,19 +226,89 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
 
     @Override
     public Optional<T> locate(String key) {
-        mutex.readLock().lock();
-        Optional<T> node;
-        try {
-            node = findNode(key);
-        } finally {
-            mutex.readLock().unlock();
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    @Override
+    public T locateNode(String key) {
+        long start = locateStart();
+        T node;
+        if (routingCache != null && key != null) {
+            node = locateCached(key);
+        } else if (lockFreeReads && loads == null) {
+            node = snapshot.locateNode(key);
+        } else {
+            node = key != null ? findNode(key, hash(key)) : null;
         }
-        return node;
+        return located(node, start);
+    }
+
+    @Override
+    public T locateNode(CharSequence key) {
+        long start = locateStart();
+        T node;
+        if (lockFreeReads && loads == null) {
+            node = snapshot.locateNode(key);
+        } else {
+            node = key != null ? findNode(key, Math.abs(hasher.hash(key, 0))) : null;
+        }
+        return located(node, start);
+    }
+
+    @Override
+    public T locateNode(byte[] key, int offset, int length) {
+        long start = locateStart();
+        T node;
+        if (lockFreeReads && loads == null) {
+            node = snapshot.locateNode(key, offset, length);
+        } else {
+            node = key != null ? findNode(key, Math.abs(hasher.hash(key, offset, length, 0))) : null;
+        }
+        return located(node, start);
+    }
+
+    @Override
+    public T locateNode(ByteBuffer key, int offset, int length) {
+        long start = locateStart();
+        T node;
+        if (lockFreeReads && loads == null) {
+            node = snapshot.locateNode(key, offset, length);
+        } else {
+            node = key != null ? findNode(key, Math.abs(hasher.hash(key, offset, length, 0))) : null;
+        }
+        return located(node, start);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nodes are put into the buffer in clockwise order, so the first one is the primary node.
+     * Without lock-free reads nodes are located against the snapshot, see {@link #snapshot()},
+     * which is built under the read lock once per ring modification, so lookup is allocation-free in both modes.
+     */
+    @Override
+    public int locate(String key, T[] out) {
+        return snapshot().locate(key, out);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nodes are appended in clockwise order, so the first one is the primary node.
+     * Without lock-free reads nodes are located against the snapshot, see {@link #snapshot()},
+     * which is built under the read lock once per ring modification, so lookup is allocation-free in both modes.
+     */
+    @Override
+    public int locate(String key, int count, List<T> out) {
+        return snapshot().locate(key, count, out);
     }
 
     @Override
     public Set<T> locate(String key, int count) {
-        mutex.readLock().lock();
+        if (lockFreeReads) {
+            return snapshot.locate(key, count);
+        }
+        lockRead();
         Set<T> nodes;
         try {
             nodes = findNodes(key, count);
@@ -174,6 +318,175 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
         return nodes;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nodes are ordered clockwise, even if all nodes of the ring are requested.
+     */
+    @Override
+    public List<T> preferenceList(String key, int n) {
+        if (lockFreeReads) {
+            return snapshot.preferenceList(key, n);
+        }
+        lockRead();
+        try {
+            n = Math.min(n, nodes.size());
+            if (key == null || n <= 0) {
+                return Collections.emptyList();
+            }
+            List<T> res = new ArrayList<>(n);
+            OrdinalSet collected = new OrdinalSet(ordinals.capacity());
+            Iterator<Partition<T>> it = new ClockwiseIterator(hash(key));
+            while (it.hasNext() && res.size() < n) {
+                T node = it.next().getNode();
+                if (collected.add(ordinals.get(node))) {
+                    res.add(node);
+                }
+            }
+            return Collections.unmodifiableList(res);
+        } finally {
+            mutex.readLock().unlock();
+        }
+    }
+
+    /**
+     * Change weight of the node in place. Only the difference of partitions is added to or removed from the ring:
+     * partitions with the next indexes are added, partitions with the highest indexes are removed,
+     * so only keys of those partitions move.
+     *
+     * @param node   the node
+     * @param weight the new weight of the node
+     * @return <tt>true</tt> if weight was changed, <tt>false</tt> if node is not present in the ring
+     * @throws IllegalArgumentException if weight is not positive finite number
+     */
+    public boolean setWeight(T node, double weight) {
+        checkWeight(node, weight);
+        return mutate(() -> changeWeight(node, weight));
+    }
+
+    private boolean changeWeight(T node, double weight) {
+        lockWrite();
+        try {
+            List<Partition<T>> partitions = nodes.get(node);
+            if (partitions == null) {
+                return false;
+            }
+            weights.put(node, weight);
+            int count = partitionCount(weight);
+            int current = partitions.size();
+            if (count > current) {
+                List<Partition<T>> added = createPartitions(node, current, count);
+                partitions.addAll(added);
+                version++;
+                if (lockFreeReads) {
+                    publishAdded(added);
+                }
+            } else if (count < current) {
+                List<Partition<T>> removed = partitions.subList(count, current);
+                long[] slots = new long[removed.size()];
+                for (int i = 0; i < slots.length; i++) {
+                    slots[i] = removed.get(i).getSlot();
+                    ring.remove(slots[i]);
+                }
+                removed.clear();
+                version++;
+                if (lockFreeReads) {
+                    Arrays.sort(slots);
+                    snapshot = snapshot.withoutSlots(version, ordinals.copy(), slots);
+                }
+            }
+            LOG.info("Ring [{}]: node [{}] weight set to [{}], partitions [{}] -> [{}]",
+                    name, node, weight, current, count);
+            return true;
+        } finally {
+            mutex.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Return weight of the node, that defines amount of its partitions:
+     * {@code max(1, round(partitionRate * weight))}.
+     *
+     * @param node the node
+     * @return the weight of the node or 0 if node is absent
+     */
+    public double getWeight(T node) {
+        Double weight = node != null ? weights.get(node) : null;
+        return weight != null ? weight : 0;
+    }
+
+    /**
+     * Locate node for the key and assign the key to it, with bounded loads the node load is incremented,
+     * so the next keys skip the node once it is saturated.
+     * The key has to be released by {@link #release(Node)}, when it is no more served by the node.
+     * If the located node is removed before the key is assigned, the key is located again.
+     *
+     * @param key the key
+     * @return the node or <tt>null</tt> if no node was found
+     * @throws IllegalStateException if bounded loads are not enabled
+     */
+    public T acquire(String key) {
+        if (loads == null) {
+            throw new IllegalStateException("Bounded loads are not enabled for ring [" + name + "]");
+        }
+        T node = locateNode(key);
+        while (node != null && !loads.acquire(node)) {
+            node = locateNode(key);
+        }
+        return node;
+    }
+
+    /**
+     * Release the key, assigned to the node by {@link #acquire(String)}.
+     *
+     * @param node the node
+     * @return <tt>true</tt> if load of the node was decremented,
+     *         <tt>false</tt> if node is not present in the ring or has no acquired keys
+     * @throws IllegalStateException if bounded loads are not enabled
+     */
+    public boolean release(T node) {
+        if (loads == null) {
+            throw new IllegalStateException("Bounded loads are not enabled for ring [" + name + "]");
+        }
+        return node != null && loads.release(node);
+    }
+
+    /**
+     * Return amount of keys assigned to the node by {@link #acquire(String)}.
+     *
+     * @param node the node
+     * @return the load of the node, 0 if bounded loads are not enabled or node is absent
+     */
+    public long getLoad(T node) {
+        return loads != null && node != null ? loads.load(node) : 0;
+    }
+
+    /**
+     * Return amount of keys assigned to all the nodes by {@link #acquire(String)}.
+     *
+     * @return the total load, 0 if bounded loads are not enabled
+     */
+    public long getTotalLoad() {
+        return loads != null ? loads.total() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Keys are located against a single ring snapshot, see {@link #snapshot()} and
+     * {@link RingSnapshot#locateAll(Collection)}, so the result is consistent. Keys are hashed and sorted once,
+     * and ceiling slots are found in one pass over the snapshot slots. Without lock-free reads
+     * the snapshot is built under the read lock once per ring modification.
+     * With bounded loads keys are located one by one.
+     */
+    @Override
+    public Map<T, List<String>> locateAll(Collection<String> keys) {
+        if (loads != null) {
+            return ConsistentHash.super.locateAll(keys);
+        }
+        return snapshot().locateAll(keys);
+    }
+
     @Override
     public String getName() {
         return name;
@@ -181,7 +494,10 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
 
     @Override
     public int size() {
-        mutex.readLock().lock();
+        if (lockFreeReads) {
+            return snapshot.size();
+        }
+        lockRead();
         try {
             return nodes.size();
         } finally {
@@ -189,6 +505,67 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
         }
     }
 
+    /**
+     * Return immutable snapshot of the ring, that can be used for several reads
+     * against the same ring topology without any locking.
+     * <p>
+     * With lock-free reads enabled, the snapshot published by the last modification is returned.
+     * Otherwise snapshot is built from the ring under the read lock,
+     * and cached until the next modification.
+     *
+     * @return the ring snapshot
+     */
+    public RingSnapshot<T> snapshot() {
+        if (lockFreeReads) {
+            return snapshot;
+        }
+        lockRead();
+        try {
+            RingSnapshot<T> current = snapshot;
+            if (current == null || current.getVersion() != version) {
+                current = buildSnapshot();
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            mutex.readLock().unlock();
+        }
+    }
+
+    /**
+     * Return arcs of the ring, which keys are located to the node, see {@link RingSnapshot#ranges(Node)}.
+     * Ranges follow placement of partitions, bounded loads are not taken into account.
+     *
+     * @param node the node
+     * @return the ranges, empty if node is not in the ring
+     */
+    public TokenRanges ranges(T node) {
+        return snapshot().ranges(node);
+    }
+
+    /**
+     * Return arcs of the ring, which keys have the node among their replicas,
+     * see {@link RingSnapshot#ranges(Node, int)}.
+     *
+     * @param node              the node
+     * @param replicationFactor the amount of replicas of each key
+     * @return the ranges, empty if node is not in the ring
+     * @throws IllegalArgumentException if replication factor is less than 1
+     */
+    public TokenRanges ranges(T node, int replicationFactor) {
+        return snapshot().ranges(node, replicationFactor);
+    }
+
+    /**
+     * Return fraction of the ring, which keys are located to the node.
+     *
+     * @param node the node
+     * @return the fraction in range [0, 1], 0 if node is not in the ring
+     */
+    public double ownershipFraction(T node) {
+        return snapshot().ownershipFraction(node);
+    }
+
     public Hasher getHasher() {
         return hasher;
     }
@@ -197,56 +574,488 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
         return partitionRate;
     }
 
-    private boolean addNode(T node) {
-        boolean added = false;
-        if (node != null && !nodes.containsKey(node)) {
-            Set<Partition<T>> partitions = createPartitions(node);
-            distributePartitions(partitions);
-            nodes.put(node, partitions);
-            LOG.info("Ring [{}]: node [{}] added", name, node);
-            added = true;
+    public SlotGenerator getSlotGenerator() {
+        return slotGenerator;
+    }
+
+    public int getReplicaTable() {
+        return replicaTable;
+    }
+
+    /**
+     * Return statistics of the routing cache, see {@link HashRingBuilder#routingCache(int)}
+     *
+     * @return the cache statistics, with zero capacity if cache is disabled
+     */
+    public RoutingCacheStats getRoutingCacheStats() {
+        if (routingCache == null) {
+            return RoutingCacheStats.DISABLED;
         }
-        return added;
+        return routingCache.stats(lockFreeReads ? snapshot.getVersion() : version);
     }
 
-    private Set<Partition<T>> createPartitions(T node) {
-        Set<Partition<T>> partitions = IntStream.range(0, partitionRate)
-                .mapToObj(idx -> new ReplicationPartition<>(idx, node))
-                .collect(Collectors.toSet());
-        LOG.debug("Ring [{}]: node [{}] partitions created", name, node);
-        return partitions;
+    /**
+     * Return recorder of ring operations, see {@link HashRingBuilder#metrics(RingMetrics)}
+     *
+     * @return the metrics or {@link Optional#empty()} if metrics are disabled
+     */
+    public Optional<RingMetrics<T>> getMetrics() {
+        return Optional.ofNullable(metrics);
     }
 
-    private void distributePartitions(Set<Partition<T>> partitions) {
-        for (Partition<T> part : partitions) {
-            String pk = part.getPartitionKey();
-            long slot = findSlot(pk);
-            part.setSlot(slot);
-            ring.put(slot, part);
-            LOG.debug("Ring [{}]: node [{}] partitions distributed", name, part.getNode());
+    public boolean isLockFreeReads() {
+        return lockFreeReads;
+    }
+
+    public boolean isBoundedLoads() {
+        return loads != null;
+    }
+
+    /**
+     * @return allowed excess of node load over the average one, 0 if bounded loads are not enabled
+     */
+    public double getLoadEpsilon() {
+        return loads != null ? loads.epsilon() : 0;
+    }
+
+    /**
+     * @return the delta of the modification, empty one if it was not requested, or <tt>null</tt> if node was not added
+     */
+    private RingDelta<T> insert(T node, boolean withDelta) {
+        lockWrite();
+        try {
+            if (node == null || nodes.containsKey(node)) {
+                return null;
+            }
+            addNode(node, weight(node));
+            onAdded(Collections.singletonList(node));
+            if (!withDelta) {
+                return RingDelta.empty();
+            }
+            List<Partition<T>> sorted = new ArrayList<>(nodes.get(node));
+            sorted.sort(Comparator.comparingLong(Partition::getSlot));
+            return addedDelta(sorted, Collections.singleton(node));
+        } finally {
+            mutex.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the delta of the modification, empty one if it was not requested, or <tt>null</tt> if no node was added
+     */
+    private RingDelta<T> insertAll(Collection<T> nodes, boolean withDelta) {
+        Map<T, Double> batch = new LinkedHashMap<>();
+        if (nodes != null) {
+            for (T node : nodes) {
+                if (node != null) {
+                    batch.computeIfAbsent(node, this::weight);
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return null;
+        }
+        // hash and sort partitions outside the lock, only collisions are rehashed under it
+        Map<T, Integer> counts = new HashMap<>();
+        batch.forEach((node, weight) -> counts.put(node, partitionCount(weight)));
+        PartitionBatch<T> partitions = new PartitionBatch<>(hasher, slotGenerator, counts);
+        lockWrite();
+        try {
+            partitions.retain(node -> !this.nodes.containsKey(node));
+            if (partitions.size() == 0) {
+                return null;
+            }
+            partitions.resolveCollisions(ring::containsKey);
+            Set<T> added = new HashSet<>();
+            Partition<T>[] sorted = partitions.partitions((node, nodePartitions) -> {
+                this.nodes.put(node, nodePartitions);
+                weights.put(node, batch.get(node));
+                ordinals.assign(node);
+                if (loads != null) {
+                    loads.register(node);
+                }
+                if (metrics != null) {
+                    metrics.nodeAdded(node);
+                }
+                added.add(node);
+                LOG.info("Ring [{}]: node [{}] added", name, node);
+            });
+            loadSorted(sorted);
+            version++;
+            if (lockFreeReads) {
+                snapshot = snapshot.withSlots(version, ordinals.copy(), partitions.slots(),
+                        partitions.owners(ordinals::get));
+            }
+            return withDelta ? addedDelta(Arrays.asList(sorted), added) : RingDelta.empty();
+        } finally {
+            mutex.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the delta of the modification, empty one if it was not requested, or <tt>null</tt> if node was absent
+     */
+    private RingDelta<T> delete(T node, boolean withDelta) {
+        lockWrite();
+        try {
+            if (node == null || !nodes.containsKey(node)) {
+                return null;
+            }
+            List<Partition<T>> partitions = nodes.get(node);
+            // arcs are bounded by the removed partitions, so they are taken before the removal
+            RingDelta.Builder<T> arcs = withDelta ? removedArcs(node, partitions) : null;
+            nodes.remove(node);
+            weights.remove(node);
+            partitions.forEach(p -> ring.remove(p.getSlot()));
+            onRemoved(node);
+            LOG.info("Ring [{}]: node [{}] removed", name, node);
+            return arcs != null ? arcs.build(version) : RingDelta.empty();
+        } finally {
+            mutex.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Collect arcs of the added partitions, that are sorted by slots and already in the ring.
+     * Previous owner of the arc is the first node clockwise, which was not added.
+     */
+    private RingDelta<T> addedDelta(List<Partition<T>> sorted, Set<T> added) {
+        RingDelta.Builder<T> arcs = new RingDelta.Builder<>();
+        boolean owned = nodes.size() > added.size();
+        for (Partition<T> part : sorted) {
+            long slot = part.getSlot();
+            arcs.add(previousSlot(slot), slot, owned ? nextOwner(slot, added) : null, part.getNode());
+        }
+        return arcs.build(version);
+    }
+
+    /**
+     * Collect arcs of the partitions of the node to be removed.
+     * New owner of the arc is the first other node clockwise.
+     */
+    private RingDelta.Builder<T> removedArcs(T node, List<Partition<T>> partitions) {
+        List<Partition<T>> sorted = new ArrayList<>(partitions);
+        sorted.sort(Comparator.comparingLong(Partition::getSlot));
+        RingDelta.Builder<T> arcs = new RingDelta.Builder<>();
+        Set<T> removed = Collections.singleton(node);
+        boolean remains = nodes.size() > 1;
+        for (Partition<T> part : sorted) {
+            long slot = part.getSlot();
+            arcs.add(previousSlot(slot), slot, node, remains ? nextOwner(slot, removed) : null);
         }
+        return arcs;
     }
 
-    private long findSlot(String pk) {
-        long slot;
-        int seed = 0;
-        do {
-            slot = hash(pk, seed++);
-        } while (ring.containsKey(slot));
+    private long previousSlot(long slot) {
+        Long previous = ring.lowerKey(slot);
+        return previous != null ? previous : ring.lastKey();
+    }
+
+    private T nextOwner(long slot, Set<T> skipped) {
+        Iterator<Partition<T>> it = new ClockwiseIterator(slot);
+        while (it.hasNext()) {
+            T node = it.next().getNode();
+            if (!skipped.contains(node)) {
+                return node;
+            }
+        }
+        return null;
+    }
 
-        return slot;
+    /**
+     * Build snapshot of the ring with membership changes applied, without modification of the ring.
+     * Result is the same as if removed nodes were removed first and then added nodes were added by
+     * {@link #addAll(Collection)}.
+     *
+     * @param added   the nodes to be added
+     * @param removed the nodes to be removed
+     * @return the snapshot of the changed ring
+     * @throws IllegalArgumentException if weight of any added node is not positive finite number
+     */
+    RingSnapshot<T> preview(Collection<T> added, Collection<T> removed) {
+        RingSnapshot<T> current = snapshot();
+        Map<T, Integer> changed = new HashMap<>(current.ordinals());
+        int next = changed.values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        RingSnapshot<T> result = current;
+        for (T node : removed) {
+            Integer ordinal = node != null ? changed.remove(node) : null;
+            if (ordinal != null) {
+                result = result.withoutOwner(result.getVersion(), changed, ordinal);
+            }
+        }
+        Map<T, Integer> counts = new HashMap<>();
+        for (T node : added) {
+            if (node != null && !changed.containsKey(node) && !counts.containsKey(node)) {
+                counts.put(node, partitionCount(weight(node)));
+            }
+        }
+        if (!counts.isEmpty()) {
+            PartitionBatch<T> batch = new PartitionBatch<>(hasher, slotGenerator, counts);
+            long[] slots = result.slots();
+            batch.resolveCollisions(slot -> RingArrays.contains(slots, slots.length, slot));
+            long[] addedSlots = new long[batch.size()];
+            int[] addedOwners = new int[addedSlots.length];
+            for (int i = 0; i < addedSlots.length; i++) {
+                T node = batch.node(i);
+                Integer ordinal = changed.get(node);
+                if (ordinal == null) {
+                    ordinal = next++;
+                    changed.put(node, ordinal);
+                }
+                addedSlots[i] = batch.slot(i);
+                addedOwners[i] = ordinal;
+            }
+            result = result.withSlots(result.getVersion(), changed, addedSlots, addedOwners);
+        }
+        // intermediate snapshots saw the ordinals being changed, so the final one is built from their arrays
+        return result == current ? current
+                : new RingSnapshot<>(current.getVersion() + 1, hasher, result.slots(), result.owners(), changed);
+    }
+
+    private void addNode(T node, double weight) {
+        List<Partition<T>> partitions = createPartitions(node, 0, partitionCount(weight));
+        nodes.put(node, partitions);
+        weights.put(node, weight);
+        ordinals.assign(node);
+        if (loads != null) {
+            loads.register(node);
+        }
+        if (metrics != null) {
+            metrics.nodeAdded(node);
+        }
+        LOG.info("Ring [{}]: node [{}] added", name, node);
+    }
+
+    private double weight(T node) {
+        double weight = weigher.applyAsDouble(node);
+        checkWeight(node, weight);
+        return weight;
+    }
+
+    private static void checkWeight(Object node, double weight) {
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Weight of node [" + node + "] has to be positive: " + weight);
+        }
+    }
+
+    private int partitionCount(double weight) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(partitionRate * weight)));
+    }
+
+    private void onAdded(List<T> added) {
+        version++;
+        if (lockFreeReads) {
+            List<Partition<T>> partitions = new ArrayList<>();
+            added.forEach(node -> partitions.addAll(nodes.get(node)));
+            publishAdded(partitions);
+        }
+    }
+
+    private void publishAdded(List<Partition<T>> partitions) {
+        long[] slots = new long[partitions.size()];
+        int[] owners = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = partitions.get(i).getSlot();
+            owners[i] = ordinals.get(partitions.get(i).getNode());
+        }
+        RingArrays.parallelSort(slots, owners, slots.length);
+        snapshot = snapshot.withSlots(version, ordinals.copy(), slots, owners);
+    }
+
+    /**
+     * Put partitions sorted by slots into the ring.
+     * Empty tree is replaced by the tree built from the sorted partitions in linear time,
+     * the tree is rebuilt the same way if the batch is not smaller than the ring,
+     * otherwise partitions are inserted one by one.
+     */
+    private void loadSorted(Partition<T>[] sorted) {
+        if (ring.isEmpty()) {
+            ring = treeOf(sorted);
+        } else if (sorted.length >= ring.size()) {
+            @SuppressWarnings("unchecked")
+            Partition<T>[] merged = (Partition<T>[]) new Partition<?>[ring.size() + sorted.length];
+            Iterator<Partition<T>> it = ring.values().iterator();
+            Partition<T> current = it.next();
+            int i = 0;
+            int j = 0;
+            while (current != null || j < sorted.length) {
+                if (current != null && (j == sorted.length || current.getSlot() < sorted[j].getSlot())) {
+                    merged[i++] = current;
+                    current = it.hasNext() ? it.next() : null;
+                } else {
+                    merged[i++] = sorted[j++];
+                }
+            }
+            ring = treeOf(merged);
+        } else {
+            for (Partition<T> part : sorted) {
+                ring.put(part.getSlot(), part);
+            }
+        }
+    }
+
+    private static <T extends Node> NavigableMap<Long, Partition<T>> treeOf(Partition<T>[] sorted) {
+        long[] slots = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            slots[i] = sorted[i].getSlot();
+        }
+        return new TreeMap<>(new SortedArrayMap<>(slots, sorted));
+    }
+
+    private void onRemoved(T node) {
+        version++;
+        int ordinal = ordinals.release(node);
+        if (loads != null) {
+            loads.remove(node);
+        }
+        if (metrics != null) {
+            metrics.nodeRemoved(node);
+        }
+        if (lockFreeReads) {
+            snapshot = snapshot.withoutOwner(version, ordinals.copy(), ordinal);
+        }
+    }
+
+    private RingSnapshot<T> buildSnapshot() {
+        long[] slots = new long[ring.size()];
+        int[] owners = new int[slots.length];
+        int idx = 0;
+        for (Map.Entry<Long, Partition<T>> entry : ring.entrySet()) {
+            slots[idx] = entry.getKey();
+            owners[idx++] = ordinals.get(entry.getValue().getNode());
+        }
+        return new RingSnapshot<>(version, hasher, slots, owners, ordinals.copy());
+    }
+
+    /**
+     * Create partitions with indexes in range [from, to) and put them into the ring.
+     */
+    private List<Partition<T>> createPartitions(T node, int from, int to) {
+        String nodeKey = node.getKey();
+        long[] slots = new long[to - from];
+        slotGenerator.slots(hasher, nodeKey, from, to, slots, 0);
+        List<Partition<T>> partitions = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            long slot = Math.abs(slots[i]);
+            for (int attempt = 1; ring.containsKey(slot); attempt++) {
+                slot = Math.abs(slotGenerator.slot(hasher, nodeKey, from + i, attempt));
+            }
+            Partition<T> part = new ReplicationPartition<>(from + i, node, slot);
+            ring.put(slot, part);
+            partitions.add(part);
+        }
+        LOG.debug("Ring [{}]: node [{}] partitions distributed", name, node);
+        return partitions;
     }
 
     private long hash(String key) {
-        return hash(key, 0);
+        return Math.abs(hasher.hash(key, 0));
+    }
+
+    /**
+     * Locate node through the routing cache. Epoch is read before the node is located,
+     * so the node located after concurrent modification is cached with the stale epoch and never hit.
+     */
+    private T locateCached(String key) {
+        RingSnapshot<T> current = lockFreeReads ? snapshot : null;
+        long epoch = current != null ? current.getVersion() : version;
+        T node = routingCache.get(key, epoch);
+        if (node == null) {
+            node = current != null ? current.locateNode(key) : findNode(key, hash(key));
+            if (node != null) {
+                routingCache.put(key, node, epoch);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @return the start time of locate, if its latency is measured, or {@link Long#MIN_VALUE}
+     */
+    private long locateStart() {
+        return metrics != null && metrics.sample() ? System.nanoTime() : Long.MIN_VALUE;
     }
 
-    private long hash(String key, int seed) {
-        return Math.abs(hasher.hash(key, seed));
+    private T located(T node, long start) {
+        if (metrics != null) {
+            metrics.recordLocate(node);
+            if (start != Long.MIN_VALUE) {
+                metrics.recordLocateLatency(System.nanoTime() - start);
+            }
+        }
+        return node;
     }
 
-    private Optional<T> findNode(String key) {
-        return findNodes(key, 1).stream().findAny();
+    private <R> R mutate(Supplier<R> mutation) {
+        if (metrics == null) {
+            return mutation.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return mutation.get();
+        } finally {
+            metrics.recordMutation(System.nanoTime() - start);
+        }
+    }
+
+    private void lockRead() {
+        if (metrics != null && metrics.sample()) {
+            long start = System.nanoTime();
+            mutex.readLock().lock();
+            metrics.recordReadLockWait(System.nanoTime() - start);
+        } else {
+            mutex.readLock().lock();
+        }
+    }
+
+    private void lockWrite() {
+        if (metrics != null) {
+            long start = System.nanoTime();
+            mutex.writeLock().lock();
+            metrics.recordWriteLockWait(System.nanoTime() - start);
+        } else {
+            mutex.writeLock().lock();
+        }
+    }
+
+    private T findNode(Object key, long slot) {
+        T node = null;
+        if (lockFreeReads) {
+            node = snapshot.locateUnsaturated(slot, loads);
+        } else {
+            lockRead();
+            try {
+                if (!ring.isEmpty()) {
+                    Map.Entry<Long, Partition<T>> entry = ring.ceilingEntry(slot);
+                    node = (entry != null ? entry : ring.firstEntry()).getValue().getNode();
+                    if (loads != null) {
+                        node = findUnsaturated(slot, node);
+                    }
+                }
+            } finally {
+                mutex.readLock().unlock();
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Ring [{}]: key [{}] located node [{}]", name, key, node);
+        }
+        return node;
+    }
+
+    /**
+     * Walk clockwise from the slot past saturated nodes.
+     * If all nodes are saturated, the owner of the slot is returned.
+     */
+    private T findUnsaturated(long slot, T owner) {
+        long capacity = loads.capacity(nodes.size());
+        Iterator<Partition<T>> it = new ClockwiseIterator(slot);
+        while (it.hasNext()) {
+            T node = it.next().getNode();
+            if (!loads.isSaturated(node, capacity)) {
+                return node;
+            }
+        }
+        return owner;
     }
 
     private Set<T> findNodes(String key, int count) {
@@ -263,7 +1072,9 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
                 res.addAll(nodes.keySet());
             }
         }
-        LOG.debug("Ring [{}]: key [{}] located nodes [{}]", name, key, res);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Ring [{}]: key [{}] located nodes [{}]", name, key, res);
+        }
         return res;
     }
 
@@ -274,7 +1085,12 @@ public final class HashRing<T extends Node> implements ConsistentHash<T> {
                 .add("nodes= " + nodes.size())
                 .add("name= '" + name + "'")
                 .add("hasher= " + hasher)
+                .add("slotGenerator= " + slotGenerator)
+                .add("replicaTable= " + replicaTable)
+                .add("routingCache= " + (routingCache != null ? routingCache.capacity() : 0))
                 .add("partitionRate= " + partitionRate)
+                .add("lockFreeReads= " + lockFreeReads)
+                .add("loadEpsilon= " + getLoadEpsilon())
                 .toString();
     }
 
@@ -26,17 +26,21 @@ package org.ishugaliy.allgood.consistent.hash;
 
 import org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher;
 import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.metrics.RingMetrics;
 import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.ishugaliy.allgood.consistent.hash.partition.DefaultSlotGenerator;
+import org.ishugaliy.allgood.consistent.hash.partition.SlotGenerator;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.Random;
+import java.util.function.ToDoubleFunction;
 
 /**
- * Implementation of builder pattern for {@link HashRing}
+ * Implementation of builder pattern for {@link HashRing} and {@link ArrayHashRing}
  *
- * @param <T> the type of node to be used in {@link HashRing}
+ * @param <T> the type of node to be used in the ring
  *
  * @author Yuriy Shugaliy
  */
@@ -45,6 +49,13 @@ public final class HashRingBuilder<T extends Node> {
     private String name;
     private Hasher hash;
     private int partitionRate = 1000;
+    private boolean lockFreeReads;
+    private double loadEpsilon;
+    private ToDoubleFunction<T> weigher;
+    private SlotGenerator slotGenerator;
+    private int replicaTable;
+    private int routingCache;
+    private RingMetrics<T> metrics;
     private Collection<T> nodes = Collections.emptyList();
 
     /**
@@ -86,6 +97,123 @@ public final class HashRingBuilder<T extends Node> {
         return this;
     }
 
+    /**
+     * Enable lock-free reads for {@link HashRing}.
+     * Each modification of the ring publishes new immutable {@link RingSnapshot},
+     * so read operations do not take any lock, but modifications take O(V) time and memory,
+     * where V is the amount of partitions in the ring.
+     * Suits read-heavy rings with rare topology changes.
+     *
+     * @param lockFreeReads <tt>true</tt> to enable lock-free reads, default value is <tt>false</tt>
+     * @return builder instance
+     */
+    public HashRingBuilder<T> lockFreeReads(boolean lockFreeReads) {
+        this.lockFreeReads = lockFreeReads;
+        return this;
+    }
+
+    /**
+     * Enable consistent hashing with bounded loads for {@link HashRing}.
+     * Keys assigned by {@link HashRing#acquire(String)} are counted per node, and node is skipped
+     * by locate once its load reaches {@code (1 + epsilon)} times the average load,
+     * so the key goes to the next node clockwise.
+     * Location of the key depends on the current loads, so it has to be remembered until the key is released.
+     *
+     * @param epsilon allowed excess of node load over the average one, e.g. 0.25 for 125% of the average
+     * @return builder instance
+     * @throws IllegalArgumentException if epsilon is not positive finite number
+     */
+    public HashRingBuilder<T> boundedLoads(double epsilon) {
+        if (!(epsilon > 0) || Double.isInfinite(epsilon)) {
+            throw new IllegalArgumentException("Load epsilon has to be positive");
+        }
+        this.loadEpsilon = epsilon;
+        return this;
+    }
+
+    /**
+     * Set function to get weight of the node for {@link HashRing}.
+     * Node gets {@code max(1, round(partitionRate * weight))} partitions, so its share of keys
+     * is proportional to the weight. Weight is taken once, when node is added,
+     * and can be changed later by {@link HashRing#setWeight(Node, double)}.
+     *
+     * @param weigher the function returning positive weight of the node, by default all weights are 1
+     * @return builder instance
+     * @throws NullPointerException if weigher is null
+     */
+    public HashRingBuilder<T> weigher(ToDoubleFunction<T> weigher) {
+        Objects.requireNonNull(weigher, "Weigher can not be null");
+        this.weigher = weigher;
+        return this;
+    }
+
+    /**
+     * Set generator of partition slots.
+     * {@link DefaultSlotGenerator#NODE_KEY_MIX} hashes node key once per node instead of once per partition,
+     * but places partitions differently than the rings built without it.
+     *
+     * @param slotGenerator the slot generator, default value is {@link DefaultSlotGenerator#PARTITION_KEY}
+     * @return builder instance
+     * @throws NullPointerException if slot generator is null
+     */
+    public HashRingBuilder<T> slotGenerator(SlotGenerator slotGenerator) {
+        Objects.requireNonNull(slotGenerator, "Slot generator can not be null");
+        this.slotGenerator = slotGenerator;
+        return this;
+    }
+
+    /**
+     * Precompute distinct successors of each ring slot, so {@code locate(key, count)} of up to
+     * given amount of nodes is a single binary search and a copy, instead of the walk over the ring skipping
+     * partitions of already found nodes. Table takes {@code 4 * maxReplicas} bytes per partition, and only
+     * the entries affected by added or removed partitions are recomputed on each modification.
+     * Requires lock-free reads for {@link HashRing}.
+     *
+     * @param maxReplicas the maximal amount of nodes located by the table, e.g. the replication factor
+     * @return builder instance
+     * @throws IllegalArgumentException if max replicas less than 1
+     */
+    public HashRingBuilder<T> replicaTable(int maxReplicas) {
+        if (maxReplicas < 1) {
+            throw new IllegalArgumentException("Max replicas can not be less than 1");
+        }
+        this.replicaTable = maxReplicas;
+        return this;
+    }
+
+    /**
+     * Cache results of {@code locate(key)} in a bounded concurrent table with CLOCK eviction.
+     * Cached entries carry the ring version, so any ring modification invalidates all of them at once.
+     * Hit rate can be checked by {@code getRoutingCacheStats()}.
+     * Suits workloads with a skewed keys distribution, where a small set of hot keys is located over and over.
+     * Can not be used together with bounded loads, as located nodes depend on the node loads.
+     *
+     * @param capacity the maximal amount of cached keys, rounded up to the power of two
+     * @return builder instance
+     * @throws IllegalArgumentException if capacity less than 1 or greater than 2^30
+     */
+    public HashRingBuilder<T> routingCache(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Routing cache capacity has to be in range [1, 2^30]");
+        }
+        this.routingCache = capacity;
+        return this;
+    }
+
+    /**
+     * Record operations of {@link HashRing} into given metrics: located nodes, latencies of locate calls
+     * and mutations, and waits for the ring lock. Metrics are read by {@link RingMetrics#snapshot()}.
+     *
+     * @param metrics the metrics, e.g. {@code new RingMetrics<>(64)} to measure latency of every 64th locate
+     * @return builder instance
+     * @throws NullPointerException if metrics is null
+     */
+    public HashRingBuilder<T> metrics(RingMetrics<T> metrics) {
+        Objects.requireNonNull(metrics, "Metrics can not be null");
+        this.metrics = metrics;
+        return this;
+    }
+
     /**
      * Initialized hash ring with list of nodes
      *
@@ -103,16 +231,54 @@ public final class HashRingBuilder<T extends Node> {
      * Build hash ring.
      *
      * @return the hash ring instance
+     * @throws IllegalArgumentException if weight of any node is not positive finite number
+     * @throws IllegalStateException    if replica table was set without lock-free reads,
+     *                                  or routing cache was set together with bounded loads
      */
     public HashRing<T> build() {
-        name = name != null ? name : generateName();
-        hash = hash != null ? hash : DefaultHasher.MURMUR_3;
+        if (replicaTable > 0 && !lockFreeReads) {
+            throw new IllegalStateException("Replica table requires lock-free reads");
+        }
+        if (routingCache > 0 && loadEpsilon > 0) {
+            throw new IllegalStateException("Routing cache can not be used with bounded loads");
+        }
+        setDefaults();
+        HashRing<T> ring = new HashRing<>(name, hash, partitionRate, lockFreeReads, loadEpsilon,
+                weigher != null ? weigher : node -> 1, slotGenerator, replicaTable, routingCache, metrics);
+        ring.addAll(nodes);
+        return ring;
+    }
 
-        HashRing<T> ring = new HashRing<>(name, hash, partitionRate);
+    /**
+     * Build hash ring backed by sorted primitive arrays, see {@link ArrayHashRing}.
+     * Reads of the array ring are always lock-free, so {@link #lockFreeReads(boolean)} does not apply to it.
+     *
+     * @return the array hash ring instance
+     * @throws IllegalStateException if node weights, bounded loads or metrics were set,
+     *                               they are supported only by {@link HashRing}
+     */
+    public ArrayHashRing<T> buildArrayRing() {
+        if (weigher != null) {
+            throw new IllegalStateException("Node weights are not supported by array hash ring");
+        }
+        if (loadEpsilon > 0) {
+            throw new IllegalStateException("Bounded loads are not supported by array hash ring");
+        }
+        if (metrics != null) {
+            throw new IllegalStateException("Metrics are not supported by array hash ring");
+        }
+        setDefaults();
+        ArrayHashRing<T> ring = new ArrayHashRing<>(name, hash, partitionRate, slotGenerator, replicaTable, routingCache);
         ring.addAll(nodes);
         return ring;
     }
 
+    private void setDefaults() {
+        name = name != null ? name : generateName();
+        hash = hash != null ? hash : DefaultHasher.MURMUR_3;
+        slotGenerator = slotGenerator != null ? slotGenerator : DefaultSlotGenerator.PARTITION_KEY;
+    }
+
     private String generateName() {
         return "hash_ring_" + new Random().nextInt(10_000);
     }
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Online detector of hot keys, based on count-min sketch with periodic aging.
+ * Each recorded key increments one counter in each of the sketch rows, and the minimal one estimates
+ * the key frequency. Once per window all counters are halved, so the estimate follows recent traffic.
+ * Estimate never underestimates the frequency, and overestimates it at most by {@code window / width} on average.
+ * <p>
+ * Only a random sample of keys is recorded, one of {@code sampling} keys, chosen so that the key reaching
+ * the threshold is still recorded {@link #MIN_SAMPLES} times on average. Rows are derived from the 64-bit hash
+ * of the key content, so keys with colliding {@link String#hashCode()} do not collide in all rows.
+ * Keys are counted towards the window by each thread locally and published in batches,
+ * so the detector has no shared counter updated on every key.
+ *
+ * @author Yuriy Shugaliy
+ */
+final class HotKeyDetector {
+
+    static final int MIN_SAMPLES = 16;
+
+    private static final int DEPTH = 4;
+    private static final int MAX_WIDTH = 1 << 20;
+    private static final int BATCH = 64;
+
+    private final int threshold;
+    private final int window;
+    private final int sampling;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+    private final AtomicLong events = new AtomicLong();
+    private final ThreadLocal<int[]> pending = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * @param threshold the amount of key occurrences within the window to treat key as hot
+     * @param window    the amount of keys between two agings
+     */
+    HotKeyDetector(int threshold, int window) {
+        this.sampling = Integer.highestOneBit(Math.max(1, threshold / MIN_SAMPLES));
+        this.threshold = threshold / sampling;
+        this.window = window;
+        // average overestimate is kept 4 times lower than the threshold
+        long minWidth = Math.min(MAX_WIDTH, Math.max(64, 4L * window / threshold));
+        int width = Integer.highestOneBit((int) minWidth - 1) << 1;
+        this.mask = width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+    }
+
+    /**
+     * Record occurrence of the key, if the key is sampled.
+     *
+     * @param key the key
+     * @return <tt>true</tt> if key was sampled and its estimate reached the threshold
+     */
+    boolean record(String key) {
+        if (sampling > 1 && ThreadLocalRandom.current().nextInt(sampling) != 0) {
+            return false;
+        }
+        long hash = DefaultHasher.XX_HASH.hash(key, 0);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.incrementAndGet(index(hash, row)));
+        }
+        return min >= threshold;
+    }
+
+    /**
+     * @param key the key
+     * @return <tt>true</tt> if key estimate is lower than the half of the threshold
+     */
+    boolean isCold(String key) {
+        long hash = DefaultHasher.XX_HASH.hash(key, 0);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(index(hash, row)));
+        }
+        return min < threshold / 2;
+    }
+
+    /**
+     * Count the key and halve all counters once per window.
+     * Keys are published to the shared counter in batches, so the window is followed with the batch precision.
+     *
+     * @return <tt>true</tt> if counters were halved
+     */
+    boolean tick() {
+        int[] count = pending.get();
+        if (++count[0] < BATCH) {
+            return false;
+        }
+        count[0] = 0;
+        long after = events.addAndGet(BATCH);
+        long windows = after / window - (after - BATCH) / window;
+        if (windows == 0) {
+            return false;
+        }
+        int shift = (int) Math.min(Integer.SIZE - 1, windows);
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> shift);
+        }
+        return true;
+    }
+
+    /**
+     * Index of the row counter, rows are derived from the halves of the hash by double hashing.
+     */
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * (mask + 1) + ((h1 + row * h2) & mask);
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Router spreading load of hot keys over several nodes of the underlying consistent hash.
+ * <p>
+ * Hot key is routed to one of the first {@code spread} distinct nodes of its preference list,
+ * see {@link ConsistentHash#preferenceList(String, int)}, chosen by round-robin or at random on each call.
+ * Other keys are located by the consistent hash as usual, paying only a lookup in the immutable hot keys set.
+ * <p>
+ * Keys become hot when marked by {@link #markHot(String)}, or when detected by the online detector,
+ * see {@link HotKeyRouterBuilder#detector(int, int)}. Detected keys become normal again
+ * once their traffic goes down, marked keys stay hot until {@link #unmarkHot(String)} is called.
+ * Hot keys and spread can be changed at any time, without rebuilding the consistent hash.
+ * <p>
+ * Spread keys are not located consistently anymore, so they suit read-only or replicated data,
+ * e.g. cached values served by any of the key replicas.
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class HotKeyRouter<T extends Node> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HotKeyRouter.class);
+
+    private final Object mutex = new Object();
+    private volatile HotKeySet hotKeys = HotKeySet.EMPTY;
+    private volatile int spread;
+
+    private final ConsistentHash<T> ring;
+    private final Selection selection;
+    private final HotKeyDetector detector;
+    private final int maxDetected;
+
+    /**
+     * Instance can be created only via builder {@link HotKeyRouter#newBuilder(ConsistentHash)}
+     *
+     * @param ring        the consistent hash to locate nodes
+     * @param spread      the amount of nodes the hot key is spread over
+     * @param selection   the choice of the node among the spread ones
+     * @param detector    the detector of hot keys or <tt>null</tt> if keys are only marked explicitly
+     * @param maxDetected the maximal amount of detected hot keys
+     */
+    HotKeyRouter(ConsistentHash<T> ring, int spread, Selection selection, HotKeyDetector detector, int maxDetected) {
+        this.ring = ring;
+        this.spread = spread;
+        this.selection = selection;
+        this.detector = detector;
+        this.maxDetected = maxDetected;
+        LOG.info("Hot key router created: ring [{}], spread [{}], selection [{}], detector [{}]",
+                ring.getName(), spread, selection, detector != null);
+    }
+
+    /**
+     * Create instance of {@link HotKeyRouterBuilder}
+     *
+     * @param ring the consistent hash to locate nodes
+     * @param <T>  the type of node
+     * @return the hot key router builder
+     * @throws NullPointerException if ring is null
+     */
+    public static <T extends Node> HotKeyRouterBuilder<T> newBuilder(ConsistentHash<T> ring) {
+        return new HotKeyRouterBuilder<>(ring);
+    }
+
+    /**
+     * Find node for the key. Hot key gets one of its spread nodes.
+     *
+     * @param key the key
+     * @return the node or {@link Optional#empty()} if no node was found
+     */
+    public Optional<T> locate(String key) {
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    /**
+     * Find node for the key. Hot key gets one of its spread nodes.
+     *
+     * @param key the key
+     * @return the node or <tt>null</tt> if no node was found
+     */
+    public T locateNode(String key) {
+        if (key == null) {
+            return null;
+        }
+        if (detector != null) {
+            observe(key);
+        }
+        HotKeySet current = hotKeys;
+        int idx = current.indexOf(key);
+        if (idx < 0) {
+            return ring.locateNode(key);
+        }
+        List<T> nodes = ring.preferenceList(key, spread);
+        if (nodes.isEmpty()) {
+            return null;
+        }
+        int choice = selection == Selection.ROUND_ROBIN
+                ? current.next(idx) % nodes.size()
+                : ThreadLocalRandom.current().nextInt(nodes.size());
+        return nodes.get(choice);
+    }
+
+    /**
+     * Mark key as hot, until it is unmarked
+     *
+     * @param key the key
+     * @throws NullPointerException if key is null
+     */
+    public void markHot(String key) {
+        Objects.requireNonNull(key, "Key can not be null");
+        synchronized (mutex) {
+            hotKeys = hotKeys.with(key, false);
+        }
+        LOG.info("Hot key [{}] marked", key);
+    }
+
+    /**
+     * Make hot key normal again, either marked or detected one
+     *
+     * @param key the key
+     * @return <tt>true</tt> if key was hot
+     */
+    public boolean unmarkHot(String key) {
+        if (key == null) {
+            return false;
+        }
+        synchronized (mutex) {
+            if (hotKeys.indexOf(key) < 0) {
+                return false;
+            }
+            hotKeys = hotKeys.without(Collections.singleton(key));
+        }
+        LOG.info("Hot key [{}] unmarked", key);
+        return true;
+    }
+
+    /**
+     * Check if key is hot, either marked or detected one
+     *
+     * @param key the key
+     * @return <tt>true</tt> if key is hot
+     */
+    public boolean isHot(String key) {
+        return key != null && hotKeys.indexOf(key) >= 0;
+    }
+
+    /**
+     * Return all hot keys, either marked or detected ones
+     *
+     * @return the hot keys set
+     */
+    public Set<String> getHotKeys() {
+        return hotKeys.keys();
+    }
+
+    /**
+     * Change amount of nodes the hot keys are spread over
+     *
+     * @param spread the amount of nodes, minimum is 2
+     * @throws IllegalArgumentException if spread less than 2
+     */
+    public void setSpread(int spread) {
+        HotKeyRouterBuilder.checkSpread(spread);
+        this.spread = spread;
+        LOG.info("Hot keys spread changed to [{}]", spread);
+    }
+
+    public int getSpread() {
+        return spread;
+    }
+
+    public Selection getSelection() {
+        return selection;
+    }
+
+    public ConsistentHash<T> getRing() {
+        return ring;
+    }
+
+    private void observe(String key) {
+        HotKeySet current = hotKeys;
+        if (detector.record(key) && current.indexOf(key) < 0 && current.detectedSize() < maxDetected) {
+            synchronized (mutex) {
+                if (hotKeys.indexOf(key) < 0 && hotKeys.detectedSize() < maxDetected) {
+                    hotKeys = hotKeys.with(key, true);
+                    LOG.info("Hot key [{}] detected", key);
+                }
+            }
+        }
+        if (detector.tick()) {
+            cool();
+        }
+    }
+
+    /**
+     * Make detected keys, which traffic went down, normal again.
+     */
+    private void cool() {
+        synchronized (mutex) {
+            List<String> cold = new ArrayList<>();
+            for (String key : hotKeys.detectedKeys()) {
+                if (detector.isCold(key)) cold.add(key);
+            }
+            if (!cold.isEmpty()) {
+                hotKeys = hotKeys.without(cold);
+                LOG.info("Hot keys {} cooled down", cold);
+            }
+        }
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", HotKeyRouter.class.getSimpleName() + "[", "]")
+                .add("ring= " + ring.getName())
+                .add("spread= " + spread)
+                .add("selection= " + selection)
+                .add("hotKeys= " + hotKeys.size())
+                .toString();
+    }
+
+    /**
+     * Choice of the node among the nodes, hot key is spread over.
+     */
+    public enum Selection {
+        /**
+         * Nodes are taken in turn, separately for each hot key
+         */
+        ROUND_ROBIN,
+        /**
+         * Node is taken at random
+         */
+        RANDOM
+    }
+}
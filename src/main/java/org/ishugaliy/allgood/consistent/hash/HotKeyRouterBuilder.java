@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+
+import java.util.Objects;
+
+/**
+ * Implementation of builder pattern for {@link HotKeyRouter}
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class HotKeyRouterBuilder<T extends Node> {
+
+    private final ConsistentHash<T> ring;
+    private int spread = 2;
+    private HotKeyRouter.Selection selection = HotKeyRouter.Selection.ROUND_ROBIN;
+    private int threshold;
+    private int window;
+    private int maxDetected = 1024;
+
+    HotKeyRouterBuilder(ConsistentHash<T> ring) {
+        this.ring = Objects.requireNonNull(ring, "Ring can not be null");
+    }
+
+    /**
+     * Set amount of distinct nodes, hot key is spread over
+     *
+     * @param spread the amount of nodes. Default value is 2, minimum is 2
+     * @return builder instance
+     * @throws IllegalArgumentException if spread less than 2
+     */
+    public HotKeyRouterBuilder<T> spread(int spread) {
+        checkSpread(spread);
+        this.spread = spread;
+        return this;
+    }
+
+    /**
+     * Set choice of the node among the nodes, hot key is spread over
+     *
+     * @param selection the selection, default value is {@link HotKeyRouter.Selection#ROUND_ROBIN}
+     * @return builder instance
+     * @throws NullPointerException if selection is null
+     */
+    public HotKeyRouterBuilder<T> selection(HotKeyRouter.Selection selection) {
+        Objects.requireNonNull(selection, "Selection can not be null");
+        this.selection = selection;
+        return this;
+    }
+
+    /**
+     * Enable online detection of hot keys. Located keys are counted in a count-min sketch,
+     * and key becomes hot once it is located {@code threshold} times within the window.
+     * Counts are halved after each window, and detected key becomes normal again once its count
+     * goes below the half of the threshold. For thresholds of 32 and more only a random sample
+     * of located keys is counted, so each key reaching the threshold is still counted 16 times on average.
+     *
+     * @param threshold the amount of key occurrences within the window to treat key as hot
+     * @param window    the amount of located keys between two agings of counts
+     * @return builder instance
+     * @throws IllegalArgumentException if threshold less than 2 or window less than threshold
+     */
+    public HotKeyRouterBuilder<T> detector(int threshold, int window) {
+        if (threshold < 2 || window < threshold) {
+            throw new IllegalArgumentException("Threshold can not be less than 2 or greater than window");
+        }
+        this.threshold = threshold;
+        this.window = window;
+        return this;
+    }
+
+    /**
+     * Set maximal amount of detected hot keys, keys marked explicitly are not limited
+     *
+     * @param maxDetected the maximal amount of detected keys. Default value is 1024
+     * @return builder instance
+     * @throws IllegalArgumentException if max detected keys less than 1
+     */
+    public HotKeyRouterBuilder<T> maxDetected(int maxDetected) {
+        if (maxDetected < 1) {
+            throw new IllegalArgumentException("Max detected keys can not be less than 1");
+        }
+        this.maxDetected = maxDetected;
+        return this;
+    }
+
+    /**
+     * Build hot key router.
+     *
+     * @return the hot key router instance
+     */
+    public HotKeyRouter<T> build() {
+        HotKeyDetector detector = threshold > 0 ? new HotKeyDetector(threshold, window) : null;
+        return new HotKeyRouter<>(ring, spread, selection, detector, maxDetected);
+    }
+
+    static void checkSpread(int spread) {
+        if (spread < 2) {
+            throw new IllegalArgumentException("Spread can not be less than 2");
+        }
+    }
+}
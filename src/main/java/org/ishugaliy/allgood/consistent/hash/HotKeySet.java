@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Immutable open addressing set of hot keys, replaced as a whole on each change, so it is read without any locking.
+ * Lookup of the key, which is not hot, is a {@link String#hashCode()} and a probe of a few array cells.
+ * Each key keeps its own round-robin counter and the flag, whether it was marked explicitly or detected.
+ *
+ * @author Yuriy Shugaliy
+ */
+final class HotKeySet {
+
+    static final HotKeySet EMPTY = new HotKeySet(Collections.emptyMap());
+
+    private final String[] keys;
+    private final boolean[] detected;
+    private final AtomicIntegerArray counters;
+    private final int mask;
+    private final int size;
+    private final int detectedSize;
+
+    /**
+     * @param keys the keys mapped to the flag, whether key was detected
+     */
+    private HotKeySet(Map<String, Boolean> keys) {
+        int capacity = Integer.highestOneBit(Math.max(2, keys.size() * 2 - 1)) << 1;
+        this.keys = new String[capacity];
+        this.detected = new boolean[capacity];
+        this.counters = new AtomicIntegerArray(capacity);
+        this.mask = capacity - 1;
+        this.size = keys.size();
+        this.detectedSize = (int) keys.values().stream().filter(isDetected -> isDetected).count();
+        keys.forEach((key, isDetected) -> {
+            int idx = probe(key);
+            this.keys[idx] = key;
+            this.detected[idx] = isDetected;
+        });
+    }
+
+    /**
+     * @param key the key
+     * @return the index of the key or -1 if key is not hot
+     */
+    int indexOf(String key) {
+        if (size == 0) {
+            return -1;
+        }
+        int idx = probe(key);
+        return keys[idx] != null ? idx : -1;
+    }
+
+    /**
+     * @param idx the index of the key
+     * @return the next value of the key round-robin counter
+     */
+    int next(int idx) {
+        return counters.getAndIncrement(idx) & Integer.MAX_VALUE;
+    }
+
+    boolean isDetected(int idx) {
+        return detected[idx];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int detectedSize() {
+        return detectedSize;
+    }
+
+    Set<String> keys() {
+        Set<String> res = new HashSet<>();
+        for (String key : keys) {
+            if (key != null) res.add(key);
+        }
+        return res;
+    }
+
+    /**
+     * Create new set with the key added. Explicitly marked key stays explicit, even if it is detected later.
+     */
+    HotKeySet with(String key, boolean isDetected) {
+        Map<String, Boolean> copy = toMap();
+        copy.merge(key, isDetected, Boolean::logicalAnd);
+        return new HotKeySet(copy);
+    }
+
+    /**
+     * Create new set without the keys.
+     */
+    HotKeySet without(Collection<String> removed) {
+        Map<String, Boolean> copy = toMap();
+        copy.keySet().removeAll(removed);
+        return copy.isEmpty() ? EMPTY : new HotKeySet(copy);
+    }
+
+    /**
+     * Return detected keys
+     */
+    List<String> detectedKeys() {
+        List<String> res = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && detected[i]) res.add(keys[i]);
+        }
+        return res;
+    }
+
+    private Map<String, Boolean> toMap() {
+        Map<String, Boolean> res = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) res.put(keys[i], detected[i]);
+        }
+        return res;
+    }
+
+    private int probe(String key) {
+        int hash = key.hashCode();
+        int idx = (hash ^ hash >>> 16) & mask;
+        while (keys[idx] != null && (keys[idx].hashCode() != hash || !keys[idx].equals(key))) {
+            idx = (idx + 1) & mask;
+        }
+        return idx;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of Jump Consistent Hash.
+ * Nodes are numbered buckets, key is mapped to the bucket in O(ln n) time without any memory
+ * for virtual nodes, and keys are distributed between buckets evenly.
+ * <p>
+ * Constraints:
+ * <ul>
+ *     <li>added node always becomes the last bucket, only ~1/n of keys move to it;</li>
+ *     <li>removing of the last added node moves only its keys;</li>
+ *     <li>removing of any other node moves the last node into the freed bucket,
+ *     so keys of both nodes move, that is about twice more than for the last node.</li>
+ * </ul>
+ * So the hash fits best for shards that grow or shrink at the tail.
+ * <p>
+ * Buckets are kept in an immutable table replaced on each modification, so reads are lock-free.
+ *
+ * @see <a href="https://arxiv.org/abs/1406.2294">A Fast, Minimal Memory, Consistent Hash Algorithm</a>
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class JumpHashRing<T extends Node> implements ConsistentHash<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JumpHashRing.class);
+
+    private final Lock mutex = new ReentrantLock();
+    private volatile Buckets<T> buckets = new Buckets<>(new Object[0], Collections.emptyMap());
+
+    private final String name;
+    private final Hasher hasher;
+
+    /**
+     * Instance can be created only via builder {@link JumpHashRing#newBuilder()}
+     *
+     * @param name the name of the hash
+     * @param hasher the hash function
+     */
+    JumpHashRing(String name, Hasher hasher) {
+        this.name = name;
+        this.hasher = hasher;
+        LOG.info("Jump hash [{}] created: hasher [{}]", name, hasher);
+    }
+
+    /**
+     * Create instance of {@link JumpHashRingBuilder}
+     *
+     * @param <T> the type of node
+     * @return the jump hash builder
+     */
+    public static <T extends Node> JumpHashRingBuilder<T> newBuilder() {
+        return new JumpHashRingBuilder<>();
+    }
+
+    @Override
+    public boolean add(T node) {
+        return addAll(Collections.singletonList(node));
+    }
+
+    @Override
+    public boolean addAll(Collection<T> nodes) {
+        if (nodes == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            Buckets<T> current = buckets;
+            List<Object> table = new ArrayList<>(Arrays.asList(current.nodes));
+            Map<T, Integer> positions = new HashMap<>(current.positions);
+            for (T node : nodes) {
+                if (node != null && !positions.containsKey(node)) {
+                    positions.put(node, table.size());
+                    table.add(node);
+                    LOG.info("Jump hash [{}]: node [{}] added to bucket [{}]", name, node, table.size() - 1);
+                }
+            }
+            if (table.size() == current.nodes.length) {
+                return false;
+            }
+            buckets = new Buckets<>(table.toArray(), positions);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return node != null && buckets.positions.containsKey(node);
+    }
+
+    @Override
+    public boolean remove(T node) {
+        if (node == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            Buckets<T> current = buckets;
+            Integer bucket = current.positions.get(node);
+            if (bucket == null) {
+                return false;
+            }
+            int last = current.nodes.length - 1;
+            Object[] table = Arrays.copyOf(current.nodes, last);
+            Map<T, Integer> positions = new HashMap<>(current.positions);
+            positions.remove(node);
+            if (bucket != last) {
+                T moved = current.node(last);
+                table[bucket] = moved;
+                positions.put(moved, bucket);
+                LOG.info("Jump hash [{}]: node [{}] moved to bucket [{}]", name, moved, bucket);
+            }
+            buckets = new Buckets<>(table, positions);
+            LOG.info("Jump hash [{}]: node [{}] removed", name, node);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return new HashSet<>(buckets.positions.keySet());
+    }
+
+    @Override
+    public Optional<T> locate(String key) {
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<T> locate(String key, int count) {
+        Buckets<T> current = buckets;
+        Set<T> res = new HashSet<>();
+        if (key != null && count > 0) {
+            if (count < current.nodes.length) {
+                T[] located = (T[]) new Node[count];
+                Replicas.locate(current, hasher.hash(key, 0), located, count);
+                res.addAll(Arrays.asList(located));
+            } else {
+                res.addAll(current.positions.keySet());
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public T locateNode(String key) {
+        return key != null ? nodeAt(hasher.hash(key, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(CharSequence key) {
+        return key != null ? nodeAt(hasher.hash(key, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(byte[] key, int offset, int length) {
+        return key != null ? nodeAt(hasher.hash(key, offset, length, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(ByteBuffer key, int offset, int length) {
+        return key != null ? nodeAt(hasher.hash(key, offset, length, 0)) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first node is the primary one, followed by replicas.
+     */
+    @Override
+    public int locate(String key, T[] out) {
+        Buckets<T> current = buckets;
+        int count = Math.min(out.length, current.nodes.length);
+        if (key == null || count == 0) {
+            return 0;
+        }
+        Replicas.locate(current, hasher.hash(key, 0), out, count);
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first node is the primary one, followed by replicas.
+     */
+    @Override
+    public int locate(String key, int count, List<T> out) {
+        Buckets<T> current = buckets;
+        count = Math.min(count, current.nodes.length);
+        if (key == null || count <= 0) {
+            return 0;
+        }
+        Replicas.locate(current, hasher.hash(key, 0), count, out);
+        return count;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return buckets.nodes.length;
+    }
+
+    public Hasher getHasher() {
+        return hasher;
+    }
+
+    private T nodeAt(long hash) {
+        Buckets<T> current = buckets;
+        return current.nodes.length > 0 ? current.node(jump(hash, current.nodes.length)) : null;
+    }
+
+    /**
+     * Jump Consistent Hash by John Lamping and Eric Veach.
+     *
+     * @param key     the key hash
+     * @param buckets the amount of buckets
+     * @return the bucket in range [0, buckets)
+     */
+    static int jump(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", JumpHashRing.class.getSimpleName() + "[", "]")
+                .add("nodes= " + buckets.nodes.length)
+                .add("name= '" + name + "'")
+                .add("hasher= " + hasher)
+                .toString();
+    }
+
+    /**
+     * Immutable table of buckets: bucket index to node and node to bucket index mappings.
+     */
+    private static final class Buckets<T> implements Replicas.Lookup<T> {
+        private final Object[] nodes;
+        private final Map<T, Integer> positions;
+
+        private Buckets(Object[] nodes, Map<T, Integer> positions) {
+            this.nodes = nodes;
+            this.positions = positions;
+        }
+
+        @Override
+        public int buckets() {
+            return nodes.length;
+        }
+
+        @Override
+        public int bucket(long hash) {
+            return jump(hash, nodes.length);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T node(int bucket) {
+            return (T) nodes[bucket];
+        }
+    }
+}
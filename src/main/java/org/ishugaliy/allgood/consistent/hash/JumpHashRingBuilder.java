@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Implementation of builder pattern for {@link JumpHashRing}
+ *
+ * @param <T> the type of node to be used in {@link JumpHashRing}
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class JumpHashRingBuilder<T extends Node> {
+
+    private String name;
+    private Hasher hash;
+    private Collection<T> nodes = Collections.emptyList();
+
+    /**
+     * Set name of the jump hash
+     *
+     * @param name the name of the hash. If no name was set, default name will be generated
+     * @return builder instance
+     * @throws NullPointerException if name is null
+     */
+    public JumpHashRingBuilder<T> name(String name) {
+        Objects.requireNonNull(name, "Name can not be null");
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Set hash function implementation, used to turn keys into 64-bit values.
+     *
+     * @param hash the hash function, default value is {@link DefaultHasher#MURMUR_3}
+     * @return builder instance
+     */
+    public JumpHashRingBuilder<T> hasher(Hasher hash) {
+        this.hash = hash;
+        return this;
+    }
+
+    /**
+     * Initialize jump hash with list of nodes.
+     * Nodes become buckets in the iteration order of the collection.
+     *
+     * @param nodes the nodes list to be added
+     * @return builder instance
+     * @throws NullPointerException if nodes list is null
+     */
+    public JumpHashRingBuilder<T> nodes(Collection<T> nodes) {
+        Objects.requireNonNull(nodes, "Nodes list can not be null");
+        this.nodes = nodes;
+        return this;
+    }
+
+    /**
+     * Build jump hash.
+     *
+     * @return the jump hash instance
+     */
+    public JumpHashRing<T> build() {
+        name = name != null ? name : generateName();
+        hash = hash != null ? hash : DefaultHasher.MURMUR_3;
+
+        JumpHashRing<T> ring = new JumpHashRing<>(name, hash);
+        ring.addAll(nodes);
+        return ring;
+    }
+
+    private String generateName() {
+        return "jump_hash_" + new Random().nextInt(10_000);
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hashes;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of Maglev consistent hash.
+ * Each node fills the lookup table of prime size following its own permutation of table entries,
+ * so every node owns almost the same amount of entries, and key is located by a single array index.
+ * <p>
+ * Permutation of the node (offset and skip) is calculated once, when the node is added,
+ * and reused by all following table rebuilds.
+ * The table itself is repopulated from scratch on each modification, nodes claim entries in turns,
+ * so the fill is sequential. This keeps the table independent of the order of node additions,
+ * and takes a few milliseconds for the default table of 65537 entries.
+ * Lookup table is immutable and replaced on each modification, so reads are lock-free.
+ *
+ * @see <a href="https://research.google/pubs/pub44824/">Maglev: A Fast and Reliable Software Network Load Balancer</a>
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class MaglevHashRing<T extends Node> implements ConsistentHash<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MaglevHashRing.class);
+
+    // amount of added nodes, starting from which permutations are calculated in parallel
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private final Lock mutex = new ReentrantLock();
+    private final Map<T, Permutation> permutations = new HashMap<>();
+    private volatile Table<T> table;
+
+    private final String name;
+    private final Hasher hasher;
+    private final int tableSize;
+
+    /**
+     * Instance can be created only via builder {@link MaglevHashRing#newBuilder()}
+     *
+     * @param name the name of the hash
+     * @param hasher the hash function
+     * @param tableSize the prime size of the lookup table
+     */
+    MaglevHashRing(String name, Hasher hasher, int tableSize) {
+        this.name = name;
+        this.hasher = hasher;
+        this.tableSize = tableSize;
+        this.table = new Table<>(new Object[0], new int[0], Collections.emptyMap());
+        LOG.info("Maglev hash [{}] created: hasher [{}], tableSize [{}]", name, hasher, tableSize);
+    }
+
+    /**
+     * Create instance of {@link MaglevHashRingBuilder}
+     *
+     * @param <T> the type of node
+     * @return the maglev hash builder
+     */
+    public static <T extends Node> MaglevHashRingBuilder<T> newBuilder() {
+        return new MaglevHashRingBuilder<>();
+    }
+
+    @Override
+    public boolean add(T node) {
+        return addAll(Collections.singletonList(node));
+    }
+
+    @Override
+    public boolean addAll(Collection<T> nodes) {
+        if (nodes == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            Set<T> added = new LinkedHashSet<>();
+            for (T node : nodes) {
+                if (node == null || permutations.containsKey(node) || added.contains(node)) {
+                    continue;
+                }
+                if (permutations.size() + added.size() >= tableSize) {
+                    LOG.warn("Maglev hash [{}]: node [{}] was not added, table size [{}] exceeded",
+                            name, node, tableSize);
+                    continue;
+                }
+                added.add(node);
+            }
+            if (added.isEmpty()) {
+                return false;
+            }
+            (added.size() >= PARALLEL_THRESHOLD ? added.parallelStream() : added.stream())
+                    .collect(Collectors.toMap(node -> node, this::permutation))
+                    .forEach(permutations::put);
+            rebuild();
+            added.forEach(node -> LOG.info("Maglev hash [{}]: node [{}] added", name, node));
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return node != null && table.positions.containsKey(node);
+    }
+
+    @Override
+    public boolean remove(T node) {
+        if (node == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            if (permutations.remove(node) == null) {
+                return false;
+            }
+            rebuild();
+            LOG.info("Maglev hash [{}]: node [{}] removed", name, node);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return new HashSet<>(table.positions.keySet());
+    }
+
+    @Override
+    public Optional<T> locate(String key) {
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<T> locate(String key, int count) {
+        Table<T> current = table;
+        Set<T> res = new HashSet<>();
+        if (key != null && count > 0) {
+            if (count < current.nodes.length) {
+                T[] located = (T[]) new Node[count];
+                locate(current, hasher.hash(key, 0), located, count);
+                res.addAll(Arrays.asList(located));
+            } else {
+                res.addAll(current.positions.keySet());
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public T locateNode(String key) {
+        return key != null ? nodeAt(hasher.hash(key, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(CharSequence key) {
+        return key != null ? nodeAt(hasher.hash(key, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(byte[] key, int offset, int length) {
+        return key != null ? nodeAt(hasher.hash(key, offset, length, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(ByteBuffer key, int offset, int length) {
+        return key != null ? nodeAt(hasher.hash(key, offset, length, 0)) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first node is the owner of the key table entry,
+     * followed by owners of the next table entries.
+     */
+    @Override
+    public int locate(String key, T[] out) {
+        Table<T> current = table;
+        int count = Math.min(out.length, current.nodes.length);
+        if (key == null || count == 0) {
+            return 0;
+        }
+        locate(current, hasher.hash(key, 0), out, count);
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first node is the owner of the key table entry,
+     * followed by owners of the next table entries.
+     */
+    @Override
+    public int locate(String key, int count, List<T> out) {
+        Table<T> current = table;
+        count = Math.min(count, current.nodes.length);
+        if (key == null || count <= 0) {
+            return 0;
+        }
+        int start = out.size();
+        int idx = index(hasher.hash(key, 0));
+        while (out.size() - start < count) {
+            T node = current.node(current.entries[idx]);
+            if (!Replicas.isTaken(node, out, start)) {
+                out.add(node);
+            }
+            idx = idx + 1 < tableSize ? idx + 1 : 0;
+        }
+        return count;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return table.nodes.length;
+    }
+
+    public Hasher getHasher() {
+        return hasher;
+    }
+
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    private Permutation permutation(T node) {
+        String key = node.getKey();
+        int offset = Hashes.reduce(hasher.hash(key, 0), tableSize);
+        int skip = Hashes.reduce(hasher.hash(key, 1), tableSize - 1) + 1;
+        return new Permutation(key, offset, skip);
+    }
+
+    /**
+     * Populate new lookup table: nodes take turns claiming the next free entry of their permutations,
+     * until all entries are taken. Nodes are ordered by their keys, so the table does not depend
+     * on the order of node additions.
+     */
+    private void rebuild() {
+        List<Map.Entry<T, Permutation>> members = new ArrayList<>(permutations.entrySet());
+        members.sort(Comparator.comparing((Map.Entry<T, Permutation> e) -> e.getValue().key)
+                .thenComparingInt(e -> e.getValue().offset)
+                .thenComparingInt(e -> e.getValue().skip));
+
+        int size = members.size();
+        Object[] nodes = new Object[size];
+        Map<T, Integer> positions = new HashMap<>();
+        int[] cursors = new int[size];
+        int[] skips = new int[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = members.get(i).getKey();
+            positions.put(members.get(i).getKey(), i);
+            cursors[i] = members.get(i).getValue().offset;
+            skips[i] = members.get(i).getValue().skip;
+        }
+
+        int[] entries = new int[size > 0 ? tableSize : 0];
+        Arrays.fill(entries, -1);
+        int filled = 0;
+        while (filled < entries.length) {
+            for (int i = 0; i < size && filled < entries.length; i++) {
+                int entry = cursors[i];
+                while (entries[entry] >= 0) {
+                    entry = next(entry, skips[i]);
+                }
+                entries[entry] = i;
+                cursors[i] = next(entry, skips[i]);
+                filled++;
+            }
+        }
+        table = new Table<>(nodes, entries, positions);
+    }
+
+    private int next(int entry, int skip) {
+        int next = entry + skip;
+        return next >= tableSize ? next - tableSize : next;
+    }
+
+    private T nodeAt(long hash) {
+        Table<T> current = table;
+        return current.nodes.length > 0 ? current.node(current.entries[index(hash)]) : null;
+    }
+
+    private void locate(Table<T> current, long hash, T[] out, int count) {
+        int found = 0;
+        int idx = index(hash);
+        while (found < count) {
+            T node = current.node(current.entries[idx]);
+            if (!Replicas.isTaken(node, out, found)) {
+                out[found++] = node;
+            }
+            idx = idx + 1 < tableSize ? idx + 1 : 0;
+        }
+    }
+
+    private int index(long hash) {
+        return Hashes.reduce(hash, tableSize);
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", MaglevHashRing.class.getSimpleName() + "[", "]")
+                .add("nodes= " + table.nodes.length)
+                .add("name= '" + name + "'")
+                .add("hasher= " + hasher)
+                .add("tableSize= " + tableSize)
+                .toString();
+    }
+
+    /**
+     * Permutation of lookup table entries, preferred by the node
+     */
+    private static final class Permutation {
+        private final String key;
+        private final int offset;
+        private final int skip;
+
+        private Permutation(String key, int offset, int skip) {
+            this.key = key;
+            this.offset = offset;
+            this.skip = skip;
+        }
+    }
+
+    /**
+     * Immutable lookup table: entry to node ordinal, ordinal to node and node to ordinal mappings.
+     */
+    private static final class Table<T> {
+        private final Object[] nodes;
+        private final int[] entries;
+        private final Map<T, Integer> positions;
+
+        private Table(Object[] nodes, int[] entries, Map<T, Integer> positions) {
+            this.nodes = nodes;
+            this.entries = entries;
+            this.positions = positions;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T node(int ordinal) {
+            return (T) nodes[ordinal];
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Implementation of builder pattern for {@link MaglevHashRing}
+ *
+ * @param <T> the type of node to be used in {@link MaglevHashRing}
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class MaglevHashRingBuilder<T extends Node> {
+
+    private static final int DEFAULT_TABLE_SIZE = 65_537;
+
+    private String name;
+    private Hasher hash;
+    private int tableSize = DEFAULT_TABLE_SIZE;
+    private Collection<T> nodes = Collections.emptyList();
+
+    /**
+     * Set name of the maglev hash
+     *
+     * @param name the name of the hash. If no name was set, default name will be generated
+     * @return builder instance
+     * @throws NullPointerException if name is null
+     */
+    public MaglevHashRingBuilder<T> name(String name) {
+        Objects.requireNonNull(name, "Name can not be null");
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Set hash function implementation, used to calculate node permutations and to locate keys.
+     *
+     * @param hash the hash function, default value is {@link DefaultHasher#MURMUR_3}
+     * @return builder instance
+     */
+    public MaglevHashRingBuilder<T> hasher(Hasher hash) {
+        this.hash = hash;
+        return this;
+    }
+
+    /**
+     * Set size of the lookup table. The size has to be prime, the amount of nodes can not exceed it.
+     * The bigger the table, the more even the load, but the slower modifications.
+     * Size about 100 times bigger than the amount of nodes gives deviation of entries per node within 1%.
+     *
+     * @param tableSize the prime size of the lookup table, default value is 65537
+     * @return builder instance
+     * @throws IllegalArgumentException if table size is not prime
+     */
+    public MaglevHashRingBuilder<T> tableSize(int tableSize) {
+        if (!isPrime(tableSize)) {
+            throw new IllegalArgumentException("Table size has to be prime");
+        }
+        this.tableSize = tableSize;
+        return this;
+    }
+
+    /**
+     * Initialize maglev hash with list of nodes
+     *
+     * @param nodes the nodes list to be added
+     * @return builder instance
+     * @throws NullPointerException if nodes list is null
+     */
+    public MaglevHashRingBuilder<T> nodes(Collection<T> nodes) {
+        Objects.requireNonNull(nodes, "Nodes list can not be null");
+        this.nodes = nodes;
+        return this;
+    }
+
+    /**
+     * Build maglev hash.
+     *
+     * @return the maglev hash instance
+     */
+    public MaglevHashRing<T> build() {
+        name = name != null ? name : generateName();
+        hash = hash != null ? hash : DefaultHasher.MURMUR_3;
+
+        MaglevHashRing<T> ring = new MaglevHashRing<>(name, hash, tableSize);
+        ring.addAll(nodes);
+        return ring;
+    }
+
+    private String generateName() {
+        return "maglev_hash_" + new Random().nextInt(10_000);
+    }
+
+    private static boolean isPrime(int n) {
+        if (n < 3 || n % 2 == 0) {
+            return n == 2;
+        }
+        for (int i = 3; (long) i * i <= n; i += 2) {
+            if (n % i == 0) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+
+import java.util.*;
+
+/**
+ * Plan of data transfers between nodes, required to move from one ring topology to another,
+ * built by {@link MigrationPlanner}.
+ * <p>
+ * Each transfer holds the ranges of the ring, which data has to be copied from the source node
+ * to the target node. Transfers can be split into chunks of bounded size and scheduled into rounds,
+ * so that many streams run concurrently, but each node takes part in a limited amount of them.
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class MigrationPlan<T extends Node> {
+
+    private static final double RING_SIZE = 0x1.0p63;
+
+    private final int replicationFactor;
+    private final List<Transfer<T>> transfers;
+
+    MigrationPlan(int replicationFactor, List<Transfer<T>> transfers) {
+        this.replicationFactor = replicationFactor;
+        this.transfers = Collections.unmodifiableList(transfers);
+    }
+
+    public int getReplicationFactor() {
+        return replicationFactor;
+    }
+
+    /**
+     * @return the transfers, one per source and target pair
+     */
+    public List<Transfer<T>> getTransfers() {
+        return transfers;
+    }
+
+    public boolean isEmpty() {
+        return transfers.isEmpty();
+    }
+
+    /**
+     * Return total fraction of the ring to be transferred, summed over all transfers.
+     * With replication factor above 1 it can exceed 1.
+     *
+     * @return the transferred fraction
+     */
+    public double getFraction() {
+        return transfers.stream().mapToDouble(Transfer::getFraction).sum();
+    }
+
+    /**
+     * Split transfers into chunks, each covering at most the given fraction of the ring.
+     *
+     * @param maxFraction the maximum fraction of the ring per chunk
+     * @return the chunks of all transfers
+     * @throws IllegalArgumentException if fraction is not in range (0, 1]
+     */
+    public List<Transfer<T>> chunks(double maxFraction) {
+        if (!(maxFraction > 0) || maxFraction > 1) {
+            throw new IllegalArgumentException("Chunk fraction has to be in range (0, 1]");
+        }
+        long limit = Math.max(1, (long) (maxFraction * RING_SIZE));
+        List<Transfer<T>> chunks = new ArrayList<>();
+        for (Transfer<T> transfer : transfers) {
+            TokenRanges ranges = transfer.getRanges();
+            TokenRanges.Builder chunk = new TokenRanges.Builder();
+            long budget = limit;
+            for (long[] arc : unwrap(ranges)) {
+                long start = arc[0];
+                long end = arc[1];
+                while (end - start > budget) {
+                    long split = start + budget;
+                    chunk.add(start, split);
+                    chunks.add(new Transfer<>(transfer.source, transfer.target, chunk.build()));
+                    chunk = new TokenRanges.Builder();
+                    budget = limit;
+                    start = split;
+                }
+                if (end > start) {
+                    chunk.add(start, end);
+                    budget -= end - start;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunks.add(new Transfer<>(transfer.source, transfer.target, chunk.build()));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Split transfers into chunks and group them into rounds, that can be run one after another.
+     * Each node takes part in at most {@code streamsPerNode} chunks of a round, as a source or as a target.
+     * Chunks are assigned from the biggest one to the first round with free streams of both nodes,
+     * so rounds are balanced.
+     *
+     * @param maxFraction    the maximum fraction of the ring per chunk
+     * @param streamsPerNode the maximum amount of concurrent transfers of a node
+     * @return the rounds of chunks
+     * @throws IllegalArgumentException if fraction is not in range (0, 1] or streams per node are less than 1
+     */
+    public List<List<Transfer<T>>> schedule(double maxFraction, int streamsPerNode) {
+        if (streamsPerNode < 1) {
+            throw new IllegalArgumentException("Streams per node can not be less than 1");
+        }
+        List<Transfer<T>> chunks = chunks(maxFraction);
+        chunks.sort(Comparator.comparingDouble(Transfer<T>::getFraction).reversed());
+        List<List<Transfer<T>>> rounds = new ArrayList<>();
+        List<Map<T, Integer>> streams = new ArrayList<>();
+        for (Transfer<T> chunk : chunks) {
+            int round = 0;
+            while (round < rounds.size()
+                    && (streams.get(round).getOrDefault(chunk.source, 0) >= streamsPerNode
+                    || streams.get(round).getOrDefault(chunk.target, 0) >= streamsPerNode)) {
+                round++;
+            }
+            if (round == rounds.size()) {
+                rounds.add(new ArrayList<>());
+                streams.add(new HashMap<>());
+            }
+            rounds.get(round).add(chunk);
+            streams.get(round).merge(chunk.source, 1, Integer::sum);
+            streams.get(round).merge(chunk.target, 1, Integer::sum);
+        }
+        return rounds;
+    }
+
+    /**
+     * Return arcs as {@code [start, end]} pairs, which do not wrap around the end of the ring,
+     * arc wrapping around the end is split into its head {@code (-1, end]} and tail {@code (start, MAX]}.
+     */
+    private static List<long[]> unwrap(TokenRanges ranges) {
+        List<long[]> arcs = new ArrayList<>(ranges.size() + 1);
+        long[] tail = null;
+        for (int i = 0; i < ranges.size(); i++) {
+            long start = ranges.getStart(i);
+            long end = ranges.getEnd(i);
+            if (start < end) {
+                arcs.add(new long[]{start, end});
+            } else {
+                arcs.add(new long[]{-1, end});
+                tail = new long[]{start, Long.MAX_VALUE};
+            }
+        }
+        if (tail != null && tail[0] < tail[1]) {
+            arcs.add(tail);
+        }
+        return arcs;
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", MigrationPlan.class.getSimpleName() + "[", "]")
+                .add("replicationFactor= " + replicationFactor)
+                .add("transfers= " + transfers.size())
+                .add("fraction= " + getFraction())
+                .toString();
+    }
+
+    /**
+     * Ranges of the ring to be copied from the source node to the target node.
+     *
+     * @param <T> the type of node
+     */
+    public static final class Transfer<T extends Node> {
+
+        private final T source;
+        private final T target;
+        private final TokenRanges ranges;
+
+        Transfer(T source, T target, TokenRanges ranges) {
+            this.source = source;
+            this.target = target;
+            this.ranges = ranges;
+        }
+
+        public T getSource() {
+            return source;
+        }
+
+        public T getTarget() {
+            return target;
+        }
+
+        public TokenRanges getRanges() {
+            return ranges;
+        }
+
+        public double getFraction() {
+            return ranges.getFraction();
+        }
+
+        @Override
+        @Generated
+        public String toString() {
+            return new StringJoiner(", ", Transfer.class.getSimpleName() + "[", "]")
+                    .add("source= " + source)
+                    .add("target= " + target)
+                    .add("ranges= " + ranges.size())
+                    .add("fraction= " + getFraction())
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+
+import java.util.*;
+
+/**
+ * Planner of data migration between two ring topologies, e.g. before and after scaling of the cluster.
+ * <p>
+ * Plan is computed in one sweep over sorted slots of both rings. Each arc between two consecutive slots
+ * of either ring has the same replicas in the old ring and in the new ring,
+ * so every new replica of the arc gets a transfer from one of the old replicas.
+ * Old replicas leaving the arc are used as sources first, and among them the one which has sent
+ * the least part of the ring so far, so load of sources is spread between them.
+ *
+ * @see MigrationPlan
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class MigrationPlanner {
+
+    private MigrationPlanner() {
+    }
+
+    /**
+     * Plan migration from one ring snapshot to another, e.g. from snapshots of two {@link HashRing}s
+     * built with the same hasher, partition rate and slot generator.
+     *
+     * @param before            the snapshot of the current ring
+     * @param after             the snapshot of the new ring
+     * @param replicationFactor the amount of replicas of each key
+     * @param <T>               the type of node
+     * @return the migration plan
+     * @throws IllegalArgumentException if replication factor is less than 1
+     */
+    public static <T extends Node> MigrationPlan<T> plan(RingSnapshot<T> before, RingSnapshot<T> after,
+                                                         int replicationFactor) {
+        if (replicationFactor < 1) {
+            throw new IllegalArgumentException("Replication factor can not be less than 1");
+        }
+        long[] oldSlots = before.slots();
+        long[] newSlots = after.slots();
+        if (oldSlots.length == 0 || newSlots.length == 0) {
+            return new MigrationPlan<>(replicationFactor, new ArrayList<>());
+        }
+        Replicas<T> oldReplicas = new Replicas<>(before, Math.min(replicationFactor, before.size()));
+        Replicas<T> newReplicas = new Replicas<>(after, Math.min(replicationFactor, after.size()));
+        Map<T, Map<T, TokenRanges.Builder>> transfers = new LinkedHashMap<>();
+        List<T> sources = new ArrayList<>();
+        Map<T, Double> sent = new HashMap<>();
+
+        long start = Math.max(oldSlots[oldSlots.length - 1], newSlots[newSlots.length - 1]);
+        int i = 0;
+        int j = 0;
+        while (i < oldSlots.length || j < newSlots.length) {
+            long end = j == newSlots.length || (i < oldSlots.length && oldSlots[i] <= newSlots[j])
+                    ? oldSlots[i] : newSlots[j];
+            // the first arc wraps around the end of the ring, so it belongs to the first slots
+            List<T> oldNodes = oldReplicas.at(i < oldSlots.length ? i : 0);
+            List<T> newNodes = newReplicas.at(j < newSlots.length ? j : 0);
+            sources.clear();
+            for (T node : oldNodes) {
+                if (!newNodes.contains(node)) sources.add(node);
+            }
+            if (sources.isEmpty()) {
+                sources.addAll(oldNodes);
+            }
+            double length = arcLength(start, end);
+            for (T target : newNodes) {
+                if (!oldNodes.contains(target)) {
+                    T source = leastLoaded(sources, sent);
+                    sent.merge(source, length, Double::sum);
+                    transfers.computeIfAbsent(source, s -> new LinkedHashMap<>())
+                            .computeIfAbsent(target, t -> new TokenRanges.Builder())
+                            .add(start, end);
+                }
+            }
+            start = end;
+            if (i < oldSlots.length && oldSlots[i] == end) i++;
+            if (j < newSlots.length && newSlots[j] == end) j++;
+        }
+
+        List<MigrationPlan.Transfer<T>> result = new ArrayList<>();
+        transfers.forEach((source, targets) -> targets.forEach((target, ranges) ->
+                result.add(new MigrationPlan.Transfer<>(source, target, ranges.build()))));
+        return new MigrationPlan<>(replicationFactor, result);
+    }
+
+    /**
+     * Plan migration of the ring to the topology with pending membership changes, the ring is not modified.
+     * New topology is the same as if removed nodes were removed first and then added nodes were added.
+     *
+     * @param ring              the current ring
+     * @param added             the nodes to be added
+     * @param removed           the nodes to be removed
+     * @param replicationFactor the amount of replicas of each key
+     * @param <T>               the type of node
+     * @return the migration plan
+     * @throws IllegalArgumentException if replication factor is less than 1
+     *                                  or weight of any added node is not positive finite number
+     */
+    public static <T extends Node> MigrationPlan<T> plan(HashRing<T> ring, Collection<T> added, Collection<T> removed,
+                                                         int replicationFactor) {
+        Objects.requireNonNull(added, "Added nodes can not be null");
+        Objects.requireNonNull(removed, "Removed nodes can not be null");
+        RingSnapshot<T> before = ring.snapshot();
+        return plan(before, ring.preview(added, removed), replicationFactor);
+    }
+
+    private static <T> T leastLoaded(List<T> sources, Map<T, Double> sent) {
+        T best = sources.get(0);
+        double bestSent = sent.getOrDefault(best, 0.0);
+        for (int k = 1; k < sources.size(); k++) {
+            double candidate = sent.getOrDefault(sources.get(k), 0.0);
+            if (candidate < bestSent) {
+                best = sources.get(k);
+                bestSent = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Length of the arc (start, end], the arc with equal bounds is the whole ring.
+     */
+    private static double arcLength(long start, long end) {
+        if (start < end) {
+            return end - start;
+        }
+        return (double) (Long.MAX_VALUE - start) + end + 1;
+    }
+
+    /**
+     * Distinct owners clockwise from the slot index, cached for the last index,
+     * as the sweep visits each index of the ring several times in a row.
+     */
+    private static final class Replicas<T extends Node> {
+        private final RingSnapshot<T> snapshot;
+        private final int count;
+        private final List<T> nodes;
+        private int idx = -1;
+
+        Replicas(RingSnapshot<T> snapshot, int count) {
+            this.snapshot = snapshot;
+            this.count = count;
+            this.nodes = new ArrayList<>(count);
+        }
+
+        List<T> at(int slotIdx) {
+            if (slotIdx != idx) {
+                idx = slotIdx;
+                nodes.clear();
+                int[] owners = snapshot.owners();
+                for (int i = 0, k = slotIdx; i < owners.length && nodes.size() < count; i++) {
+                    T node = snapshot.node(owners[k]);
+                    if (!nodes.contains(node)) {
+                        nodes.add(node);
+                    }
+                    k = k + 1 < owners.length ? k + 1 : 0;
+                }
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hashes;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of Multi-probe consistent hash.
+ * Each node takes a single slot on the ring, and key is hashed {@code probes} times
+ * (with seeds {@code 0 .. probes - 1}), the key is located on the node with the closest slot
+ * clockwise from any of the probes. Balance of the keys is close to the ring with
+ * hundreds of partitions per node, while the ring keeps only one slot per node.
+ * <p>
+ * Slots are kept in immutable sorted primitive arrays replaced on each modification,
+ * so reads are lock-free.
+ *
+ * @see <a href="https://arxiv.org/abs/1505.00062">Multi-probe consistent hashing</a>
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class MultiProbeHashRing<T extends Node> implements ConsistentHash<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MultiProbeHashRing.class);
+
+    private final Lock mutex = new ReentrantLock();
+    private volatile Points<T> points = new Points<>(new long[0], new Object[0], Collections.emptyMap());
+
+    private final String name;
+    private final Hasher hasher;
+    private final int probes;
+
+    /**
+     * Instance can be created only via builder {@link MultiProbeHashRing#newBuilder()}
+     *
+     * @param name the name of the ring
+     * @param hasher the hash function
+     * @param probes the amount of key probes
+     */
+    MultiProbeHashRing(String name, Hasher hasher, int probes) {
+        this.name = name;
+        this.hasher = hasher;
+        this.probes = probes;
+        LOG.info("Multi-probe ring [{}] created: hasher [{}], probes [{}]", name, hasher, probes);
+    }
+
+    /**
+     * Create instance of {@link MultiProbeHashRingBuilder}
+     *
+     * @param <T> the type of node
+     * @return the multi-probe ring builder
+     */
+    public static <T extends Node> MultiProbeHashRingBuilder<T> newBuilder() {
+        return new MultiProbeHashRingBuilder<>();
+    }
+
+    @Override
+    public boolean add(T node) {
+        return addAll(Collections.singletonList(node));
+    }
+
+    @Override
+    public boolean addAll(Collection<T> nodes) {
+        if (nodes == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            Points<T> current = points;
+            long[] slots = current.slots;
+            Object[] owners = current.owners;
+            Map<T, Long> positions = new HashMap<>(current.positions);
+            for (T node : nodes) {
+                if (node == null || positions.containsKey(node)) {
+                    continue;
+                }
+                long slot = hasher.hash(node.getKey(), 0);
+                for (int attempt = 0; Arrays.binarySearch(slots, slot) >= 0; attempt++) {
+                    slot = Hashes.mix(slot, attempt);
+                }
+                int idx = RingArrays.ceiling(slots, slots.length, slot);
+                slots = insert(slots, idx, slot);
+                owners = insert(owners, idx, node);
+                positions.put(node, slot);
+                LOG.info("Multi-probe ring [{}]: node [{}] added to slot [{}]", name, node, slot);
+            }
+            if (slots == current.slots) {
+                return false;
+            }
+            points = new Points<>(slots, owners, positions);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return node != null && points.positions.containsKey(node);
+    }
+
+    @Override
+    public boolean remove(T node) {
+        if (node == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            Points<T> current = points;
+            Long slot = current.positions.get(node);
+            if (slot == null) {
+                return false;
+            }
+            int idx = Arrays.binarySearch(current.slots, slot);
+            Map<T, Long> positions = new HashMap<>(current.positions);
+            positions.remove(node);
+            points = new Points<>(delete(current.slots, idx), delete(current.owners, idx), positions);
+            LOG.info("Multi-probe ring [{}]: node [{}] removed", name, node);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return new HashSet<>(points.positions.keySet());
+    }
+
+    @Override
+    public Optional<T> locate(String key) {
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<T> locate(String key, int count) {
+        Points<T> current = points;
+        Set<T> res = new HashSet<>();
+        if (key != null && count > 0) {
+            if (count < current.slots.length) {
+                int idx = closest(current, key);
+                for (int i = 0; i < count; i++) {
+                    res.add((T) current.owners[(idx + i) % current.owners.length]);
+                }
+            } else {
+                res.addAll(current.positions.keySet());
+            }
+        }
+        return res;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T locateNode(String key) {
+        Points<T> current = points;
+        return key != null && current.slots.length > 0 ? (T) current.owners[closest(current, key)] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T locateNode(CharSequence key) {
+        Points<T> current = points;
+        if (key == null || current.slots.length == 0) {
+            return null;
+        }
+        int best = -1;
+        long bestDistance = 0;
+        for (int seed = 0; seed < probes; seed++) {
+            long probe = hasher.hash(key, seed);
+            int idx = successor(current.slots, probe);
+            long distance = current.slots[idx] - probe;
+            if (best < 0 || Long.compareUnsigned(distance, bestDistance) < 0) {
+                best = idx;
+                bestDistance = distance;
+            }
+        }
+        return (T) current.owners[best];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T locateNode(byte[] key, int offset, int length) {
+        Points<T> current = points;
+        if (key == null || current.slots.length == 0) {
+            return null;
+        }
+        int best = -1;
+        long bestDistance = 0;
+        for (int seed = 0; seed < probes; seed++) {
+            long probe = hasher.hash(key, offset, length, seed);
+            int idx = successor(current.slots, probe);
+            long distance = current.slots[idx] - probe;
+            if (best < 0 || Long.compareUnsigned(distance, bestDistance) < 0) {
+                best = idx;
+                bestDistance = distance;
+            }
+        }
+        return (T) current.owners[best];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T locateNode(ByteBuffer key, int offset, int length) {
+        Points<T> current = points;
+        if (key == null || current.slots.length == 0) {
+            return null;
+        }
+        int best = -1;
+        long bestDistance = 0;
+        for (int seed = 0; seed < probes; seed++) {
+            long probe = hasher.hash(key, offset, length, seed);
+            int idx = successor(current.slots, probe);
+            long distance = current.slots[idx] - probe;
+            if (best < 0 || Long.compareUnsigned(distance, bestDistance) < 0) {
+                best = idx;
+                bestDistance = distance;
+            }
+        }
+        return (T) current.owners[best];
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first node is the closest to the key probes,
+     * followed by the next nodes clockwise.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int locate(String key, T[] out) {
+        Points<T> current = points;
+        int count = Math.min(out.length, current.slots.length);
+        if (key == null || count == 0) {
+            return 0;
+        }
+        int idx = closest(current, key);
+        for (int i = 0; i < count; i++) {
+            out[i] = (T) current.owners[(idx + i) % current.owners.length];
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first node is the closest to the key probes,
+     * followed by the next nodes clockwise.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int locate(String key, int count, List<T> out) {
+        Points<T> current = points;
+        count = Math.min(count, current.slots.length);
+        if (key == null || count <= 0) {
+            return 0;
+        }
+        int idx = closest(current, key);
+        for (int i = 0; i < count; i++) {
+            out.add((T) current.owners[(idx + i) % current.owners.length]);
+        }
+        return count;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return points.slots.length;
+    }
+
+    public Hasher getHasher() {
+        return hasher;
+    }
+
+    public int getProbes() {
+        return probes;
+    }
+
+    /**
+     * Find index of the slot, closest clockwise to any of the key probes.
+     */
+    private int closest(Points<T> current, String key) {
+        int best = -1;
+        long bestDistance = 0;
+        for (int seed = 0; seed < probes; seed++) {
+            long probe = hasher.hash(key, seed);
+            int idx = successor(current.slots, probe);
+            long distance = current.slots[idx] - probe;
+            if (best < 0 || Long.compareUnsigned(distance, bestDistance) < 0) {
+                best = idx;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Index of the first slot clockwise from the hash. Hash space is the whole range of long
+     * wrapped from {@link Long#MAX_VALUE} to {@link Long#MIN_VALUE}, so distance to the slot
+     * is the unsigned difference.
+     */
+    private static int successor(long[] slots, long hash) {
+        int idx = RingArrays.ceiling(slots, slots.length, hash);
+        return idx < slots.length ? idx : 0;
+    }
+
+    private static long[] insert(long[] array, int idx, long value) {
+        long[] res = new long[array.length + 1];
+        System.arraycopy(array, 0, res, 0, idx);
+        res[idx] = value;
+        System.arraycopy(array, idx, res, idx + 1, array.length - idx);
+        return res;
+    }
+
+    private static Object[] insert(Object[] array, int idx, Object value) {
+        Object[] res = new Object[array.length + 1];
+        System.arraycopy(array, 0, res, 0, idx);
+        res[idx] = value;
+        System.arraycopy(array, idx, res, idx + 1, array.length - idx);
+        return res;
+    }
+
+    private static long[] delete(long[] array, int idx) {
+        long[] res = new long[array.length - 1];
+        System.arraycopy(array, 0, res, 0, idx);
+        System.arraycopy(array, idx + 1, res, idx, res.length - idx);
+        return res;
+    }
+
+    private static Object[] delete(Object[] array, int idx) {
+        Object[] res = new Object[array.length - 1];
+        System.arraycopy(array, 0, res, 0, idx);
+        System.arraycopy(array, idx + 1, res, idx, res.length - idx);
+        return res;
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", MultiProbeHashRing.class.getSimpleName() + "[", "]")
+                .add("nodes= " + points.slots.length)
+                .add("name= '" + name + "'")
+                .add("hasher= " + hasher)
+                .add("probes= " + probes)
+                .toString();
+    }
+
+    /**
+     * Immutable ring: sorted slots, owner of each slot and slot of each node.
+     */
+    private static final class Points<T> {
+        private final long[] slots;
+        private final Object[] owners;
+        private final Map<T, Long> positions;
+
+        private Points(long[] slots, Object[] owners, Map<T, Long> positions) {
+            this.slots = slots;
+            this.owners = owners;
+            this.positions = positions;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent tracker of keys assigned to nodes, used for consistent hashing with bounded loads.
+ * Node is saturated when its load reaches {@code ceil((1 + epsilon) * (total + 1) / nodes)},
+ * that is the capacity of the node for the next assigned key.
+ * <p>
+ * Total is a {@link LongAdder}, so concurrent assignments to different nodes do not contend on a single value.
+ * Load of the node is changed by compare-and-set, so it never goes below zero.
+ * Loads exist only for registered nodes: removed node's load is tombstoned,
+ * so keys located to the node before its removal are neither assigned to it nor counted in the total.
+ * Check of the capacity and the following assignment are not atomic,
+ * so concurrent assignments can exceed the capacity by the amount of assigning threads.
+ *
+ * @see <a href="https://arxiv.org/abs/1608.01350">Consistent Hashing with Bounded Loads</a>
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+final class NodeLoads<T> {
+
+    // load of the removed node, rejects all the following changes
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private final ConcurrentMap<T, AtomicLong> loads = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+    private final double epsilon;
+
+    NodeLoads(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Calculate capacity of each node for the next assigned key.
+     *
+     * @param nodes the amount of nodes in the ring
+     * @return the maximum load of not saturated node
+     */
+    long capacity(int nodes) {
+        return (long) Math.ceil((1 + epsilon) * (total.sum() + 1) / nodes);
+    }
+
+    boolean isSaturated(T node, long capacity) {
+        return load(node) >= capacity;
+    }
+
+    /**
+     * Start tracking load of the added node.
+     *
+     * @param node the added node
+     */
+    void register(T node) {
+        loads.put(node, new AtomicLong());
+    }
+
+    /**
+     * Assign one key to the node.
+     *
+     * @param node the node
+     * @return <tt>true</tt> if load was incremented, <tt>false</tt> if node is not registered or was removed
+     */
+    boolean acquire(T node) {
+        AtomicLong load = loads.get(node);
+        if (load == null) {
+            return false;
+        }
+        for (long current = load.get(); current != REMOVED; current = load.get()) {
+            if (load.compareAndSet(current, current + 1)) {
+                total.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Release one key assigned to the node.
+     *
+     * @param node the node
+     * @return <tt>true</tt> if load was decremented, <tt>false</tt> if node has no assigned keys or was removed
+     */
+    boolean release(T node) {
+        AtomicLong load = loads.get(node);
+        if (load == null) {
+            return false;
+        }
+        for (long current = load.get(); current > 0; current = load.get()) {
+            if (load.compareAndSet(current, current - 1)) {
+                total.decrement();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forget load of the removed node.
+     *
+     * @param node the removed node
+     */
+    void remove(T node) {
+        AtomicLong load = loads.remove(node);
+        if (load != null) {
+            total.add(-load.getAndSet(REMOVED));
+        }
+    }
+
+    long load(T node) {
+        AtomicLong load = loads.get(node);
+        return load != null ? Math.max(0, load.get()) : 0;
+    }
+
+    long total() {
+        return total.sum();
+    }
+
+    double epsilon() {
+        return epsilon;
+    }
+}
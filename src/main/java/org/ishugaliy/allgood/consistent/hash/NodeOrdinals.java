@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import java.util.*;
+
+/**
+ * Registry of dense node ordinals, used to reference nodes from primitive arrays.
+ * Ordinals of removed nodes are reused by the next added nodes.
+ * Not thread-safe, must be guarded by the ring write lock.
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+final class NodeOrdinals<T> {
+
+    private final Map<T, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> free = new ArrayDeque<>();
+    private int next;
+
+    /**
+     * Assign ordinal to the node, if node does not have one yet.
+     *
+     * @param node the node
+     * @return the node ordinal
+     */
+    int assign(T node) {
+        Integer ordinal = ordinals.get(node);
+        if (ordinal == null) {
+            ordinal = free.isEmpty() ? next++ : free.pop();
+            ordinals.put(node, ordinal);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Release ordinal of the node, so it can be reused.
+     *
+     * @param node the node
+     * @return the released ordinal or -1 if node had no ordinal
+     */
+    int release(T node) {
+        Integer ordinal = ordinals.remove(node);
+        if (ordinal == null) {
+            return -1;
+        }
+        free.push(ordinal);
+        return ordinal;
+    }
+
+    int get(T node) {
+        Integer ordinal = ordinals.get(node);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    boolean contains(T node) {
+        return ordinals.containsKey(node);
+    }
+
+    int size() {
+        return ordinals.size();
+    }
+
+    /**
+     * @return the upper bound of assigned ordinals, exclusive
+     */
+    int capacity() {
+        return next;
+    }
+
+    Set<T> nodes() {
+        return ordinals.keySet();
+    }
+
+    /**
+     * @return the copy of node to ordinal mapping
+     */
+    Map<T, Integer> copy() {
+        return new HashMap<>(ordinals);
+    }
+}
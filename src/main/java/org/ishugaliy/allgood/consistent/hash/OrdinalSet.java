@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of node ordinals, used to skip already collected nodes while walking the ring.
+ * Ordinals are kept in a bitset, unless the ordinals range is too big for the bitset to be cheaper than the hash set.
+ *
+ * @author Yuriy Shugaliy
+ */
+final class OrdinalSet {
+
+    static final int BITSET_MAX_ORDINALS = 1 << 12;
+
+    private final long[] words;
+    private final Set<Integer> ordinals;
+
+    /**
+     * @param capacity the upper bound of ordinals, exclusive
+     */
+    OrdinalSet(int capacity) {
+        if (capacity <= BITSET_MAX_ORDINALS) {
+            this.words = new long[(capacity + 63) >>> 6];
+            this.ordinals = null;
+        } else {
+            this.words = null;
+            this.ordinals = new HashSet<>();
+        }
+    }
+
+    /**
+     * Add ordinal to the set
+     *
+     * @param ordinal the ordinal
+     * @return <tt>true</tt> if set did not contain the ordinal
+     */
+    boolean add(int ordinal) {
+        if (words == null) {
+            return ordinals.add(ordinal);
+        }
+        long bit = 1L << ordinal;
+        int word = ordinal >>> 6;
+        if ((words[word] & bit) != 0) {
+            return false;
+        }
+        words[word] |= bit;
+        return true;
+    }
+}
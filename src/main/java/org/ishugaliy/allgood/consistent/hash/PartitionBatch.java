@@ -0,0 +1,263 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.ishugaliy.allgood.consistent.hash.partition.Partition;
+import org.ishugaliy.allgood.consistent.hash.partition.ReplicationPartition;
+import org.ishugaliy.allgood.consistent.hash.partition.SlotGenerator;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Partitions of the batch of nodes, hashed and sorted at once to be bulk loaded into the ring.
+ * <p>
+ * Nodes are ordered by their keys and partitions get ids in that order,
+ * so colliding slots are resolved in the same way regardless of the order in which nodes were given.
+ * Hashing does not touch the ring, so the batch can be prepared outside the ring lock,
+ * large batches are hashed, sorted and turned into partitions in parallel. Not thread-safe.
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+final class PartitionBatch<T extends Node> {
+
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final Hasher hasher;
+    private final SlotGenerator slotGenerator;
+    private final List<T> nodes;
+    private final String[] keys;
+    private final int[] offsets;
+    private long[] slots;
+    private int[] ids;
+    private int size;
+
+    /**
+     * Generate and sort slots of partitions of the nodes.
+     *
+     * @param hasher        the hash function
+     * @param slotGenerator the generator of partition slots
+     * @param counts        the nodes with amount of their partitions, at least one
+     */
+    PartitionBatch(Hasher hasher, SlotGenerator slotGenerator, Map<T, Integer> counts) {
+        this.hasher = hasher;
+        this.slotGenerator = slotGenerator;
+        int n = counts.size();
+        Integer[] order = new Integer[n];
+        List<T> given = new ArrayList<>(counts.keySet());
+        String[] givenKeys = new String[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            givenKeys[i] = given.get(i).getKey();
+        }
+        Arrays.parallelSort(order,
+                Comparator.comparing(i -> givenKeys[i], Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        this.nodes = new ArrayList<>(n);
+        this.keys = new String[n];
+        this.offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            T node = given.get(order[i]);
+            nodes.add(node);
+            keys[i] = givenKeys[order[i]];
+            offsets[i + 1] = Math.addExact(offsets[i], counts.get(node));
+        }
+
+        this.size = offsets[n];
+        this.slots = new long[size];
+        this.ids = new int[size];
+        IntStream range = IntStream.range(0, n);
+        (size >= PARALLEL_THRESHOLD ? range.parallel() : range).forEach(node -> {
+            slotGenerator.slots(hasher, keys[node], 0, offsets[node + 1] - offsets[node], slots, offsets[node]);
+            for (int id = offsets[node]; id < offsets[node + 1]; id++) {
+                ids[id] = id;
+                slots[id] = Math.abs(slots[id]);
+            }
+        });
+        RingArrays.parallelSort(slots, ids, size);
+    }
+
+    /**
+     * Drop partitions of the nodes that do not match the filter, keeping the sorted order.
+     *
+     * @param filter the filter of nodes to keep
+     */
+    void retain(Predicate<T> filter) {
+        boolean[] kept = new boolean[nodes.size()];
+        boolean all = true;
+        for (int i = 0; i < kept.length; i++) {
+            kept[i] = filter.test(nodes.get(i));
+            all &= kept[i];
+        }
+        if (all) {
+            return;
+        }
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            if (kept[nodeIndex(ids[i])]) {
+                slots[j] = slots[i];
+                ids[j++] = ids[i];
+            }
+        }
+        size = j;
+        for (int i = 0; i < kept.length; i++) {
+            if (!kept[i]) {
+                nodes.set(i, null);
+            }
+        }
+    }
+
+    /**
+     * Rehash partitions which slots are taken by the ring or by other partitions of the batch.
+     * The first partition in the sorted order keeps the slot.
+     *
+     * @param taken the check of slots taken by the ring
+     */
+    void resolveCollisions(LongPredicate taken) {
+        Map<Integer, Integer> attempts = new HashMap<>();
+        boolean collided = true;
+        while (collided) {
+            collided = false;
+            for (int i = 0; i < size; i++) {
+                long slot = slots[i];
+                if ((i > 0 && slots[i - 1] == slot) || taken.test(slot)) {
+                    int id = ids[i];
+                    slots[i] = hash(id, attempts.merge(id, 1, Integer::sum));
+                    collided = true;
+                }
+            }
+            if (collided) {
+                RingArrays.parallelSort(slots, ids, size);
+            }
+        }
+    }
+
+    /**
+     * Create partitions with resolved slots.
+     *
+     * @param byNode the consumer of node and its partitions in order of replication index
+     * @return all partitions in order of slots
+     */
+    Partition<T>[] partitions(BiConsumer<T, List<Partition<T>>> byNode) {
+        @SuppressWarnings("unchecked")
+        Partition<T>[] byId = (Partition<T>[]) new Partition<?>[offsets[offsets.length - 1]];
+        @SuppressWarnings("unchecked")
+        Partition<T>[] sorted = (Partition<T>[]) new Partition<?>[size];
+        IntStream range = IntStream.range(0, size);
+        (size >= PARALLEL_THRESHOLD ? range.parallel() : range).forEach(i -> {
+            int id = ids[i];
+            int node = nodeIndex(id);
+            sorted[i] = byId[id] = new ReplicationPartition<>(id - offsets[node], nodes.get(node), slots[i]);
+        });
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i) != null) {
+                List<Partition<T>> partitions = new ArrayList<>(Arrays.asList(byId).subList(offsets[i], offsets[i + 1]));
+                byNode.accept(nodes.get(i), partitions);
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * @return the amount of partitions in the batch
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the nodes of the batch in order of their keys
+     */
+    List<T> nodes() {
+        List<T> res = new ArrayList<>(nodes.size());
+        for (T node : nodes) {
+            if (node != null) {
+                res.add(node);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @return the slots of partitions in sorted order
+     */
+    long[] slots() {
+        return Arrays.copyOf(slots, size);
+    }
+
+    /**
+     * Map partitions to the values of their nodes, large batches are mapped in parallel.
+     *
+     * @param value the value of the node, called once per node
+     * @return the values of nodes of partitions in order of slots
+     */
+    int[] owners(ToIntFunction<T> value) {
+        int[] values = new int[nodes.size()];
+        for (int i = 0; i < values.length; i++) {
+            if (nodes.get(i) != null) {
+                values[i] = value.applyAsInt(nodes.get(i));
+            }
+        }
+        int[] owners = new int[size];
+        IntStream range = IntStream.range(0, size);
+        (size >= PARALLEL_THRESHOLD ? range.parallel() : range).forEach(i -> owners[i] = values[nodeIndex(ids[i])]);
+        return owners;
+    }
+
+    /**
+     * @param i the index of partition in order of slots
+     * @return the slot of the partition
+     */
+    long slot(int i) {
+        return slots[i];
+    }
+
+    /**
+     * @param i the index of partition in order of slots
+     * @return the node of the partition
+     */
+    T node(int i) {
+        return nodes.get(nodeIndex(ids[i]));
+    }
+
+    private int nodeIndex(int id) {
+        // every node has at least one partition, so offsets are strictly increasing
+        int idx = Arrays.binarySearch(offsets, id);
+        return idx >= 0 ? idx : -idx - 2;
+    }
+
+    private long hash(int id, int attempt) {
+        int node = nodeIndex(id);
+        return Math.abs(slotGenerator.slot(hasher, keys[node], id - offsets[node], attempt));
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hashes;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Implementation of Rendezvous (highest random weight) hash.
+ * Each node gets a score for the key, and the key is located on the node with the highest score,
+ * replicas are the nodes with the next highest scores. No virtual nodes are stored,
+ * so the hash fits small sets of nodes with frequent replica lookups.
+ * <p>
+ * Node weights are supported by logarithmic scoring {@code -weight / ln(u)},
+ * where {@code u} is the uniform value derived from the key and node hashes,
+ * so the node receives the share of keys proportional to its weight.
+ * <p>
+ * Node hashes are calculated once, when node is added, so locate costs one key hash
+ * and one cheap mix per node. Nodes are kept in an immutable table replaced on each modification,
+ * so reads are lock-free.
+ *
+ * @see <a href="https://www.snia.org/sites/default/files/SDC15_presentations/dist_sys/Jason_Resch_New_Consistent_Hashings_Rev.pdf">
+ *     Weighted rendezvous hashing</a>
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class RendezvousHash<T extends Node> implements ConsistentHash<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RendezvousHash.class);
+
+    // buffers of the top nodes selection, reused by the thread so replicas are located without allocation
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final Lock mutex = new ReentrantLock();
+    private volatile Members<T> members = new Members<>(new Object[0], new long[0], new double[0]);
+
+    private final String name;
+    private final Hasher hasher;
+    private final ToDoubleFunction<T> weigher;
+
+    /**
+     * Instance can be created only via builder {@link RendezvousHash#newBuilder()}
+     *
+     * @param name the name of the hash
+     * @param hasher the hash function
+     * @param weigher the function to get node weight
+     */
+    RendezvousHash(String name, Hasher hasher, ToDoubleFunction<T> weigher) {
+        this.name = name;
+        this.hasher = hasher;
+        this.weigher = weigher;
+        LOG.info("Rendezvous hash [{}] created: hasher [{}]", name, hasher);
+    }
+
+    /**
+     * Create instance of {@link RendezvousHashBuilder}
+     *
+     * @param <T> the type of node
+     * @return the rendezvous hash builder
+     */
+    public static <T extends Node> RendezvousHashBuilder<T> newBuilder() {
+        return new RendezvousHashBuilder<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if weight of the node is not positive finite number
+     */
+    @Override
+    public boolean add(T node) {
+        return addAll(Collections.singletonList(node));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if weight of any node is not positive finite number
+     */
+    @Override
+    public boolean addAll(Collection<T> nodes) {
+        if (nodes == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            Members<T> current = members;
+            Map<T, Double> added = new LinkedHashMap<>();
+            for (T node : nodes) {
+                if (node != null && !current.positions.containsKey(node) && !added.containsKey(node)) {
+                    added.put(node, weight(node));
+                }
+            }
+            if (added.isEmpty()) {
+                return false;
+            }
+            int size = current.nodes.length;
+            Object[] table = Arrays.copyOf(current.nodes, size + added.size());
+            long[] hashes = Arrays.copyOf(current.hashes, table.length);
+            double[] weights = Arrays.copyOf(current.weights, table.length);
+            for (Map.Entry<T, Double> e : added.entrySet()) {
+                table[size] = e.getKey();
+                hashes[size] = hasher.hash(e.getKey().getKey(), 0);
+                weights[size++] = e.getValue();
+                LOG.info("Rendezvous hash [{}]: node [{}] added with weight [{}]", name, e.getKey(), e.getValue());
+            }
+            members = new Members<>(table, hashes, weights);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return node != null && members.positions.containsKey(node);
+    }
+
+    @Override
+    public boolean remove(T node) {
+        if (node == null) {
+            return false;
+        }
+        mutex.lock();
+        try {
+            Members<T> current = members;
+            Integer position = current.positions.get(node);
+            if (position == null) {
+                return false;
+            }
+            members = current.without(position);
+            LOG.info("Rendezvous hash [{}]: node [{}] removed", name, node);
+            return true;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @Override
+    public Set<T> getNodes() {
+        return new HashSet<>(members.positions.keySet());
+    }
+
+    @Override
+    public Optional<T> locate(String key) {
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<T> locate(String key, int count) {
+        Members<T> current = members;
+        Set<T> res = new HashSet<>();
+        if (key != null && count > 0) {
+            if (count < current.nodes.length) {
+                Object[] located = SCRATCH.get().nodes(count);
+                top(current, hasher.hash(key, 0), located, count);
+                for (int i = 0; i < count; i++) {
+                    res.add((T) located[i]);
+                }
+                Arrays.fill(located, 0, count, null);
+            } else {
+                res.addAll(current.positions.keySet());
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public T locateNode(String key) {
+        return key != null ? best(hasher.hash(key, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(CharSequence key) {
+        return key != null ? best(hasher.hash(key, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(byte[] key, int offset, int length) {
+        return key != null ? best(hasher.hash(key, offset, length, 0)) : null;
+    }
+
+    @Override
+    public T locateNode(ByteBuffer key, int offset, int length) {
+        return key != null ? best(hasher.hash(key, offset, length, 0)) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nodes are ordered by their scores, the highest first.
+     */
+    @Override
+    public int locate(String key, T[] out) {
+        Members<T> current = members;
+        int count = Math.min(out.length, current.nodes.length);
+        if (key == null || count == 0) {
+            return 0;
+        }
+        return top(current, hasher.hash(key, 0), out, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nodes are ordered by their scores, the highest first.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int locate(String key, int count, List<T> out) {
+        Members<T> current = members;
+        count = Math.min(count, current.nodes.length);
+        if (key == null || count <= 0) {
+            return 0;
+        }
+        Object[] located = SCRATCH.get().nodes(count);
+        top(current, hasher.hash(key, 0), located, count);
+        for (int i = 0; i < count; i++) {
+            out.add((T) located[i]);
+        }
+        Arrays.fill(located, 0, count, null);
+        return count;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return members.nodes.length;
+    }
+
+    public Hasher getHasher() {
+        return hasher;
+    }
+
+    /**
+     * Get weight of the node, assigned when node was added.
+     *
+     * @param node the node
+     * @return the weight of the node or 0 if node is absent
+     */
+    public double getWeight(T node) {
+        Members<T> current = members;
+        Integer position = node != null ? current.positions.get(node) : null;
+        return position != null ? current.weights[position] : 0;
+    }
+
+    private double weight(T node) {
+        double weight = weigher.applyAsDouble(node);
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Weight of node [" + node + "] has to be positive: " + weight);
+        }
+        return weight;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T best(long hash) {
+        Members<T> current = members;
+        int best = -1;
+        double bestScore = 0;
+        for (int i = 0; i < current.nodes.length; i++) {
+            double score = score(hash, current.hashes[i], current.weights[i]);
+            if (best < 0 || score > bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best >= 0 ? (T) current.nodes[best] : null;
+    }
+
+    /**
+     * Select nodes with the highest scores by insertion into the fixed size array,
+     * so only {@code count} nodes are ever ordered.
+     */
+    private int top(Members<T> current, long hash, Object[] out, int count) {
+        double[] scores = SCRATCH.get().scores(count);
+        int found = 0;
+        for (int i = 0; i < current.nodes.length; i++) {
+            double score = score(hash, current.hashes[i], current.weights[i]);
+            if (found < count) {
+                found++;
+            } else if (score <= scores[count - 1]) {
+                continue;
+            }
+            int j = found - 1;
+            for (; j > 0 && scores[j - 1] < score; j--) {
+                scores[j] = scores[j - 1];
+                out[j] = out[j - 1];
+            }
+            scores[j] = score;
+            out[j] = current.nodes[i];
+        }
+        return found;
+    }
+
+    private static double score(long keyHash, long nodeHash, double weight) {
+        long hash = Hashes.mix(keyHash ^ nodeHash);
+        // uniform value in the open interval (0, 1)
+        double u = ((hash >>> 11) + 0.5) * 0x1.0p-53;
+        return -weight / Math.log(u);
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", RendezvousHash.class.getSimpleName() + "[", "]")
+                .add("nodes= " + members.nodes.length)
+                .add("name= '" + name + "'")
+                .add("hasher= " + hasher)
+                .toString();
+    }
+
+    /**
+     * Buffers of the top nodes selection, grown on demand.
+     */
+    private static final class Scratch {
+        private double[] scores = new double[0];
+        private Object[] nodes = new Object[0];
+
+        private double[] scores(int count) {
+            if (scores.length < count) {
+                scores = new double[count];
+            }
+            return scores;
+        }
+
+        private Object[] nodes(int count) {
+            if (nodes.length < count) {
+                nodes = new Object[count];
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Immutable table of nodes with their hashes and weights.
+     */
+    private static final class Members<T> {
+        private final Object[] nodes;
+        private final long[] hashes;
+        private final double[] weights;
+        private final Map<T, Integer> positions = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        private Members(Object[] nodes, long[] hashes, double[] weights) {
+            this.nodes = nodes;
+            this.hashes = hashes;
+            this.weights = weights;
+            for (int i = 0; i < nodes.length; i++) {
+                positions.put((T) nodes[i], i);
+            }
+        }
+
+        private Members<T> without(int position) {
+            int size = nodes.length - 1;
+            Object[] table = new Object[size];
+            long[] newHashes = new long[size];
+            double[] newWeights = new double[size];
+            System.arraycopy(nodes, 0, table, 0, position);
+            System.arraycopy(nodes, position + 1, table, position, size - position);
+            System.arraycopy(hashes, 0, newHashes, 0, position);
+            System.arraycopy(hashes, position + 1, newHashes, position, size - position);
+            System.arraycopy(weights, 0, newWeights, 0, position);
+            System.arraycopy(weights, position + 1, newWeights, position, size - position);
+            return new Members<>(table, newHashes, newWeights);
+        }
+    }
+}
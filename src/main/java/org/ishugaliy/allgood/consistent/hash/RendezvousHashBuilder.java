@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Implementation of builder pattern for {@link RendezvousHash}
+ *
+ * @param <T> the type of node to be used in {@link RendezvousHash}
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class RendezvousHashBuilder<T extends Node> {
+
+    private String name;
+    private Hasher hash;
+    private ToDoubleFunction<T> weigher = node -> 1;
+    private Collection<T> nodes = Collections.emptyList();
+
+    /**
+     * Set name of the rendezvous hash
+     *
+     * @param name the name of the hash. If no name was set, default name will be generated
+     * @return builder instance
+     * @throws NullPointerException if name is null
+     */
+    public RendezvousHashBuilder<T> name(String name) {
+        Objects.requireNonNull(name, "Name can not be null");
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Set hash function implementation, used to hash keys and nodes.
+     *
+     * @param hash the hash function, default value is {@link DefaultHasher#MURMUR_3}
+     * @return builder instance
+     */
+    public RendezvousHashBuilder<T> hasher(Hasher hash) {
+        this.hash = hash;
+        return this;
+    }
+
+    /**
+     * Set function to get weight of the node. The node receives the share of keys
+     * proportional to its weight. Weight is taken once, when node is added.
+     *
+     * @param weigher the function returning positive weight of the node, by default all weights are 1
+     * @return builder instance
+     * @throws NullPointerException if weigher is null
+     */
+    public RendezvousHashBuilder<T> weigher(ToDoubleFunction<T> weigher) {
+        Objects.requireNonNull(weigher, "Weigher can not be null");
+        this.weigher = weigher;
+        return this;
+    }
+
+    /**
+     * Initialize rendezvous hash with list of nodes
+     *
+     * @param nodes the nodes list to be added
+     * @return builder instance
+     * @throws NullPointerException if nodes list is null
+     */
+    public RendezvousHashBuilder<T> nodes(Collection<T> nodes) {
+        Objects.requireNonNull(nodes, "Nodes list can not be null");
+        this.nodes = nodes;
+        return this;
+    }
+
+    /**
+     * Build rendezvous hash.
+     *
+     * @return the rendezvous hash instance
+     * @throws IllegalArgumentException if weight of any node is not positive finite number
+     */
+    public RendezvousHash<T> build() {
+        name = name != null ? name : generateName();
+        hash = hash != null ? hash : DefaultHasher.MURMUR_3;
+
+        RendezvousHash<T> ring = new RendezvousHash<>(name, hash, weigher);
+        ring.addAll(nodes);
+        return ring;
+    }
+
+    private String generateName() {
+        return "rendezvous_hash_" + new Random().nextInt(10_000);
+    }
+}
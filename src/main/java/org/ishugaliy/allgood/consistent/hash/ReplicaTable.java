@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import java.util.Arrays;
+
+/**
+ * Immutable table of distinct successors: for each ring slot it keeps ordinals of the first
+ * {@code count} distinct owners clockwise, starting from the slot, padded with -1 if the ring
+ * has less distinct owners. Locate of several replicas becomes a single binary search and a copy.
+ * <p>
+ * On ring modification only entries affected by the changed slots are recomputed,
+ * the rest of the entries are copied from the previous table.
+ *
+ * @author Yuriy Shugaliy
+ */
+final class ReplicaTable {
+
+    private final int count;
+    private final int[] entries;
+
+    private ReplicaTable(int count, int[] entries) {
+        this.count = count;
+        this.entries = entries;
+    }
+
+    static ReplicaTable empty(int count) {
+        return new ReplicaTable(count, new int[0]);
+    }
+
+    /**
+     * @return the amount of replicas per slot
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * @param slotIdx the slot index
+     * @param i       the replica index
+     * @return the ordinal of the replica owner or -1 if ring has no more distinct owners
+     */
+    int get(int slotIdx, int i) {
+        return entries[slotIdx * count + i];
+    }
+
+    /**
+     * Build table of the ring with added slots. Entries, which windows of distinct owners reach
+     * an added slot, are recomputed. Windows of preceding slots end not later, so the walk back
+     * from each added slot stops at the first entry, which window does not reach it.
+     *
+     * @param owners   the owners of the new ring
+     * @param previous the index of the slot in the previous ring or -1 for the added slot
+     * @return the new table
+     */
+    ReplicaTable withSlots(int[] owners, int[] previous) {
+        int n = owners.length;
+        int[] table = new int[n * count];
+        int[] windows = new int[n];
+        for (int added = 0; added < n; added++) {
+            if (previous[added] >= 0) {
+                continue;
+            }
+            for (int k = added, steps = 0; steps < n; steps++) {
+                if (windows[k] == 0) {
+                    windows[k] = fill(owners, k, table);
+                }
+                if (windows[k] <= Math.floorMod(added - k, n)) {
+                    break;
+                }
+                k = k > 0 ? k - 1 : n - 1;
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            if (windows[k] == 0) {
+                System.arraycopy(entries, previous[k] * count, table, k * count, count);
+            }
+        }
+        return new ReplicaTable(count, table);
+    }
+
+    /**
+     * Build table of the ring with removed slots. Entries, which contain owners of removed slots, are recomputed,
+     * windows of the other entries do not hold any removed slot.
+     *
+     * @param owners        the owners of the new ring
+     * @param previous      the index of the slot in the previous ring
+     * @param removedOwners the owners of the removed slots
+     * @return the new table
+     */
+    ReplicaTable withoutSlots(int[] owners, int[] previous, int[] removedOwners) {
+        int n = owners.length;
+        int[] table = new int[n * count];
+        for (int k = 0; k < n; k++) {
+            int from = previous[k] * count;
+            if (containsAny(entries, from, from + count, removedOwners)) {
+                fill(owners, k, table);
+            } else {
+                System.arraycopy(entries, from, table, k * count, count);
+            }
+        }
+        return new ReplicaTable(count, table);
+    }
+
+    /**
+     * Fill the entry of the slot with the first distinct owners clockwise.
+     *
+     * @return the amount of slots visited, the ring size if there are less distinct owners than the entry holds
+     */
+    private int fill(int[] owners, int slotIdx, int[] table) {
+        int from = slotIdx * count;
+        int found = 0;
+        int idx = slotIdx;
+        for (int steps = 1; steps <= owners.length; steps++) {
+            int owner = owners[idx];
+            if (!containsAny(table, from, from + found, owner)) {
+                table[from + found++] = owner;
+                if (found == count) {
+                    return steps;
+                }
+            }
+            idx = idx + 1 < owners.length ? idx + 1 : 0;
+        }
+        Arrays.fill(table, from + found, from + count, -1);
+        return owners.length;
+    }
+
+    private static boolean containsAny(int[] values, int from, int to, int... candidates) {
+        for (int i = from; i < to; i++) {
+            for (int candidate : candidates) {
+                if (values[i] == candidate) return true;
+            }
+        }
+        return false;
+    }
+}
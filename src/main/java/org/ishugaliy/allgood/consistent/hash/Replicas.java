@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.Hashes;
+
+import java.util.List;
+
+/**
+ * Distinct replicas walk shared by bucket based consistent hash engines.
+ * The primary node is the bucket of the key hash, each replica is the bucket of derived key hashes,
+ * that are tried until the bucket not taken by previous replicas is found.
+ * After several attempts derived hashes are replaced by the linear scan of buckets, so the search always ends.
+ * <p>
+ * Derived hashes are mixed with negative seeds, so they never match hashes the engines derive
+ * from the key hash by non-negative seeds.
+ *
+ * @author Yuriy Shugaliy
+ */
+final class Replicas {
+
+    // amount of derived hashes to be tried before falling back to the linear bucket scan
+    private static final int MAX_REPLICA_ATTEMPTS = 64;
+
+    private Replicas() {
+    }
+
+    /**
+     * Bucket function of the engine state.
+     *
+     * @param <T> the type of node
+     */
+    interface Lookup<T> {
+
+        /**
+         * @return amount of buckets, working and not working ones
+         */
+        int buckets();
+
+        /**
+         * @param hash the key hash
+         * @return the working bucket of the key hash
+         */
+        int bucket(long hash);
+
+        /**
+         * @param bucket the bucket
+         * @return node of the bucket or <tt>null</tt> if bucket is not working
+         */
+        T node(int bucket);
+    }
+
+    /**
+     * Put primary node and replicas of the key hash into the buffer.
+     *
+     * @param lookup the buckets
+     * @param hash   the key hash
+     * @param out    the buffer
+     * @param count  amount of nodes to be located, not more than amount of working buckets
+     */
+    static <T> void locate(Lookup<T> lookup, long hash, T[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            int bucket = lookup.bucket(hash);
+            for (int attempt = 0; isTaken(lookup.node(bucket), out, i); attempt++) {
+                bucket = replica(lookup, hash, i, attempt);
+            }
+            out[i] = lookup.node(bucket);
+        }
+    }
+
+    /**
+     * Append primary node and replicas of the key hash to the list.
+     *
+     * @param lookup the buckets
+     * @param hash   the key hash
+     * @param count  amount of nodes to be located, not more than amount of working buckets
+     * @param out    the list
+     */
+    static <T> void locate(Lookup<T> lookup, long hash, int count, List<T> out) {
+        int start = out.size();
+        for (int i = 0; i < count; i++) {
+            int bucket = lookup.bucket(hash);
+            for (int attempt = 0; isTaken(lookup.node(bucket), out, start); attempt++) {
+                bucket = replica(lookup, hash, i, attempt);
+            }
+            out.add(lookup.node(bucket));
+        }
+    }
+
+    static boolean isTaken(Object node, Object[] taken, int count) {
+        for (int i = 0; i < count; i++) {
+            if (taken[i] == node) return true;
+        }
+        return false;
+    }
+
+    static boolean isTaken(Object node, List<?> taken, int from) {
+        for (int i = from; i < taken.size(); i++) {
+            if (taken.get(i) == node) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Return working bucket candidate for the replica.
+     */
+    private static int replica(Lookup<?> lookup, long hash, int idx, int attempt) {
+        if (attempt < MAX_REPLICA_ATTEMPTS) {
+            return lookup.bucket(Hashes.mix(hash, -1 - (idx * MAX_REPLICA_ATTEMPTS + attempt)));
+        }
+        int buckets = lookup.buckets();
+        int bucket = (int) ((Integer.toUnsignedLong((int) hash) + attempt) % buckets);
+        while (lookup.node(bucket) == null) {
+            bucket = bucket + 1 < buckets ? bucket + 1 : 0;
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Primitive array helpers shared by array based consistent hash engines.
+ * Slots are kept in sorted {@code long[]} with parallel {@code int[]} values (node ordinals, indexes).
+ *
+ * @author Yuriy Shugaliy
+ */
+final class RingArrays {
+
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    // keys are scattered into 2^BUCKET_BITS buckets by their highest bits before the parallel sort
+    private static final int BUCKET_BITS = 12;
+    private static final int MAX_SORT_CHUNKS = 64;
+
+    private RingArrays() {
+    }
+
+    /**
+     * Find index of the first slot that is greater or equal to the key.
+     *
+     * @param slots the sorted slots
+     * @param size  amount of slots to be searched
+     * @param key   the key
+     * @return index of the ceiling slot or {@code size} if all slots are less than key
+     */
+    static int ceiling(long[] slots, int size, long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = slots[mid];
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find index of the first slot that is greater or equal to the key, knowing that all slots
+     * before {@code from} are less than the key. Exponential search is used, so lookups of sorted keys
+     * take O(log d) each, where d is the distance between their ceilings.
+     *
+     * @param slots the sorted slots
+     * @param from  index to start search from
+     * @param size  amount of slots to be searched
+     * @param key   the key
+     * @return index of the ceiling slot or {@code size} if all slots are less than key
+     */
+    static int ceiling(long[] slots, int from, int size, long key) {
+        int low = from;
+        int step = 1;
+        while (low + step < size && slots[low + step - 1] < key) {
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(low + step, size) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (slots[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Check if sorted slots contain the key.
+     *
+     * @param slots the sorted slots
+     * @param size  amount of slots to be searched
+     * @param key   the key
+     * @return <tt>true</tt> if slot is present
+     */
+    static boolean contains(long[] slots, int size, long key) {
+        int idx = ceiling(slots, size, key);
+        return idx < size && slots[idx] == key;
+    }
+
+    /**
+     * Find the arc {@code (start, end]}, that holds the slot. Arcs have to be sorted by end and not overlap,
+     * only the first arc can wrap around the end of the ring (start greater than end)
+     * or cover the whole ring (start equal to end).
+     *
+     * @param starts the exclusive arc starts
+     * @param ends   the inclusive arc ends
+     * @param size   amount of arcs
+     * @param slot   the slot
+     * @return index of the arc or -1 if no arc holds the slot
+     */
+    static int arc(long[] starts, long[] ends, int size, long slot) {
+        if (size == 0) {
+            return -1;
+        }
+        int idx = ceiling(ends, size, slot);
+        if (idx < size) {
+            return starts[idx] < slot || starts[idx] >= ends[idx] ? idx : -1;
+        }
+        // only the arc wrapping around the end of the ring holds slots after the last end
+        return starts[0] >= ends[0] && slot > starts[0] ? 0 : -1;
+    }
+
+    /**
+     * Sort keys in ascending order moving values together with the keys.
+     * Equal keys are ordered by their values, so the result does not depend on the input order.
+     *
+     * @param keys   the keys to be sorted
+     * @param values the values attached to the keys
+     * @param from   the index of the first element, inclusive
+     * @param to     the index of the last element, exclusive
+     */
+    static void sort(long[] keys, int[] values, int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int mid = (from + to) >>> 1;
+            int pivotIdx = medianOf3(keys, values, from, mid, to - 1);
+            long pivotKey = keys[pivotIdx];
+            int pivotValue = values[pivotIdx];
+
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (less(keys[i], values[i], pivotKey, pivotValue)) i++;
+                while (less(pivotKey, pivotValue, keys[j], values[j])) j--;
+                if (i <= j) {
+                    swap(keys, values, i++, j--);
+                }
+            }
+            // recurse into smaller part, loop over the bigger one
+            if (j - from < to - i) {
+                sort(keys, values, from, j + 1);
+                from = i;
+            } else {
+                sort(keys, values, i, to);
+                to = j + 1;
+            }
+        }
+        insertionSort(keys, values, from, to);
+    }
+
+    /**
+     * Sort keys in ascending order moving values together with the keys, large arrays are sorted in parallel.
+     * Keys are scattered into buckets by their highest bits and the buckets are sorted independently,
+     * so well distributed keys, like hashes, are spread evenly between threads.
+     * The result is the same as of {@link #sort(long[], int[], int, int)}.
+     *
+     * @param keys   the keys to be sorted
+     * @param values the values attached to the keys
+     * @param size   amount of elements to be sorted from the beginning of the arrays
+     */
+    static void parallelSort(long[] keys, int[] values, int size) {
+        if (size < PARALLEL_SORT_THRESHOLD) {
+            sort(keys, values, 0, size);
+            return;
+        }
+        int buckets = 1 << BUCKET_BITS;
+        int chunks = Math.min(MAX_SORT_CHUNKS, ForkJoinPool.getCommonPoolParallelism() * 4);
+        int chunkSize = (size + chunks - 1) / chunks;
+        int[][] cursors = new int[chunks][buckets];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] counts = cursors[chunk];
+            for (int i = chunk * chunkSize, end = Math.min(size, i + chunkSize); i < end; i++) {
+                counts[bucket(keys[i])]++;
+            }
+        });
+        // each chunk writes its part of the bucket after the parts of the previous chunks
+        int[] starts = new int[buckets + 1];
+        int offset = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            starts[bucket] = offset;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int count = cursors[chunk][bucket];
+                cursors[chunk][bucket] = offset;
+                offset += count;
+            }
+        }
+        starts[buckets] = size;
+
+        long[] scatteredKeys = new long[size];
+        int[] scatteredValues = new int[size];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] next = cursors[chunk];
+            for (int i = chunk * chunkSize, end = Math.min(size, i + chunkSize); i < end; i++) {
+                int idx = next[bucket(keys[i])]++;
+                scatteredKeys[idx] = keys[i];
+                scatteredValues[idx] = values[i];
+            }
+        });
+        IntStream.range(0, buckets).parallel()
+                .forEach(bucket -> sort(scatteredKeys, scatteredValues, starts[bucket], starts[bucket + 1]));
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = Math.min(size, chunk * chunkSize);
+            int length = Math.min(size, from + chunkSize) - from;
+            System.arraycopy(scatteredKeys, from, keys, from, length);
+            System.arraycopy(scatteredValues, from, values, from, length);
+        });
+    }
+
+    /**
+     * Merge two sorted runs into destination arrays.
+     *
+     * @return amount of merged elements
+     */
+    static int merge(long[] aKeys, int[] aValues, int aSize,
+                     long[] bKeys, int[] bValues, int bSize,
+                     long[] dstKeys, int[] dstValues) {
+        int a = 0;
+        int b = 0;
+        int d = 0;
+        while (a < aSize && b < bSize) {
+            if (aKeys[a] <= bKeys[b]) {
+                dstKeys[d] = aKeys[a];
+                dstValues[d++] = aValues[a++];
+            } else {
+                dstKeys[d] = bKeys[b];
+                dstValues[d++] = bValues[b++];
+            }
+        }
+        int tail = aSize - a;
+        System.arraycopy(aKeys, a, dstKeys, d, tail);
+        System.arraycopy(aValues, a, dstValues, d, tail);
+        d += tail;
+        tail = bSize - b;
+        System.arraycopy(bKeys, b, dstKeys, d, tail);
+        System.arraycopy(bValues, b, dstValues, d, tail);
+        return d + tail;
+    }
+
+    private static int bucket(long key) {
+        // flipped sign bit maps signed order of keys to unsigned order of buckets
+        return (int) ((key ^ Long.MIN_VALUE) >>> (Long.SIZE - BUCKET_BITS));
+    }
+
+    private static boolean less(long k1, int v1, long k2, int v2) {
+        return k1 < k2 || (k1 == k2 && v1 < v2);
+    }
+
+    private static int medianOf3(long[] keys, int[] values, int a, int b, int c) {
+        if (less(keys[a], values[a], keys[b], values[b])) {
+            if (less(keys[b], values[b], keys[c], values[c])) return b;
+            return less(keys[a], values[a], keys[c], values[c]) ? c : a;
+        }
+        if (less(keys[a], values[a], keys[c], values[c])) return a;
+        return less(keys[b], values[b], keys[c], values[c]) ? c : b;
+    }
+
+    private static void insertionSort(long[] keys, int[] values, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            long key = keys[i];
+            int value = values[i];
+            int j = i - 1;
+            while (j >= from && less(key, value, keys[j], values[j])) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+
+    private static void swap(long[] keys, int[] values, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+
+import java.util.*;
+
+/**
+ * Immutable list of ring arcs, which owner was changed by the ring modification.
+ * <p>
+ * Arc {@code (start, end]} holds the slots greater than start and less or equal to end,
+ * arc with start greater than end wraps around the end of the ring,
+ * arc with start equal to end covers the whole ring.
+ * Arcs are sorted by end slot and do not overlap, adjacent arcs with the same nodes are merged.
+ * Bounds are kept in primitive arrays and nodes are referenced by indexes in a small node table,
+ * so delta of millions of arcs stays compact.
+ * <p>
+ * Node is <tt>null</tt> if there was no owner before the modification, e.g. first nodes were added,
+ * or there is no owner after it, e.g. the last node was removed.
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class RingDelta<T extends Node> {
+
+    private static final RingDelta<?> EMPTY = new RingDelta<>(0, new long[0], new long[0], new int[0], new int[0],
+            new Object[0]);
+
+    private final long version;
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] from;
+    private final int[] to;
+    private final Object[] nodes;
+
+    private RingDelta(long version, long[] starts, long[] ends, int[] from, int[] to, Object[] nodes) {
+        this.version = version;
+        this.starts = starts;
+        this.ends = ends;
+        this.from = from;
+        this.to = to;
+        this.nodes = nodes;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends Node> RingDelta<T> empty() {
+        return (RingDelta<T>) EMPTY;
+    }
+
+    /**
+     * @return the ring version, that was created by the modification
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the amount of arcs
+     */
+    public int size() {
+        return ends.length;
+    }
+
+    public boolean isEmpty() {
+        return ends.length == 0;
+    }
+
+    /**
+     * @param i the arc index
+     * @return the exclusive start slot of the arc
+     */
+    public long getStart(int i) {
+        return starts[i];
+    }
+
+    /**
+     * @param i the arc index
+     * @return the inclusive end slot of the arc
+     */
+    public long getEnd(int i) {
+        return ends[i];
+    }
+
+    /**
+     * @param i the arc index
+     * @return the owner of the arc before the modification or <tt>null</tt> if there was no owner
+     */
+    @SuppressWarnings("unchecked")
+    public T getFrom(int i) {
+        return from[i] >= 0 ? (T) nodes[from[i]] : null;
+    }
+
+    /**
+     * @param i the arc index
+     * @return the owner of the arc after the modification or <tt>null</tt> if there is no owner
+     */
+    @SuppressWarnings("unchecked")
+    public T getTo(int i) {
+        return to[i] >= 0 ? (T) nodes[to[i]] : null;
+    }
+
+    /**
+     * Find the arc, that holds the slot.
+     *
+     * @param slot the slot
+     * @return the arc index or -1 if slot was not moved
+     */
+    public int indexOf(long slot) {
+        return RingArrays.arc(starts, ends, ends.length, slot);
+    }
+
+    /**
+     * Perform the action for each arc in order of end slots.
+     *
+     * @param action the action
+     */
+    public void forEach(ArcConsumer<T> action) {
+        for (int i = 0; i < ends.length; i++) {
+            action.accept(starts[i], ends[i], getFrom(i), getTo(i));
+        }
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", RingDelta.class.getSimpleName() + "[", "]")
+                .add("version= " + version)
+                .add("arcs= " + ends.length)
+                .add("nodes= " + nodes.length)
+                .toString();
+    }
+
+    /**
+     * Consumer of ring arc with its previous and new owners.
+     *
+     * @param <T> the type of node
+     */
+    @FunctionalInterface
+    public interface ArcConsumer<T extends Node> {
+
+        /**
+         * @param start the exclusive start slot of the arc
+         * @param end   the inclusive end slot of the arc
+         * @param from  the owner before the modification or <tt>null</tt>
+         * @param to    the owner after the modification or <tt>null</tt>
+         */
+        void accept(long start, long end, T from, T to);
+    }
+
+    /**
+     * Collects arcs in order of end slots, merging adjacent arcs with the same nodes.
+     *
+     * @param <T> the type of node
+     */
+    static final class Builder<T extends Node> {
+
+        private final Map<T, Integer> table = new HashMap<>();
+        private final List<T> nodes = new ArrayList<>();
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int size;
+
+        /**
+         * Add arc, its end has to be greater than end of the previous arc.
+         */
+        Builder<T> add(long start, long end, T fromNode, T toNode) {
+            int fromIdx = index(fromNode);
+            int toIdx = index(toNode);
+            if (size > 0 && ends[size - 1] == start && from[size - 1] == fromIdx && to[size - 1] == toIdx) {
+                ends[size - 1] = end;
+                return this;
+            }
+            if (size == ends.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            from[size] = fromIdx;
+            to[size++] = toIdx;
+            return this;
+        }
+
+        RingDelta<T> build(long version) {
+            return new RingDelta<>(version, Arrays.copyOf(starts, size), Arrays.copyOf(ends, size),
+                    Arrays.copyOf(from, size), Arrays.copyOf(to, size), nodes.toArray());
+        }
+
+        private int index(T node) {
+            if (node == null) {
+                return -1;
+            }
+            return table.computeIfAbsent(node, n -> {
+                nodes.add(n);
+                return nodes.size() - 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,725 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Immutable view of the hash ring topology at some point of time.
+ * Snapshot keeps ring slots in a sorted {@code long[]} with a parallel {@code int[]} of node ordinals,
+ * and never changes after it was published, so it can be read without any locking.
+ * <p>
+ * Use snapshot for multi-step reads, e.g. several {@link RingSnapshot#locate(String)} calls,
+ * that have to see the same ring topology.
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class RingSnapshot<T extends Node> {
+
+    private final long version;
+    private final Hasher hasher;
+    private final long[] slots;
+    private final int[] owners;
+    private final Object[] nodes;
+    private final Map<T, Integer> ordinals;
+    private final ReplicaTable replicas;
+    private final ConcurrentMap<Long, TokenRanges> ranges = new ConcurrentHashMap<>();
+
+    /**
+     * @param version   the ring version, the snapshot was taken at
+     * @param hasher    the hash function
+     * @param slots     the sorted ring slots
+     * @param owners    the ordinals of slot owners, parallel to slots
+     * @param ordinals  the node to ordinal mapping, must not be modified after the call
+     */
+    RingSnapshot(long version, Hasher hasher, long[] slots, int[] owners, Map<T, Integer> ordinals) {
+        this(version, hasher, slots, owners, ordinals, null);
+    }
+
+    /**
+     * @param version   the ring version, the snapshot was taken at
+     * @param hasher    the hash function
+     * @param slots     the sorted ring slots
+     * @param owners    the ordinals of slot owners, parallel to slots
+     * @param ordinals  the node to ordinal mapping, must not be modified after the call
+     * @param replicas  the table of distinct successors of each slot or <tt>null</tt>
+     */
+    private RingSnapshot(long version, Hasher hasher, long[] slots, int[] owners,
+                         Map<T, Integer> ordinals, ReplicaTable replicas) {
+        this.version = version;
+        this.hasher = hasher;
+        this.slots = slots;
+        this.owners = owners;
+        this.ordinals = ordinals;
+        this.replicas = replicas;
+        this.nodes = buildNodeTable(ordinals);
+    }
+
+    static <T extends Node> RingSnapshot<T> empty(Hasher hasher) {
+        return empty(hasher, 0);
+    }
+
+    /**
+     * Create empty snapshot, which maintains the table of distinct successors,
+     * so locate of up to given amount of nodes is a single binary search.
+     *
+     * @param hasher        the hash function
+     * @param replicaCount  the amount of distinct successors kept per slot, 0 to not maintain the table
+     * @return the empty snapshot
+     */
+    static <T extends Node> RingSnapshot<T> empty(Hasher hasher, int replicaCount) {
+        ReplicaTable replicas = replicaCount > 0 ? ReplicaTable.empty(replicaCount) : null;
+        return new RingSnapshot<>(0, hasher, new long[0], new int[0], Collections.emptyMap(), replicas);
+    }
+
+    /**
+     * Create new snapshot with added slots.
+     *
+     * @param version     the version of new snapshot
+     * @param ordinals    the node to ordinal mapping of new snapshot
+     * @param addedSlots  the sorted slots to be added
+     * @param addedOwners the ordinals of added slot owners
+     * @return the new snapshot
+     */
+    RingSnapshot<T> withSlots(long version, Map<T, Integer> ordinals, long[] addedSlots, int[] addedOwners) {
+        long[] mergedSlots = new long[slots.length + addedSlots.length];
+        int[] mergedOwners = new int[mergedSlots.length];
+        RingArrays.merge(slots, owners, slots.length,
+                addedSlots, addedOwners, addedSlots.length,
+                mergedSlots, mergedOwners);
+        ReplicaTable mergedReplicas = null;
+        if (replicas != null) {
+            int[] previous = new int[mergedSlots.length];
+            for (int i = 0, j = 0; j < mergedSlots.length; j++) {
+                previous[j] = i < slots.length && slots[i] == mergedSlots[j] ? i++ : -1;
+            }
+            mergedReplicas = replicas.withSlots(mergedOwners, previous);
+        }
+        return new RingSnapshot<>(version, hasher, mergedSlots, mergedOwners, ordinals, mergedReplicas);
+    }
+
+    /**
+     * Create new snapshot without slots of the node with given ordinal.
+     *
+     * @param version  the version of new snapshot
+     * @param ordinals the node to ordinal mapping of new snapshot
+     * @param ordinal  the ordinal of removed node
+     * @return the new snapshot
+     */
+    RingSnapshot<T> withoutOwner(long version, Map<T, Integer> ordinals, int ordinal) {
+        int remaining = 0;
+        for (int owner : owners) {
+            if (owner != ordinal) remaining++;
+        }
+        long[] keptSlots = new long[remaining];
+        int[] keptOwners = new int[remaining];
+        int[] previous = new int[remaining];
+        for (int i = 0, j = 0; i < owners.length; i++) {
+            if (owners[i] != ordinal) {
+                previous[j] = i;
+                keptSlots[j] = slots[i];
+                keptOwners[j++] = owners[i];
+            }
+        }
+        ReplicaTable keptReplicas = replicas != null
+                ? replicas.withoutSlots(keptOwners, previous, new int[]{ordinal})
+                : null;
+        return new RingSnapshot<>(version, hasher, keptSlots, keptOwners, ordinals, keptReplicas);
+    }
+
+    /**
+     * Create new snapshot without given slots.
+     *
+     * @param version      the version of new snapshot
+     * @param ordinals     the node to ordinal mapping of new snapshot
+     * @param removedSlots the sorted slots to be removed
+     * @return the new snapshot
+     */
+    RingSnapshot<T> withoutSlots(long version, Map<T, Integer> ordinals, long[] removedSlots) {
+        long[] keptSlots = new long[slots.length - removedSlots.length];
+        int[] keptOwners = new int[keptSlots.length];
+        int[] previous = new int[keptSlots.length];
+        int[] removedOwners = new int[removedSlots.length];
+        int removedCount = 0;
+        for (int i = 0, j = 0, r = 0; i < slots.length; i++) {
+            if (r < removedSlots.length && slots[i] == removedSlots[r]) {
+                r++;
+                if (!contains(removedOwners, removedCount, owners[i])) {
+                    removedOwners[removedCount++] = owners[i];
+                }
+            } else {
+                previous[j] = i;
+                keptSlots[j] = slots[i];
+                keptOwners[j++] = owners[i];
+            }
+        }
+        ReplicaTable keptReplicas = replicas != null
+                ? replicas.withoutSlots(keptOwners, previous, Arrays.copyOf(removedOwners, removedCount))
+                : null;
+        return new RingSnapshot<>(version, hasher, keptSlots, keptOwners, ordinals, keptReplicas);
+    }
+
+    /**
+     * Return version of the ring, the snapshot was taken at.
+     * Version is incremented by each ring modification.
+     *
+     * @return the ring version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Return number of nodes in the snapshot
+     *
+     * @return the nodes count
+     */
+    public int size() {
+        return ordinals.size();
+    }
+
+    /**
+     * Check if snapshot contains node
+     *
+     * @param node the node to be checked
+     * @return <tt>true</tt> if snapshot contains node
+     */
+    public boolean contains(T node) {
+        return node != null && ordinals.containsKey(node);
+    }
+
+    /**
+     * Return all nodes of the snapshot
+     *
+     * @return the unmodifiable nodes set
+     */
+    public Set<T> getNodes() {
+        return Collections.unmodifiableSet(ordinals.keySet());
+    }
+
+    /**
+     * Find node which most matches the key
+     *
+     * @param key the key
+     * @return the node or {@link Optional#empty()} if no node was found
+     */
+    public Optional<T> locate(String key) {
+        return Optional.ofNullable(locateNode(key));
+    }
+
+    /**
+     * Find nodes which most matches the key
+     *
+     * @param key   the key
+     * @param count the amount of nodes to be matched
+     * @return the nodes set or empty set if no nodes were found
+     */
+    public Set<T> locate(String key, int count) {
+        Set<T> res = new HashSet<>();
+        if (key != null && count > 0) {
+            if (count < ordinals.size()) {
+                int idx = ceilingIndex(hash(key));
+                if (precomputed(count)) {
+                    for (int i = 0; i < count && replicas.get(idx, i) >= 0; i++) {
+                        res.add(node(replicas.get(idx, i)));
+                    }
+                    return res;
+                }
+                for (int i = 0; i < slots.length && res.size() < count; i++) {
+                    res.add(node(owners[idx]));
+                    idx = idx + 1 < slots.length ? idx + 1 : 0;
+                }
+            } else {
+                res.addAll(ordinals.keySet());
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Find distinct nodes which most matches the key in clockwise order,
+     * so the first node is the primary one and the next ones are replicas in order they should be tried.
+     * Unlike {@link #locate(String, int)} keeps the order even if all nodes are requested.
+     *
+     * @param key the key
+     * @param n   the amount of nodes to be matched
+     * @return the unmodifiable ordered nodes list or empty list if no nodes were found
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> preferenceList(String key, int n) {
+        n = Math.min(n, ordinals.size());
+        if (key == null || n <= 0 || slots.length == 0) {
+            return Collections.emptyList();
+        }
+        Object[] res = new Object[n];
+        int found = 0;
+        int idx = ceilingIndex(hash(key));
+        if (precomputed(n)) {
+            for (; found < n && replicas.get(idx, found) >= 0; found++) {
+                res[found] = node(replicas.get(idx, found));
+            }
+        } else {
+            OrdinalSet collected = new OrdinalSet(nodes.length);
+            for (int i = 0; i < slots.length && found < n; i++) {
+                if (collected.add(owners[idx])) {
+                    res[found++] = node(owners[idx]);
+                }
+                idx = idx + 1 < slots.length ? idx + 1 : 0;
+            }
+        }
+        return Collections.unmodifiableList((List<T>) (List<?>) Arrays.asList(found < n ? Arrays.copyOf(res, found) : res));
+    }
+
+    /**
+     * Find node which most matches the key, without any allocation.
+     *
+     * @param key the key
+     * @return the node or <tt>null</tt> if no node was found
+     */
+    public T locateNode(String key) {
+        return key != null ? nodeAt(hash(key)) : null;
+    }
+
+    /**
+     * Find node which most matches the char sequence key, without any allocation.
+     * Key is located the same way as the String with the same content.
+     *
+     * @param key the key
+     * @return the node or <tt>null</tt> if no node was found
+     */
+    public T locateNode(CharSequence key) {
+        return key != null ? nodeAt(Math.abs(hasher.hash(key, 0))) : null;
+    }
+
+    /**
+     * Find node which most matches the binary key, without any allocation.
+     *
+     * @param key    the key bytes
+     * @param offset the index of the first key byte
+     * @param length the number of key bytes
+     * @return the node or <tt>null</tt> if no node was found
+     */
+    public T locateNode(byte[] key, int offset, int length) {
+        return key != null ? nodeAt(Math.abs(hasher.hash(key, offset, length, 0))) : null;
+    }
+
+    /**
+     * Find node which most matches the binary key stored in the buffer, without any allocation.
+     * Buffer position and limit are not changed.
+     *
+     * @param key    the buffer with the key, direct or heap one
+     * @param offset the absolute index of the first key byte
+     * @param length the number of key bytes
+     * @return the node or <tt>null</tt> if no node was found
+     */
+    public T locateNode(ByteBuffer key, int offset, int length) {
+        return key != null ? nodeAt(Math.abs(hasher.hash(key, offset, length, 0))) : null;
+    }
+
+    /**
+     * Find distinct nodes which most matches the key, without any allocation.
+     * Nodes are put into the buffer in clockwise order, so the first one is the primary node.
+     *
+     * @param key the key
+     * @param out the buffer to be filled with located nodes, starting from index 0
+     * @return amount of nodes put into the buffer
+     */
+    public int locate(String key, T[] out) {
+        int count = Math.min(out.length, ordinals.size());
+        if (key == null || count == 0) {
+            return 0;
+        }
+        int found = 0;
+        int idx = ceilingIndex(hash(key));
+        if (precomputed(count)) {
+            for (; found < count && replicas.get(idx, found) >= 0; found++) {
+                out[found] = node(replicas.get(idx, found));
+            }
+            return found;
+        }
+        for (int i = 0; i < slots.length && found < count; i++) {
+            T node = node(owners[idx]);
+            if (!collected(out, found, node)) {
+                out[found++] = node;
+            }
+            idx = idx + 1 < slots.length ? idx + 1 : 0;
+        }
+        return found;
+    }
+
+    /**
+     * Find distinct nodes which most matches the key and append them to the list in clockwise order.
+     * No allocation is made, except the ones made by the list itself.
+     *
+     * @param key   the key
+     * @param count the amount of nodes to be matched
+     * @param out   the list to which located nodes are appended
+     * @return amount of nodes appended to the list
+     */
+    public int locate(String key, int count, List<T> out) {
+        count = Math.min(count, ordinals.size());
+        if (key == null || count <= 0) {
+            return 0;
+        }
+        int start = out.size();
+        int found = 0;
+        int idx = ceilingIndex(hash(key));
+        if (precomputed(count)) {
+            for (; found < count && replicas.get(idx, found) >= 0; found++) {
+                out.add(node(replicas.get(idx, found)));
+            }
+            return found;
+        }
+        for (int i = 0; i < slots.length && found < count; i++) {
+            T node = node(owners[idx]);
+            if (!collected(out, start, node)) {
+                out.add(node);
+                found++;
+            }
+            idx = idx + 1 < slots.length ? idx + 1 : 0;
+        }
+        return found;
+    }
+
+    /**
+     * Locate nodes of all keys and group the keys by located nodes.
+     * Keys are hashed and sorted once, and located in a single pass over the ring, see {@link #locateAll(String[], int[])}.
+     * Null keys are skipped.
+     *
+     * @param keys the keys to be located
+     * @return the keys grouped by located nodes, in the iteration order of the collection
+     */
+    public Map<T, List<String>> locateAll(Collection<String> keys) {
+        String[] array = keys.toArray(new String[0]);
+        int[] located = new int[array.length];
+        locateAll(array, located);
+        Map<T, List<String>> res = new HashMap<>();
+        for (int i = 0; i < array.length; i++) {
+            if (located[i] >= 0) {
+                res.computeIfAbsent(node(located[i]), n -> new ArrayList<>()).add(array[i]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Locate nodes of all keys and write their ordinals into the buffer,
+     * ordinals are resolved to nodes by {@link #getNode(int)} of the same snapshot.
+     * <p>
+     * Keys are hashed once and sorted by hash, then ceiling slots are found in one pass over the ring,
+     * each search starts from the ceiling of the previous hash.
+     *
+     * @param keys the keys to be located
+     * @param out  the buffer for node ordinals, parallel to keys, -1 is written for null keys or empty ring
+     * @throws IllegalArgumentException if buffer is shorter than keys array
+     */
+    public void locateAll(String[] keys, int[] out) {
+        if (out.length < keys.length) {
+            throw new IllegalArgumentException("Output buffer is shorter than keys array");
+        }
+        locateRange(keys, 0, keys.length, out);
+    }
+
+    /**
+     * Locate nodes of all keys in parallel and write their ordinals into the buffer.
+     * Keys are split into chunks by fork/join tasks, and each chunk is located
+     * as by {@link #locateAll(String[], int[])} into its own range of the buffer.
+     *
+     * @param keys the keys to be located
+     * @param out  the buffer for node ordinals, parallel to keys, -1 is written for null keys or empty ring
+     * @param pool the pool to run tasks in
+     * @throws IllegalArgumentException if buffer is shorter than keys array
+     */
+    public void locateAll(String[] keys, int[] out, ForkJoinPool pool) {
+        if (out.length < keys.length) {
+            throw new IllegalArgumentException("Output buffer is shorter than keys array");
+        }
+        pool.invoke(new LocateTask(keys, 0, keys.length, out));
+    }
+
+    /**
+     * Locate nodes of all keys of the stream and group the keys by located nodes.
+     * Parallel stream is split into per-thread groups, merged at the end. Null keys are skipped.
+     *
+     * @param keys the keys to be located, sequential or parallel stream
+     * @return the keys grouped by located nodes
+     */
+    public Map<T, List<String>> locateAll(Stream<String> keys) {
+        return keys.collect(Collector.of(
+                HashMap::new,
+                (Map<T, List<String>> groups, String key) -> {
+                    T node = locateNode(key);
+                    if (node != null) {
+                        groups.computeIfAbsent(node, n -> new ArrayList<>()).add(key);
+                    }
+                },
+                (left, right) -> {
+                    right.forEach((node, part) -> left.merge(node, part, (a, b) -> {
+                        a.addAll(b);
+                        return a;
+                    }));
+                    return left;
+                }));
+    }
+
+    /**
+     * Return node by the ordinal, written by {@link #locateAll(String[], int[])}.
+     *
+     * @param ordinal the node ordinal
+     * @return the node
+     */
+    public T getNode(int ordinal) {
+        return node(ordinal);
+    }
+
+    /**
+     * Return arcs of the ring, which keys are located to the node (primary ranges).
+     * Ranges are computed once per snapshot.
+     *
+     * @param node the node
+     * @return the ranges, empty if node is not in the snapshot
+     */
+    public TokenRanges ranges(T node) {
+        return ranges(node, 1);
+    }
+
+    /**
+     * Return arcs of the ring, which keys have the node among their first {@code replicationFactor}
+     * distinct nodes clockwise, as returned by {@link #locate(String, int)}.
+     * Ranges are computed once per snapshot for each node and replication factor.
+     *
+     * @param node              the node
+     * @param replicationFactor the amount of replicas of each key
+     * @return the ranges, empty if node is not in the snapshot
+     * @throws IllegalArgumentException if replication factor is less than 1
+     */
+    public TokenRanges ranges(T node, int replicationFactor) {
+        if (replicationFactor < 1) {
+            throw new IllegalArgumentException("Replication factor can not be less than 1");
+        }
+        Integer ordinal = node != null ? ordinals.get(node) : null;
+        if (ordinal == null) {
+            return TokenRanges.EMPTY;
+        }
+        int rf = Math.min(replicationFactor, ordinals.size());
+        return ranges.computeIfAbsent(((long) ordinal << 32) | rf, k -> {
+            int[] seen = new int[rf - 1];
+            return TokenRanges.of(slots, idx -> isReplica(idx, ordinal, seen));
+        });
+    }
+
+    /**
+     * Return fraction of the ring, which keys are located to the node.
+     *
+     * @param node the node
+     * @return the fraction in range [0, 1], 0 if node is not in the snapshot
+     */
+    public double ownershipFraction(T node) {
+        return ranges(node).getFraction();
+    }
+
+    /**
+     * Find the first node clockwise from the slot, which is not saturated.
+     * If all nodes are saturated, the owner of the slot is returned.
+     */
+    T locateUnsaturated(long slot, NodeLoads<T> loads) {
+        if (slots.length == 0) {
+            return null;
+        }
+        long capacity = loads.capacity(ordinals.size());
+        int idx = ceilingIndex(slot);
+        for (int i = 0; i < slots.length; i++) {
+            T node = node(owners[idx]);
+            if (!loads.isSaturated(node, capacity)) {
+                return node;
+            }
+            idx = idx + 1 < slots.length ? idx + 1 : 0;
+        }
+        return nodeAt(slot);
+    }
+
+    /**
+     * Check if the node is among the first distinct owners clockwise from the slot index,
+     * the amount of other owners to be checked is defined by the size of the buffer.
+     */
+    private boolean isReplica(int idx, int ordinal, int[] seen) {
+        int found = 0;
+        for (int i = 0; i < owners.length; i++) {
+            int owner = owners[idx];
+            if (owner == ordinal) {
+                return true;
+            }
+            if (!contains(seen, found, owner)) {
+                if (found == seen.length) {
+                    return false;
+                }
+                seen[found++] = owner;
+            }
+            idx = idx + 1 < owners.length ? idx + 1 : 0;
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    private void locateRange(String[] keys, int from, int to, int[] out) {
+        long[] hashes = new long[to - from];
+        int[] indexes = new int[hashes.length];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            out[i] = -1;
+            if (keys[i] != null && slots.length > 0) {
+                hashes[size] = hash(keys[i]);
+                indexes[size++] = i;
+            }
+        }
+        RingArrays.sort(hashes, indexes, 0, size);
+        int idx = 0;
+        for (int i = 0; i < size; i++) {
+            idx = RingArrays.ceiling(slots, idx, slots.length, hashes[i]);
+            out[indexes[i]] = owners[idx < slots.length ? idx : 0];
+        }
+    }
+
+    long[] slots() {
+        return slots;
+    }
+
+    Map<T, Integer> ordinals() {
+        return ordinals;
+    }
+
+    int[] owners() {
+        return owners;
+    }
+
+    @SuppressWarnings("unchecked")
+    T node(int ordinal) {
+        return (T) nodes[ordinal];
+    }
+
+    Hasher hasher() {
+        return hasher;
+    }
+
+    private static boolean collected(Object[] nodes, int size, Object node) {
+        for (int i = 0; i < size; i++) {
+            if (nodes[i] == node) return true;
+        }
+        return false;
+    }
+
+    private static boolean collected(List<?> nodes, int from, Object node) {
+        for (int i = from; i < nodes.size(); i++) {
+            if (nodes.get(i) == node) return true;
+        }
+        return false;
+    }
+
+    private T nodeAt(long slot) {
+        return slots.length > 0 ? node(owners[ceilingIndex(slot)]) : null;
+    }
+
+    private boolean precomputed(int count) {
+        return replicas != null && count <= replicas.count() && slots.length > 0;
+    }
+
+    private int ceilingIndex(long slot) {
+        int idx = RingArrays.ceiling(slots, slots.length, slot);
+        return idx < slots.length ? idx : 0;
+    }
+
+    private long hash(String key) {
+        return Math.abs(hasher.hash(key, 0));
+    }
+
+    private static Object[] buildNodeTable(Map<?, Integer> ordinals) {
+        int length = 0;
+        for (int ordinal : ordinals.values()) {
+            length = Math.max(length, ordinal + 1);
+        }
+        Object[] table = new Object[length];
+        ordinals.forEach((node, ordinal) -> table[ordinal] = node);
+        return table;
+    }
+
+    /**
+     * Task locating the range of keys, split in halves until the range is small enough.
+     */
+    private final class LocateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 8192;
+
+        private final String[] keys;
+        private final int from;
+        private final int to;
+        private final int[] out;
+
+        private LocateTask(String[] keys, int from, int to, int[] out) {
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                locateRange(keys, from, to, out);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new LocateTask(keys, from, mid, out), new LocateTask(keys, mid, to, out));
+            }
+        }
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", RingSnapshot.class.getSimpleName() + "[", "]")
+                .add("version= " + version)
+                .add("nodes= " + ordinals.size())
+                .add("slots= " + slots.length)
+                .toString();
+    }
+}
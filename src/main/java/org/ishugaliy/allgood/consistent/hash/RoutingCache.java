@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded concurrent cache of key to node routing results.
+ * <p>
+ * Cache is a fixed-size table of 4-way sets, set is chosen by {@link String#hashCode()} of the key,
+ * so the key is not hashed by the ring hash function on a hit. Each entry carries the ring epoch (version),
+ * it was located at, so all entries are invalidated by the ring modification at once, just by the epoch change.
+ * Stale entries are replaced first, otherwise the victim is chosen by CLOCK within the set:
+ * entries hit since the last sweep get a second chance.
+ * <p>
+ * Entries are immutable, so races between readers and writers can only cause extra misses, never wrong results.
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+final class RoutingCache<T> {
+
+    private static final int WAYS = 4;
+
+    private final AtomicReferenceArray<Entry<T>> entries;
+    private final byte[] referenced;
+    private final byte[] hands;
+    private final int setMask;
+    private final int setShift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity the minimal amount of entries, rounded up to the power of two, but not less than 4
+     */
+    RoutingCache(int capacity) {
+        int minSets = (capacity + WAYS - 1) / WAYS;
+        int sets = minSets > 1 ? Integer.highestOneBit(minSets - 1) << 1 : 1;
+        this.entries = new AtomicReferenceArray<>(sets * WAYS);
+        this.referenced = new byte[sets * WAYS];
+        this.hands = new byte[sets];
+        this.setMask = sets - 1;
+        this.setShift = Integer.SIZE - Integer.numberOfTrailingZeros(sets);
+    }
+
+    /**
+     * Get node of the key located at the given epoch
+     *
+     * @param key   the key
+     * @param epoch the current ring epoch
+     * @return the node or <tt>null</tt> if key is not cached for the epoch
+     */
+    T get(String key, long epoch) {
+        int hash = key.hashCode();
+        int from = set(hash) * WAYS;
+        for (int i = from; i < from + WAYS; i++) {
+            Entry<T> entry = entries.get(i);
+            if (entry != null && entry.epoch == epoch && entry.hash == hash && entry.key.equals(key)) {
+                if (referenced[i] == 0) {
+                    referenced[i] = 1;
+                }
+                hits.increment();
+                return entry.node;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache node of the key located at the given epoch
+     *
+     * @param key   the key
+     * @param node  the located node
+     * @param epoch the ring epoch, the node was located at
+     */
+    void put(String key, T node, long epoch) {
+        int hash = key.hashCode();
+        int set = set(hash);
+        int from = set * WAYS;
+        int victim = -1;
+        for (int i = from; i < from + WAYS && victim < 0; i++) {
+            Entry<T> entry = entries.get(i);
+            if (entry == null || entry.epoch != epoch) {
+                victim = i;
+            }
+        }
+        if (victim < 0) {
+            int hand = hands[set];
+            for (int step = 0; step < WAYS * 2 && victim < 0; step++) {
+                int i = from + (hand + step) % WAYS;
+                if (referenced[i] == 0) {
+                    victim = i;
+                    hands[set] = (byte) ((hand + step + 1) % WAYS);
+                } else {
+                    referenced[i] = 0;
+                }
+            }
+            victim = victim >= 0 ? victim : from + hand;
+            evictions.increment();
+        }
+        referenced[victim] = 0;
+        entries.set(victim, new Entry<>(key, hash, node, epoch));
+    }
+
+    /**
+     * @return the maximal amount of entries
+     */
+    int capacity() {
+        return entries.length();
+    }
+
+    /**
+     * @param epoch the current ring epoch
+     * @return the statistics of the cache
+     */
+    RoutingCacheStats stats(long epoch) {
+        int size = 0;
+        for (int i = 0; i < entries.length(); i++) {
+            Entry<T> entry = entries.get(i);
+            if (entry != null && entry.epoch == epoch) {
+                size++;
+            }
+        }
+        return new RoutingCacheStats(capacity(), size, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    // Fibonacci hashing: the upper bits of the product, as many as the table width takes
+    private int set(int hash) {
+        return (hash * 0x9E3779B9 >>> setShift) & setMask;
+    }
+
+    private static final class Entry<T> {
+        private final String key;
+        private final int hash;
+        private final T node;
+        private final long epoch;
+
+        private Entry(String key, int hash, T node, long epoch) {
+            this.key = key;
+            this.hash = hash;
+            this.node = node;
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+
+import java.util.StringJoiner;
+
+/**
+ * Point-in-time statistics of the ring routing cache, see {@link HashRingBuilder#routingCache(int)}.
+ * Counters are accumulated since the ring was created.
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class RoutingCacheStats {
+
+    static final RoutingCacheStats DISABLED = new RoutingCacheStats(0, 0, 0, 0, 0);
+
+    private final int capacity;
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    RoutingCacheStats(int capacity, int size, long hits, long misses, long evictions) {
+        this.capacity = capacity;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * @return the maximal amount of cached keys, 0 if cache is disabled
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the amount of keys cached for the current ring epoch
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the amount of valid entries replaced by the other keys
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the share of lookups served from the cache, 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups > 0 ? (double) hits / lookups : 0;
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", RoutingCacheStats.class.getSimpleName() + "[", "]")
+                .add("capacity= " + capacity)
+                .add("size= " + size)
+                .add("hits= " + hits)
+                .add("misses= " + misses)
+                .add("evictions= " + evictions)
+                .toString();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import java.util.*;
+
+/**
+ * Immutable sorted map over parallel arrays of distinct keys in ascending order and their values.
+ * Used to build {@link TreeMap} in linear time, by its {@link TreeMap#TreeMap(SortedMap)} constructor.
+ * Sub map views share the arrays and are bounded by range of indexes.
+ *
+ * @param <V> the type of values
+ *
+ * @author Yuriy Shugaliy
+ */
+final class SortedArrayMap<V> extends AbstractMap<Long, V> implements SortedMap<Long, V> {
+
+    private final long[] keys;
+    private final V[] values;
+    private final int from;
+    private final int to;
+
+    /**
+     * @param keys   the distinct keys in ascending order
+     * @param values the values of keys
+     */
+    SortedArrayMap(long[] keys, V[] values) {
+        this(keys, values, 0, keys.length);
+    }
+
+    private SortedArrayMap(long[] keys, V[] values, int from, int to) {
+        this.keys = keys;
+        this.values = values;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        int idx = indexOf(key);
+        return idx >= 0 ? values[idx] : null;
+    }
+
+    @Override
+    public Set<Entry<Long, V>> entrySet() {
+        return new AbstractSet<Entry<Long, V>>() {
+            @Override
+            public Iterator<Entry<Long, V>> iterator() {
+                return new Iterator<Entry<Long, V>>() {
+                    private int next = from;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < to;
+                    }
+
+                    @Override
+                    public Entry<Long, V> next() {
+                        if (next >= to) throw new NoSuchElementException();
+                        int idx = next++;
+                        return new SimpleImmutableEntry<>(keys[idx], values[idx]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return null;
+    }
+
+    @Override
+    public SortedMap<Long, V> subMap(Long fromKey, Long toKey) {
+        if (fromKey > toKey) {
+            throw new IllegalArgumentException("fromKey [" + fromKey + "] is greater than toKey [" + toKey + "]");
+        }
+        return new SortedArrayMap<>(keys, values, lowerBound(fromKey), lowerBound(toKey));
+    }
+
+    @Override
+    public SortedMap<Long, V> headMap(Long toKey) {
+        return new SortedArrayMap<>(keys, values, from, lowerBound(toKey));
+    }
+
+    @Override
+    public SortedMap<Long, V> tailMap(Long fromKey) {
+        return new SortedArrayMap<>(keys, values, lowerBound(fromKey), to);
+    }
+
+    @Override
+    public Long firstKey() {
+        if (from == to) throw new NoSuchElementException();
+        return keys[from];
+    }
+
+    @Override
+    public Long lastKey() {
+        if (from == to) throw new NoSuchElementException();
+        return keys[to - 1];
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof Long)) {
+            return -1;
+        }
+        int idx = Arrays.binarySearch(keys, from, to, (Long) key);
+        return idx >= 0 ? idx : -1;
+    }
+
+    /**
+     * @return the index of the first key not less than the given one, within bounds of the view
+     */
+    private int lowerBound(long key) {
+        int idx = Arrays.binarySearch(keys, from, to, key);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable sorted list of ring arcs (token ranges), owned by a node.
+ * <p>
+ * Arc {@code (start, end]} holds the slots greater than start and less or equal to end,
+ * arc with start greater than end wraps around the end of the ring,
+ * arc with start equal to end covers the whole ring.
+ * Arcs are sorted by end slot, adjacent arcs are merged.
+ * Ring slots are in range {@code [0, Long.MAX_VALUE]}, so the ring has {@code 2^63} slots.
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class TokenRanges {
+
+    private static final double RING_SIZE = 0x1.0p63;
+    static final TokenRanges EMPTY = new TokenRanges(new long[0], new long[0]);
+
+    private final long[] starts;
+    private final long[] ends;
+
+    private TokenRanges(long[] starts, long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * @return the amount of arcs
+     */
+    public int size() {
+        return ends.length;
+    }
+
+    public boolean isEmpty() {
+        return ends.length == 0;
+    }
+
+    /**
+     * @param i the arc index
+     * @return the exclusive start slot of the arc
+     */
+    public long getStart(int i) {
+        return starts[i];
+    }
+
+    /**
+     * @param i the arc index
+     * @return the inclusive end slot of the arc
+     */
+    public long getEnd(int i) {
+        return ends[i];
+    }
+
+    /**
+     * Check if any arc holds the slot.
+     *
+     * @param slot the slot
+     * @return <tt>true</tt> if slot is in the ranges
+     */
+    public boolean contains(long slot) {
+        return RingArrays.arc(starts, ends, ends.length, slot) >= 0;
+    }
+
+    /**
+     * Return fraction of the ring covered by the arcs.
+     *
+     * @return the fraction in range [0, 1]
+     */
+    public double getFraction() {
+        double covered = 0;
+        for (int i = 0; i < ends.length; i++) {
+            long start = starts[i];
+            long end = ends[i];
+            if (start < end) {
+                covered += end - start;
+            } else if (start > end) {
+                covered += (double) (Long.MAX_VALUE - start) + end + 1;
+            } else {
+                return 1;
+            }
+        }
+        return covered / RING_SIZE;
+    }
+
+    /**
+     * Return arcs as pairs of slots {@code [start0, end0, start1, end1, ...]}.
+     *
+     * @return the new array of arc bounds
+     */
+    public long[] toArray() {
+        long[] pairs = new long[ends.length * 2];
+        for (int i = 0; i < ends.length; i++) {
+            pairs[2 * i] = starts[i];
+            pairs[2 * i + 1] = ends[i];
+        }
+        return pairs;
+    }
+
+    /**
+     * Collect arcs of the ring, which slots match the filter.
+     * Arc of the slot starts at the previous slot, arc of the first slot wraps around the end of the ring.
+     *
+     * @param slots  the sorted ring slots
+     * @param filter the filter of slot indexes
+     * @return the merged arcs
+     */
+    static TokenRanges of(long[] slots, IntPredicate filter) {
+        int n = slots.length;
+        Builder ranges = new Builder();
+        for (int i = 0; i < n; i++) {
+            if (filter.test(i)) {
+                ranges.add(slots[i > 0 ? i - 1 : n - 1], slots[i]);
+            }
+        }
+        return ranges.build();
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", TokenRanges.class.getSimpleName() + "[", "]")
+                .add("arcs= " + ends.length)
+                .add("fraction= " + getFraction())
+                .toString();
+    }
+
+    /**
+     * Collects arcs in order of end slots, merging adjacent ones.
+     * The first arc can wrap around the end of the ring and is joined with the last one, if they are adjacent.
+     */
+    static final class Builder {
+
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+        private int size;
+
+        /**
+         * Add arc, its end has to be greater than end of the previous arc.
+         */
+        Builder add(long start, long end) {
+            if (size > 0 && ends[size - 1] == start) {
+                ends[size - 1] = end;
+                return this;
+            }
+            if (size == ends.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size++] = end;
+            return this;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        TokenRanges build() {
+            int n = size;
+            long first = n > 0 ? starts[0] : 0;
+            // join the last arc with the first one, wrapping around the end of the ring
+            if (n > 1 && first > ends[0] && ends[n - 1] == first) {
+                first = starts[--n];
+            }
+            if (n == 0) {
+                return EMPTY;
+            }
+            long[] rangeStarts = Arrays.copyOf(starts, n);
+            rangeStarts[0] = first;
+            return new TokenRanges(rangeStarts, Arrays.copyOf(ends, n));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.ishugaliy.allgood.consistent.hash.node.ServerNode;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Topology-aware replica selection over the ring snapshots.
+ * Replicas of the key are taken from distinct zones, e.g. datacenters, availability zones or racks:
+ * the first node clockwise of each zone, in clockwise order, so the primary replica is the same as located by the ring.
+ * If more replicas are requested than zones are present, the rest of the replicas are the next distinct nodes clockwise.
+ * <p>
+ * Locator keeps sorted slot positions of each zone, so the next node of every zone is found
+ * by a binary search instead of the walk over the ring.
+ * Index is built once per snapshot, and rebuilt when the ring publishes new one.
+ *
+ * <pre>
+ *     ZoneAwareLocator&lt;ServerNode&gt; locator = ZoneAwareLocator.of(ring::snapshot);
+ *     List&lt;ServerNode&gt; replicas = locator.locate("your_key", 3);
+ * </pre>
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class ZoneAwareLocator<T extends Node> {
+
+    private final Supplier<RingSnapshot<T>> snapshots;
+    private final Function<? super T, String> zoneOf;
+    private volatile ZoneIndex<T> index;
+
+    private ZoneAwareLocator(Supplier<RingSnapshot<T>> snapshots, Function<? super T, String> zoneOf) {
+        this.snapshots = Objects.requireNonNull(snapshots, "Snapshots supplier can not be null");
+        this.zoneOf = Objects.requireNonNull(zoneOf, "Zone extractor can not be null");
+    }
+
+    /**
+     * Create locator with server datacenters as zones, see {@link ServerNode#getDc()}
+     *
+     * @param snapshots the supplier of current ring snapshot, e.g. {@code ring::snapshot}
+     * @param <T>       the type of node
+     * @return the locator instance
+     * @throws NullPointerException if snapshots supplier is null
+     */
+    public static <T extends ServerNode> ZoneAwareLocator<T> of(Supplier<RingSnapshot<T>> snapshots) {
+        return new ZoneAwareLocator<>(snapshots, ServerNode::getDc);
+    }
+
+    /**
+     * Create locator with custom zones of nodes
+     *
+     * @param snapshots the supplier of current ring snapshot, e.g. {@code ring::snapshot}
+     * @param zoneOf    the function returning zone of the node
+     * @param <T>       the type of node
+     * @return the locator instance
+     * @throws NullPointerException if snapshots supplier or zone extractor is null
+     */
+    public static <T extends Node> ZoneAwareLocator<T> of(Supplier<RingSnapshot<T>> snapshots,
+                                                          Function<? super T, String> zoneOf) {
+        return new ZoneAwareLocator<>(snapshots, zoneOf);
+    }
+
+    /**
+     * Find distinct nodes which most matches the key, spread across distinct zones
+     *
+     * @param key   the key
+     * @param count the amount of nodes to be matched
+     * @return the nodes in clockwise order, the nodes of distinct zones go first,
+     * or empty list if no nodes were found
+     */
+    public List<T> locate(String key, int count) {
+        List<T> res = new ArrayList<>();
+        if (key != null && count > 0) {
+            index().locate(key, count, res);
+        }
+        return res;
+    }
+
+    /**
+     * Return the zones of the current ring snapshot
+     *
+     * @return the unmodifiable zones set
+     */
+    public Set<String> getZones() {
+        return Collections.unmodifiableSet(index().zones.keySet());
+    }
+
+    private ZoneIndex<T> index() {
+        RingSnapshot<T> snapshot = snapshots.get();
+        ZoneIndex<T> current = index;
+        if (current == null || current.snapshot != snapshot) {
+            current = new ZoneIndex<>(snapshot, zoneOf);
+            index = current;
+        }
+        return current;
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", ZoneAwareLocator.class.getSimpleName() + "[", "]")
+                .add("zones= " + getZones())
+                .toString();
+    }
+
+    /**
+     * Sorted slot indexes of each zone of the snapshot.
+     */
+    private static final class ZoneIndex<T extends Node> {
+
+        private final RingSnapshot<T> snapshot;
+        private final Map<String, Integer> zones = new LinkedHashMap<>();
+        private final int[][] positions;
+
+        private ZoneIndex(RingSnapshot<T> snapshot, Function<? super T, String> zoneOf) {
+            this.snapshot = snapshot;
+            int[] owners = snapshot.owners();
+            Map<Integer, Integer> ownerZones = new HashMap<>();
+            int[] slotZones = new int[owners.length];
+            int[] sizes = new int[owners.length];
+            for (int i = 0; i < owners.length; i++) {
+                int zone = ownerZones.computeIfAbsent(owners[i],
+                        owner -> zones.computeIfAbsent(zoneOf.apply(snapshot.node(owner)), z -> zones.size()));
+                slotZones[i] = zone;
+                sizes[zone]++;
+            }
+            positions = new int[zones.size()][];
+            for (int zone = 0; zone < positions.length; zone++) {
+                positions[zone] = new int[sizes[zone]];
+            }
+            int[] filled = new int[positions.length];
+            for (int i = 0; i < owners.length; i++) {
+                positions[slotZones[i]][filled[slotZones[i]]++] = i;
+            }
+        }
+
+        private void locate(String key, int count, List<T> out) {
+            long[] slots = snapshot.slots();
+            int[] owners = snapshot.owners();
+            if (slots.length == 0) {
+                return;
+            }
+            int idx = RingArrays.ceiling(slots, slots.length, Math.abs(snapshot.hasher().hash(key, 0)));
+            idx = idx < slots.length ? idx : 0;
+
+            // the first slot of each zone clockwise, ordered by distance from the key
+            long[] distances = new long[positions.length];
+            int[] zoneSlots = new int[positions.length];
+            for (int zone = 0; zone < positions.length; zone++) {
+                int[] zonePositions = positions[zone];
+                int p = Arrays.binarySearch(zonePositions, idx);
+                p = p >= 0 ? p : -p - 1;
+                zoneSlots[zone] = zonePositions[p < zonePositions.length ? p : 0];
+                distances[zone] = Math.floorMod(zoneSlots[zone] - idx, slots.length);
+            }
+            RingArrays.sort(distances, zoneSlots, 0, positions.length);
+            for (int i = 0; i < zoneSlots.length && out.size() < count; i++) {
+                out.add(snapshot.node(owners[zoneSlots[i]]));
+            }
+            count = Math.min(count, snapshot.size());
+            for (int i = 0; i < slots.length && out.size() < count; i++) {
+                T node = snapshot.node(owners[idx]);
+                if (!out.contains(node)) {
+                    out.add(node);
+                }
+                idx = idx + 1 < slots.length ? idx + 1 : 0;
+            }
+        }
+    }
+}
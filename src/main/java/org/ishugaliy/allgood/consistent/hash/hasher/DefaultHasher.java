@@ -24,12 +24,16 @@
 
 package org.ishugaliy.allgood.consistent.hash.hasher;
 
+import net.openhft.hashing.Access;
 import net.openhft.hashing.LongHashFunction;
 
-import java.util.function.Function;
+import java.nio.ByteBuffer;
+import java.util.function.LongFunction;
 
 /**
  * List of default hash functions.
+ * Hash functions for seeds in range [0, 64) are created once and reused,
+ * so hashing does not allocate.
  *
  * @author Yuriy Shugaliy
  */
@@ -64,14 +68,50 @@ public enum DefaultHasher implements Hasher {
      */
     XX_HASH(LongHashFunction::xx);
 
-    private final Function<Integer, LongHashFunction> buildHashFunction;
+    static final int CACHED_SEEDS = 64;
 
-    DefaultHasher(Function<Integer, LongHashFunction> buildHashFunction) {
+    private final LongFunction<LongHashFunction> buildHashFunction;
+    private final LongHashFunction[] seededFunctions;
+
+    DefaultHasher(LongFunction<LongHashFunction> buildHashFunction) {
         this.buildHashFunction = buildHashFunction;
+        this.seededFunctions = new LongHashFunction[CACHED_SEEDS];
+        for (int seed = 0; seed < CACHED_SEEDS; seed++) {
+            seededFunctions[seed] = buildHashFunction.apply(seed);
+        }
     }
 
     @Override
     public long hash(String key, int seed) {
-        return buildHashFunction.apply(seed).hashChars(key);
+        return function(seed).hashChars(key);
+    }
+
+    @Override
+    public long hash(CharSequence key, int seed) {
+        if (key instanceof String) {
+            return function(seed).hashChars((String) key);
+        }
+        if (key instanceof StringBuilder) {
+            return function(seed).hashChars((StringBuilder) key);
+        }
+        return function(seed).hash(key, Access.toNativeCharSequence(), 0, key.length() * 2L);
+    }
+
+    @Override
+    public long hash(byte[] key, int offset, int length, int seed) {
+        return function(seed).hashBytes(key, offset, length);
+    }
+
+    @Override
+    public long hash(ByteBuffer key, int offset, int length, int seed) {
+        if (key.hasArray()) {
+            return function(seed).hashBytes(key.array(), key.arrayOffset() + offset, length);
+        }
+        // read direct buffers via public ByteBuffer api, as native address access is not available on JDK 9+
+        return function(seed).hash(key, Access.toByteBuffer(), offset, length);
+    }
+
+    private LongHashFunction function(int seed) {
+        return seed >= 0 && seed < CACHED_SEEDS ? seededFunctions[seed] : buildHashFunction.apply(seed);
     }
 }
@@ -24,9 +24,17 @@
 
 package org.ishugaliy.allgood.consistent.hash.hasher;
 
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
 /**
- * Hash function base interface
+ * Hash function base interface.
+ * <p>
+ * Besides {@link String} keys, hasher accepts any {@link CharSequence} and binary keys.
+ * Char sequences are hashed the same way as strings with the same content.
+ * Binary keys are hashed over their raw bytes, so byte and String representations
+ * of the same key are not interchangeable.
  *
  * @author Yuriy Shugaliy
  */
@@ -42,4 +50,50 @@ public interface Hasher {
      * @return calculated hash.
      */
     long hash(String key, int seed);
+
+    /**
+     * Calculate hash of provided char sequence with seed (salt).
+     * Result is equal to the hash of the String with the same content.
+     *
+     * @param key  the key to be hashed
+     * @param seed the seed (salt)
+     * @return calculated hash.
+     */
+    default long hash(CharSequence key, int seed) {
+        return hash(key.toString(), seed);
+    }
+
+    /**
+     * Calculate hash of the bytes range with seed (salt)
+     *
+     * @param key    the bytes to be hashed
+     * @param offset the index of the first byte to be hashed
+     * @param length the number of bytes to be hashed
+     * @param seed   the seed (salt)
+     * @return calculated hash.
+     */
+    default long hash(byte[] key, int offset, int length, int seed) {
+        return hash(new String(key, offset, length, ISO_8859_1), seed);
+    }
+
+    /**
+     * Calculate hash of the buffer bytes range with seed (salt).
+     * Buffer position and limit are not changed.
+     *
+     * @param key    the buffer, direct or heap one
+     * @param offset the absolute index of the first byte to be hashed
+     * @param length the number of bytes to be hashed
+     * @param seed   the seed (salt)
+     * @return calculated hash.
+     */
+    default long hash(ByteBuffer key, int offset, int length, int seed) {
+        if (key.hasArray()) {
+            return hash(key.array(), key.arrayOffset() + offset, length, seed);
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = key.get(offset + i);
+        }
+        return hash(bytes, 0, length, seed);
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.hasher;
+
+/**
+ * Integer mixing helpers, used to derive several well distributed hashes from one key hash.
+ * Shared by the hash engines and the slot generators, so all of them place keys by the same mixing.
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class Hashes {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private Hashes() {
+    }
+
+    /**
+     * Mix bits of the value, finalizer of SplitMix64 generator.
+     *
+     * @param value the value to be mixed
+     * @return the mixed value
+     */
+    public static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Derive new hash from the hash and the seed.
+     *
+     * @param hash the original hash
+     * @param seed the seed
+     * @return the derived hash
+     */
+    public static long mix(long hash, int seed) {
+        return mix(hash + GOLDEN_GAMMA * (seed + 1L));
+    }
+
+    /**
+     * Reduce the hash to the range [0, bound) by multiply-shift of its upper 32 bits.
+     * Unlike {@link Long#remainderUnsigned(long, long)} it never allocates, on Java 8
+     * the latter falls back to BigInteger for negative dividends.
+     *
+     * @param hash the hash to be reduced
+     * @param bound the upper bound (exclusive), must be positive
+     * @return the value in the range [0, bound)
+     */
+    public static int reduce(long hash, int bound) {
+        return (int) (((hash >>> 32) * bound) >>> 32);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.metrics;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+
+import java.util.StringJoiner;
+
+/**
+ * Immutable copy of {@link LatencyHistogram}. All values are in nanoseconds.
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long sum, long max) {
+        this.counts = counts;
+        this.sum = sum;
+        this.max = max;
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        this.count = total;
+    }
+
+    /**
+     * @return the amount of recorded values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the sum of recorded values
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the maximal recorded value
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean of recorded values, 0 if there are no values
+     */
+    public double getMean() {
+        return count > 0 ? (double) sum / count : 0;
+    }
+
+    /**
+     * Return value at the given quantile, e.g. 0.99 for 99th percentile.
+     * Value is the upper bound of the bucket, so it overestimates the real one by at most 1/16.
+     *
+     * @param quantile the quantile in range [0, 1]
+     * @return the value at the quantile, 0 if there are no values
+     * @throws IllegalArgumentException if quantile is out of range [0, 1]
+     */
+    public long getPercentile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Quantile has to be in range [0, 1]");
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, LatencyHistogram.upperBound(i));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Return amount of recorded values not greater than the given one, e.g. to export cumulative buckets.
+     * Values sharing the bucket with the given one are counted, if bucket upper bound is not greater than it.
+     *
+     * @param value the value
+     * @return the amount of values
+     */
+    public long getCountAtOrBelow(long value) {
+        long res = 0;
+        for (int i = 0; i < counts.length && LatencyHistogram.upperBound(i) <= value; i++) {
+            res += counts[i];
+        }
+        return res;
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", HistogramSnapshot.class.getSimpleName() + "[", "]")
+                .add("count= " + count)
+                .add("mean= " + getMean())
+                .add("p50= " + (count > 0 ? getPercentile(0.5) : 0))
+                .add("p99= " + (count > 0 ? getPercentile(0.99) : 0))
+                .add("max= " + max)
+                .toString();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.metrics;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe recorder of the hash ring operations, enabled by
+ * {@link org.ishugaliy.allgood.consistent.hash.HashRingBuilder#metrics(RingMetrics)}.
+ * <p>
+ * Every located node is counted by the {@link LongAdder} of the node, and the counter is dropped once node is removed,
+ * so memory depends only on the amount of nodes. Locate latency and read lock wait are measured
+ * for a random sample of calls, to keep {@link System#nanoTime()} off most of the calls,
+ * while mutations and write lock waits are measured always.
+ * <p>
+ * Metrics are read by {@link #snapshot()}, e.g. periodically by the exporter.
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class RingMetrics<T> {
+
+    private final int sampling;
+    private final ConcurrentMap<T, LongAdder> nodeHits = new ConcurrentHashMap<>();
+    private final LongAdder locates = new LongAdder();
+    private final LongAdder mutations = new LongAdder();
+    private final LatencyHistogram locateLatency = new LatencyHistogram();
+    private final LatencyHistogram mutationLatency = new LatencyHistogram();
+    private final LatencyHistogram readLockWait = new LatencyHistogram();
+    private final LatencyHistogram writeLockWait = new LatencyHistogram();
+
+    /**
+     * Create metrics measuring latency of each locate call
+     */
+    public RingMetrics() {
+        this(1);
+    }
+
+    /**
+     * Create metrics measuring latency of the sample of locate calls
+     *
+     * @param sampling the average amount of calls per measured one, 1 to measure each call
+     * @throws IllegalArgumentException if sampling less than 1
+     */
+    public RingMetrics(int sampling) {
+        if (sampling < 1) {
+            throw new IllegalArgumentException("Sampling can not be less than 1");
+        }
+        this.sampling = sampling;
+    }
+
+    /**
+     * @return <tt>true</tt> if latency of the current call has to be measured
+     */
+    public boolean sample() {
+        return sampling == 1 || ThreadLocalRandom.current().nextInt(sampling) == 0;
+    }
+
+    /**
+     * Start counting hits of the node
+     *
+     * @param node the added node
+     */
+    public void nodeAdded(T node) {
+        nodeHits.putIfAbsent(node, new LongAdder());
+    }
+
+    /**
+     * Stop counting hits of the node
+     *
+     * @param node the removed node
+     */
+    public void nodeRemoved(T node) {
+        nodeHits.remove(node);
+    }
+
+    /**
+     * Count located node, hits of nodes which were not added are not counted
+     *
+     * @param node the located node or <tt>null</tt> if no node was found
+     */
+    public void recordLocate(T node) {
+        locates.increment();
+        LongAdder hits = node != null ? nodeHits.get(node) : null;
+        if (hits != null) {
+            hits.increment();
+        }
+    }
+
+    public void recordLocateLatency(long nanos) {
+        locateLatency.record(nanos);
+    }
+
+    public void recordMutation(long nanos) {
+        mutations.increment();
+        mutationLatency.record(nanos);
+    }
+
+    public void recordReadLockWait(long nanos) {
+        readLockWait.record(nanos);
+    }
+
+    public void recordWriteLockWait(long nanos) {
+        writeLockWait.record(nanos);
+    }
+
+    public int getSampling() {
+        return sampling;
+    }
+
+    /**
+     * Take point-in-time copy of the metrics.
+     *
+     * @return the metrics snapshot
+     */
+    public RingMetricsSnapshot<T> snapshot() {
+        Map<T, Long> hits = new HashMap<>();
+        nodeHits.forEach((node, count) -> hits.put(node, count.sum()));
+        return new RingMetricsSnapshot<>(hits, locates.sum(), mutations.sum(), locateLatency.snapshot(),
+                mutationLatency.snapshot(), readLockWait.snapshot(), writeLockWait.snapshot());
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", RingMetrics.class.getSimpleName() + "[", "]")
+                .add("sampling= " + sampling)
+                .add("nodes= " + nodeHits.size())
+                .add("locates= " + locates.sum())
+                .add("mutations= " + mutations.sum())
+                .toString();
+    }
+}
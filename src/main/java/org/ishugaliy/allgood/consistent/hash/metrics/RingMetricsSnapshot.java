@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.metrics;
+
+import org.ishugaliy.allgood.consistent.hash.annotation.Generated;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Immutable copy of {@link RingMetrics}.
+ * Counters are accumulated since the metrics were created, latencies are in nanoseconds.
+ *
+ * @param <T> the type of node
+ *
+ * @author Yuriy Shugaliy
+ */
+public final class RingMetricsSnapshot<T> {
+
+    private final Map<T, Long> nodeHits;
+    private final long locates;
+    private final long mutations;
+    private final HistogramSnapshot locateLatency;
+    private final HistogramSnapshot mutationLatency;
+    private final HistogramSnapshot readLockWait;
+    private final HistogramSnapshot writeLockWait;
+
+    RingMetricsSnapshot(Map<T, Long> nodeHits, long locates, long mutations,
+                        HistogramSnapshot locateLatency, HistogramSnapshot mutationLatency,
+                        HistogramSnapshot readLockWait, HistogramSnapshot writeLockWait) {
+        this.nodeHits = Collections.unmodifiableMap(nodeHits);
+        this.locates = locates;
+        this.mutations = mutations;
+        this.locateLatency = locateLatency;
+        this.mutationLatency = mutationLatency;
+        this.readLockWait = readLockWait;
+        this.writeLockWait = writeLockWait;
+    }
+
+    /**
+     * @return the amount of keys located to each node of the ring
+     */
+    public Map<T, Long> getNodeHits() {
+        return nodeHits;
+    }
+
+    /**
+     * @return the amount of locate calls
+     */
+    public long getLocates() {
+        return locates;
+    }
+
+    /**
+     * @return the amount of mutation calls, e.g. add, remove or weight change
+     */
+    public long getMutations() {
+        return mutations;
+    }
+
+    /**
+     * @return the latency of sampled locate calls
+     */
+    public HistogramSnapshot getLocateLatency() {
+        return locateLatency;
+    }
+
+    /**
+     * @return the latency of mutation calls, including the wait for the write lock
+     */
+    public HistogramSnapshot getMutationLatency() {
+        return mutationLatency;
+    }
+
+    /**
+     * @return the wait for the read lock by sampled calls
+     */
+    public HistogramSnapshot getReadLockWait() {
+        return readLockWait;
+    }
+
+    /**
+     * @return the wait for the write lock
+     */
+    public HistogramSnapshot getWriteLockWait() {
+        return writeLockWait;
+    }
+
+    @Override
+    @Generated
+    public String toString() {
+        return new StringJoiner(", ", RingMetricsSnapshot.class.getSimpleName() + "[", "]")
+                .add("nodes= " + nodeHits.size())
+                .add("locates= " + locates)
+                .add("mutations= " + mutations)
+                .add("locateLatency= " + locateLatency)
+                .add("mutationLatency= " + mutationLatency)
+                .add("readLockWait= " + readLockWait)
+                .add("writeLockWait= " + writeLockWait)
+                .toString();
+    }
+}
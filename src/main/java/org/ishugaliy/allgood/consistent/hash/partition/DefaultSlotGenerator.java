@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.partition;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hashes;
+
+/**
+ * List of default slot generators.
+ *
+ * @author Yuriy Shugaliy
+ */
+public enum DefaultSlotGenerator implements SlotGenerator {
+    /**
+     * Hash {@link ReplicationPartition} key of each partition, the attempt is used as a seed.
+     * Places partitions the same way as the rings did before slot generators were introduced,
+     * so the ring does not move on upgrade.
+     */
+    PARTITION_KEY {
+        @Override
+        public long slot(Hasher hasher, String nodeKey, int index, int attempt) {
+            return hasher.hash(ReplicationPartition.partitionKey(index, nodeKey), attempt);
+        }
+    },
+
+    /**
+     * Hash the node key once and derive slots of all partitions from it by SplitMix64 mixing ({@link Hashes#mix(long, int)})
+     * of the hash with the partition index, and the attempt on collisions.
+     * Adding node takes a single string hash instead of one per partition.
+     */
+    NODE_KEY_MIX {
+        @Override
+        public long slot(Hasher hasher, String nodeKey, int index, int attempt) {
+            long slot = Hashes.mix(hasher.hash(nodeKey, 0), index);
+            return attempt == 0 ? slot : Hashes.mix(slot, attempt);
+        }
+
+        @Override
+        public void slots(Hasher hasher, String nodeKey, int from, int to, long[] out, int offset) {
+            long hash = hasher.hash(nodeKey, 0);
+            for (int idx = from; idx < to; idx++) {
+                out[offset + idx - from] = Hashes.mix(hash, idx);
+            }
+        }
+    }
+}
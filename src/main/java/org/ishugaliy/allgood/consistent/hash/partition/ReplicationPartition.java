@@ -77,7 +77,18 @@ public final class ReplicationPartition<T extends Node> implements Partition<T>
 
     @Override
     public String getPartitionKey() {
-        return String.format("rp%d:%s", index, node.getKey());
+        return partitionKey(index, node.getKey());
+    }
+
+    /**
+     * Build partition key of the replication partition, without creating the partition itself.
+     *
+     * @param index   the replication index
+     * @param nodeKey the key of the node
+     * @return the partition key
+     */
+    public static String partitionKey(int index, String nodeKey) {
+        return "rp" + index + ':' + nodeKey;
     }
 
     @Override
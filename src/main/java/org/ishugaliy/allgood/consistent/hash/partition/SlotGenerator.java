@@ -0,0 +1,70 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.partition;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+
+/**
+ * Generator of partition slots (ring positions) of the node.
+ * <p>
+ * Ring takes absolute values of generated slots. When slot collides with another partition,
+ * generator is asked for the next attempt of the same partition, so generated slots have to be
+ * deterministic for the node key, partition index and attempt.
+ *
+ * @see DefaultSlotGenerator
+ *
+ * @author Yuriy Shugaliy
+ */
+@FunctionalInterface
+public interface SlotGenerator {
+
+    /**
+     * Generate slot of the node partition.
+     *
+     * @param hasher  the hash function of the ring
+     * @param nodeKey the key of the node
+     * @param index   the partition index
+     * @param attempt the attempt, 0 for the first one, next ones are made on slots collision
+     * @return the slot
+     */
+    long slot(Hasher hasher, String nodeKey, int index, int attempt);
+
+    /**
+     * Generate first attempt slots of node partitions with indexes in range [from, to).
+     * Implementations can override it to hash the node key once for all partitions.
+     *
+     * @param hasher  the hash function of the ring
+     * @param nodeKey the key of the node
+     * @param from    the first partition index, inclusive
+     * @param to      the last partition index, exclusive
+     * @param out     the array to write slots to
+     * @param offset  the index in the array to write the slot of the first partition to
+     */
+    default void slots(Hasher hasher, String nodeKey, int from, int to, long[] out, int offset) {
+        for (int idx = from; idx < to; idx++) {
+            out[offset + idx - from] = slot(hasher, nodeKey, idx, 0);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.metrics.RingMetrics;
+import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher.METRO_HASH;
+import static org.ishugaliy.allgood.consistent.hash.partition.DefaultSlotGenerator.NODE_KEY_MIX;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+@ExtendWith(MockitoExtension.class)
+public class ArrayHashRingTest {
+
+    @Test
+    @DisplayName("Create ring via builder with properties supported only by hash ring, expected IllegalStateException")
+    public void builder_unsupportedProperties_exception() {
+        assertThrows(IllegalStateException.class,
+                () -> HashRing.<SimpleNode>newBuilder().weigher(node -> 2).buildArrayRing());
+        assertThrows(IllegalStateException.class,
+                () -> HashRing.<SimpleNode>newBuilder().boundedLoads(0.25).buildArrayRing());
+        assertThrows(IllegalStateException.class,
+                () -> HashRing.<SimpleNode>newBuilder().metrics(new RingMetrics<>()).buildArrayRing());
+    }
+
+    @Test
+    @DisplayName("Create ring via builder, check all properties were set")
+    public void builder_allProperties_instance() {
+        ArrayHashRing<Node> ring = HashRing.newBuilder()
+                .name("ring")
+                .hasher(METRO_HASH)
+                .partitionRate(1)
+                .buildArrayRing();
+
+        assertEquals("ring", ring.getName());
+        assertEquals(METRO_HASH, ring.getHasher());
+        assertEquals(1, ring.getPartitionRate());
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> add(@Mock Node n1, @Mock Node n2) {
+        ArrayHashRing<Node> ring = HashRing.newBuilder().partitionRate(10).buildArrayRing();
+        return Stream.of(
+                dynamicTest("Add node to empty ring, expected true",
+                        () -> assertTrue(ring.add(n1))),
+
+                dynamicTest("Add already existing node to the ring, expected false",
+                        () -> assertFalse(ring.add(n1))),
+
+                dynamicTest("Add node with the same (null) key, expected true and colliding slots rehashed",
+                        () -> {
+                            assertTrue(ring.add(n2));
+                            assertEquals(2, ring.locate("key", 2).size());
+                        }),
+
+                dynamicTest("Add null node, expected false",
+                        () -> assertFalse(ring.add(null)))
+        );
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> addAll(@Mock Node n1, @Mock Node n2, @Mock Node n3) {
+        ArrayHashRing<Node> ring = HashRing.newBuilder().buildArrayRing();
+        return Stream.of(
+                dynamicTest("Add nodes to empty ring, expected true",
+                        () -> {
+                            assertTrue(ring.addAll(asList(n1, n2)));
+                            assertEquals(2, ring.size());
+                        }),
+                dynamicTest("Add nodes to the ring, that are already there, expected false",
+                        () -> {
+                            assertFalse(ring.addAll(asList(n1, n2)));
+                            assertEquals(2, ring.size());
+                        }),
+                dynamicTest("Add nodes list with null value and duplicates, expected adding of nonnull node",
+                        () -> {
+                            assertTrue(ring.addAll(asList(n3, n3, null)));
+                            assertEquals(3, ring.size());
+                        }),
+                dynamicTest("Add empty and null node lists, expected false",
+                        () -> {
+                            assertFalse(ring.addAll(new ArrayList<>()));
+                            assertFalse(ring.addAll(null));
+                            assertEquals(3, ring.size());
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Add and remove node from the ring, check contains, size and locate results")
+    public void remove_nodeInTheRing_removeNode(@Mock Node n1, @Mock Node n2) {
+        ArrayHashRing<Node> ring = HashRing.newBuilder().nodes(asList(n1, n2)).buildArrayRing();
+
+        assertTrue(ring.remove(n1));
+        assertFalse(ring.remove(n1));
+        assertFalse(ring.contains(n1));
+        assertTrue(ring.contains(n2));
+        assertEquals(1, ring.size());
+        assertEquals(singleton(n2), ring.getNodes());
+        assertEquals(n2, ring.locate("key").orElse(null));
+    }
+
+    @Test
+    @DisplayName("Remove node and add it back, expected ordinal reuse without affecting other nodes")
+    public void remove_addBack_sameLocation() {
+        List<SimpleNode> nodes = buildNodes(20);
+        ArrayHashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder().nodes(nodes).buildArrayRing();
+        List<SimpleNode> before = locateAll(ring);
+
+        ring.remove(nodes.get(7));
+        ring.remove(nodes.get(3));
+        ring.add(nodes.get(7));
+        ring.add(nodes.get(3));
+
+        assertEquals(before, locateAll(ring));
+    }
+
+    @Test
+    @DisplayName("Build array and tree rings with the same nodes, expected the same located nodes")
+    public void locate_sameAsHashRing() {
+        List<SimpleNode> nodes = buildNodes(50);
+        HashRing<SimpleNode> treeRing = HashRing.<SimpleNode>newBuilder().partitionRate(100).nodes(nodes).build();
+        ArrayHashRing<SimpleNode> arrayRing = HashRing.<SimpleNode>newBuilder().partitionRate(100).buildArrayRing();
+        nodes.forEach(arrayRing::add);
+
+        for (int i = 0; i < 1000; i++) {
+            String key = "key_" + i;
+            assertEquals(treeRing.locate(key), arrayRing.locate(key));
+            assertEquals(treeRing.locate(key, 3), arrayRing.locate(key, 3));
+        }
+    }
+
+    @Test
+    @DisplayName("Build array and tree rings with replica table, expected the same located nodes after removal")
+    public void replicaTable_sameAsHashRing() {
+        List<SimpleNode> nodes = buildNodes(50);
+        HashRing<SimpleNode> treeRing = HashRing.<SimpleNode>newBuilder().partitionRate(20).nodes(nodes).build();
+        ArrayHashRing<SimpleNode> arrayRing = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(20)
+                .replicaTable(3)
+                .buildArrayRing();
+        nodes.forEach(arrayRing::add);
+        treeRing.remove(nodes.get(10));
+        arrayRing.remove(nodes.get(10));
+
+        assertEquals(3, arrayRing.getReplicaTable());
+        for (int i = 0; i < 1000; i++) {
+            String key = "key_" + i;
+            assertEquals(treeRing.locate(key, 3), arrayRing.locate(key, 3));
+            assertEquals(treeRing.locate(key, 5), arrayRing.locate(key, 5));
+        }
+    }
+
+    @Test
+    @DisplayName("Build array and tree rings with the same nodes, expected the same preference lists")
+    public void preferenceList_sameAsHashRing() {
+        List<SimpleNode> nodes = buildNodes(20);
+        HashRing<SimpleNode> treeRing = HashRing.<SimpleNode>newBuilder().partitionRate(50).nodes(nodes).build();
+        ArrayHashRing<SimpleNode> arrayRing = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(50)
+                .replicaTable(3)
+                .buildArrayRing();
+        arrayRing.addAll(nodes);
+
+        for (int i = 0; i < 1000; i++) {
+            String key = "key_" + i;
+            assertEquals(treeRing.preferenceList(key, 3), arrayRing.preferenceList(key, 3));
+            assertEquals(treeRing.preferenceList(key, 20), arrayRing.preferenceList(key, 20));
+        }
+    }
+
+    @Test
+    @DisplayName("Locate keys twice with routing cache and remove node, expected cache hits and invalidation")
+    public void routingCache_sameAsHashRing() {
+        List<SimpleNode> nodes = buildNodes(20);
+        HashRing<SimpleNode> treeRing = HashRing.<SimpleNode>newBuilder().partitionRate(50).nodes(nodes).build();
+        ArrayHashRing<SimpleNode> arrayRing = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(50)
+                .routingCache(100)
+                .buildArrayRing();
+        arrayRing.addAll(nodes);
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(treeRing.locate("key_" + i), arrayRing.locate("key_" + i));
+            }
+        }
+        assertTrue(arrayRing.getRoutingCacheStats().getHits() > 0);
+
+        treeRing.remove(nodes.get(0));
+        arrayRing.remove(nodes.get(0));
+
+        assertEquals(0, arrayRing.getRoutingCacheStats().getSize());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(treeRing.locate("key_" + i), arrayRing.locate("key_" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Build array and tree rings with node key slot generator, expected the same slots")
+    public void slotGenerator_sameAsHashRing() {
+        List<SimpleNode> nodes = buildNodes(50);
+        HashRing<SimpleNode> treeRing = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(100)
+                .slotGenerator(NODE_KEY_MIX)
+                .nodes(nodes)
+                .build();
+        ArrayHashRing<SimpleNode> arrayRing = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(100)
+                .slotGenerator(NODE_KEY_MIX)
+                .buildArrayRing();
+        nodes.forEach(arrayRing::add);
+
+        assertEquals(NODE_KEY_MIX, arrayRing.getSlotGenerator());
+        assertArrayEquals(treeRing.snapshot().slots(), arrayRing.snapshot().slots());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(treeRing.locate("key_" + i), arrayRing.locate("key_" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Locate all keys at once, expected same nodes as tree ring and as snapshot ordinals")
+    public void locateAll_sameAsHashRing() {
+        List<SimpleNode> nodes = buildNodes(50);
+        HashRing<SimpleNode> treeRing = HashRing.<SimpleNode>newBuilder().partitionRate(100).nodes(nodes).build();
+        ArrayHashRing<SimpleNode> arrayRing = HashRing.<SimpleNode>newBuilder().partitionRate(100).nodes(nodes)
+                .buildArrayRing();
+        String[] keys = IntStream.range(0, 1000).mapToObj(i -> "key_" + i).toArray(String[]::new);
+        int[] ordinals = new int[keys.length];
+        RingSnapshot<SimpleNode> snapshot = arrayRing.snapshot();
+        snapshot.locateAll(keys, ordinals);
+
+        assertEquals(treeRing.locateAll(asList(keys)), arrayRing.locateAll(asList(keys)));
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(arrayRing.locateNode(keys[i]), snapshot.getNode(ordinals[i]));
+        }
+        assertThrows(IllegalArgumentException.class, () -> snapshot.locateAll(keys, new int[1]));
+    }
+
+    @Test
+    @DisplayName("Locate many keys in parallel, expected same nodes as sequential locate")
+    public void locateAll_parallel_sameAsSequential() {
+        ArrayHashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder().partitionRate(100).nodes(buildNodes(50))
+                .buildArrayRing();
+        String[] keys = IntStream.range(0, 100_000)
+                .mapToObj(i -> i % 1000 == 0 ? null : "key_" + i)
+                .toArray(String[]::new);
+        int[] sequential = new int[keys.length];
+        int[] parallel = new int[keys.length];
+        RingSnapshot<SimpleNode> snapshot = ring.snapshot();
+        snapshot.locateAll(keys, sequential);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            snapshot.locateAll(keys, parallel, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertArrayEquals(sequential, parallel);
+        assertEquals(-1, parallel[0]);
+        assertEquals(snapshot.locateAll(asList(keys)), snapshot.locateAll(Arrays.stream(keys).parallel()));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> locate_countNodes(@Mock Node n1, @Mock Node n2, @Mock Node n3) {
+        ArrayHashRing<Node> ring = HashRing.newBuilder().nodes(asList(n1, n2, n3)).buildArrayRing();
+        ArrayHashRing<Node> emptyRing = HashRing.newBuilder().buildArrayRing();
+        return Stream.of(
+                dynamicTest("Locate node, expected node",
+                        () -> assertTrue(ring.locate("key").isPresent())),
+
+                dynamicTest("Locate node in empty ring or with null key, expected empty",
+                        () -> {
+                            assertFalse(emptyRing.locate("key").isPresent());
+                            assertFalse(ring.locate(null).isPresent());
+                        }),
+
+                dynamicTest("Locate 2 nodes, expected 2 nodes",
+                        () -> assertEquals(2, ring.locate("key", 2).size())),
+
+                dynamicTest("Locate 5 nodes, expected 3 nodes",
+                        () -> assertEquals(3, ring.locate("key", 5).size())),
+
+                dynamicTest("Locate with null key or negative count, expected empty list",
+                        () -> {
+                            assertTrue(ring.locate(null, 3).isEmpty());
+                            assertTrue(ring.locate("key", -1).isEmpty());
+                            assertTrue(emptyRing.locate("key", 2).isEmpty());
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Locate nodes into buffers, expected clockwise order and no allocation on the hot path")
+    public void locate_buffers_noAllocation() {
+        ArrayHashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                .hasher((key, seed) -> key.hashCode() * 0x9E3779B97F4A7C15L + seed)
+                .nodes(buildNodes(10))
+                .buildArrayRing();
+        SimpleNode[] out = new SimpleNode[3];
+        List<SimpleNode> list = new ArrayList<>(3);
+
+        assertEquals(3, ring.locate("key", out));
+        assertEquals(3, ring.locate("key", 3, list));
+        assertEquals(ring.locateNode("key"), out[0]);
+        assertEquals(asList(out), list);
+
+        long allocated = HashRingTest.allocatedBytes(() -> {
+            for (int i = 0; i < 1000; i++) {
+                ring.locateNode("key");
+                ring.locate("key", out);
+                list.clear();
+                ring.locate("key", 3, list);
+            }
+        });
+        assertTrue(allocated < 1024);
+    }
+
+    private static List<SimpleNode> buildNodes(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> SimpleNode.of("192.168.1." + i))
+                .collect(Collectors.toList());
+    }
+
+    private static List<SimpleNode> locateAll(ConsistentHash<SimpleNode> ring) {
+        return IntStream.range(0, 1000)
+                .mapToObj(i -> ring.locate("key_" + i).orElse(null))
+                .collect(Collectors.toList());
+    }
+}
@@ -25,7 +25,10 @@
 package org.ishugaliy.allgood.consistent.hash;
 
 import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.metrics.RingMetrics;
+import org.ishugaliy.allgood.consistent.hash.metrics.RingMetricsSnapshot;
 import org.ishugaliy.allgood.consistent.hash.node.Node;
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.Test;
@@ -35,13 +38,35 @@ import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
 import static org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher.METRO_HASH;
+import static org.ishugaliy.allgood.consistent.hash.partition.DefaultSlotGenerator.NODE_KEY_MIX;
+import static org.ishugaliy.allgood.consistent.hash.partition.DefaultSlotGenerator.PARTITION_KEY;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 import static org.mockito.Mockito.*;
 
@@ -60,6 +85,7 @@ public class HashRingTest {
         assertEquals("ring", ring.getName());
         assertEquals(METRO_HASH, ring.getHasher());
         assertEquals(1, ring.getPartitionRate());
+        assertEquals(PARTITION_KEY, ring.getSlotGenerator());
     }
 
     @TestFactory
@@ -91,7 +117,201 @@ public class HashRingTest {
 
         assertTrue(ring.add(node));
         assertTrue(ring.contains(node));
-        verify(node, times(1000)).getKey();
+        assertEquals(1000, ring.snapshot().slots().length);
+        verify(node, times(1)).getKey();
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> slotGenerator() {
+        List<SimpleNode> nodes = buildNodes(50);
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> incremental = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(100)
+                    .lockFreeReads(lockFree)
+                    .slotGenerator(NODE_KEY_MIX)
+                    .build();
+            nodes.forEach(incremental::add);
+            HashRing<SimpleNode> bulk = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(100)
+                    .lockFreeReads(lockFree)
+                    .slotGenerator(NODE_KEY_MIX)
+                    .nodes(nodes)
+                    .build();
+            HashRing<SimpleNode> partitionKey = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(100)
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes)
+                    .build();
+
+            assertEquals(NODE_KEY_MIX, bulk.getSlotGenerator());
+            assertArrayEquals(incremental.snapshot().slots(), bulk.snapshot().slots());
+            assertFalse(Arrays.equals(partitionKey.snapshot().slots(), bulk.snapshot().slots()));
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(incremental.locate("key_" + i), bulk.locate("key_" + i));
+            }
+        }));
+    }
+
+    @Test
+    @DisplayName("Set null slot generator, expected NPE")
+    public void slotGenerator_null_exception() {
+        assertThrows(NullPointerException.class, () -> HashRing.newBuilder().slotGenerator(null));
+    }
+
+    @Test
+    @DisplayName("Modify rings with and without replica table, expected the same located nodes after each change")
+    public void replicaTable_sameAsWalk() {
+        List<SimpleNode> nodes = buildNodes(30);
+        HashRing<SimpleNode> walk = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(10)
+                .lockFreeReads(true)
+                .build();
+        HashRing<SimpleNode> table = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(10)
+                .lockFreeReads(true)
+                .replicaTable(3)
+                .build();
+        List<Consumer<HashRing<SimpleNode>>> changes = asList(
+                ring -> ring.add(nodes.get(0)),
+                ring -> ring.add(nodes.get(1)),
+                ring -> ring.addAll(nodes.subList(2, 20)),
+                ring -> ring.add(nodes.get(20)),
+                ring -> ring.remove(nodes.get(7)),
+                ring -> ring.setWeight(nodes.get(3), 2.5),
+                ring -> ring.setWeight(nodes.get(4), 0.2),
+                ring -> ring.addAll(nodes.subList(21, 30)),
+                ring -> nodes.subList(0, 28).forEach(ring::remove)
+        );
+
+        assertEquals(3, table.getReplicaTable());
+        for (Consumer<HashRing<SimpleNode>> change : changes) {
+            change.accept(walk);
+            change.accept(table);
+            for (int i = 0; i < 300; i++) {
+                String key = "key_" + i;
+                for (int count = 1; count <= 4; count++) {
+                    assertEquals(walk.locate(key, count), table.locate(key, count));
+                }
+                SimpleNode[] expected = new SimpleNode[3];
+                SimpleNode[] actual = new SimpleNode[3];
+                assertEquals(walk.locate(key, expected), table.locate(key, actual));
+                assertArrayEquals(expected, actual);
+                List<SimpleNode> expectedList = new ArrayList<>();
+                List<SimpleNode> actualList = new ArrayList<>();
+                assertEquals(walk.locate(key, 2, expectedList), table.locate(key, 2, actualList));
+                assertEquals(expectedList, actualList);
+            }
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> routingCache() {
+        List<SimpleNode> nodes = buildNodes(20);
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(50)
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes.subList(0, 10))
+                    .build();
+            HashRing<SimpleNode> cached = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(50)
+                    .lockFreeReads(lockFree)
+                    .routingCache(4096)
+                    .nodes(nodes.subList(0, 10))
+                    .build();
+            List<Consumer<HashRing<SimpleNode>>> changes = asList(
+                    r -> r.add(nodes.get(10)),
+                    r -> r.addAll(nodes.subList(11, 20)),
+                    r -> r.remove(nodes.get(3)),
+                    r -> r.setWeight(nodes.get(4), 3)
+            );
+
+            for (Consumer<HashRing<SimpleNode>> change : changes) {
+                for (int round = 0; round < 2; round++) {
+                    for (int i = 0; i < 500; i++) {
+                        assertEquals(ring.locate("key_" + i), cached.locate("key_" + i));
+                    }
+                }
+                assertEquals(500, cached.getRoutingCacheStats().getSize());
+                change.accept(ring);
+                change.accept(cached);
+                assertEquals(0, cached.getRoutingCacheStats().getSize());
+            }
+            RoutingCacheStats stats = cached.getRoutingCacheStats();
+            assertEquals(4096, stats.getCapacity());
+            assertEquals(2000, stats.getHits());
+            assertEquals(2000, stats.getMisses());
+            assertFalse(cached.locate(null).isPresent());
+            assertEquals(0, ring.getRoutingCacheStats().getCapacity());
+        }));
+    }
+
+    @Test
+    @DisplayName("Set invalid routing cache capacity or use it with bounded loads, expected exceptions")
+    public void routingCache_invalid_exception() {
+        assertThrows(IllegalArgumentException.class, () -> HashRing.newBuilder().routingCache(0));
+        assertThrows(IllegalArgumentException.class, () -> HashRing.newBuilder().routingCache((1 << 30) + 1));
+        assertThrows(IllegalStateException.class,
+                () -> HashRing.newBuilder().routingCache(10).boundedLoads(0.25).build());
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> metrics() {
+        List<SimpleNode> nodes = buildNodes(10);
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            RingMetrics<SimpleNode> metrics = new RingMetrics<>();
+            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                    .lockFreeReads(lockFree)
+                    .metrics(metrics)
+                    .nodes(nodes.subList(0, 9))
+                    .build();
+            ring.add(nodes.get(9));
+            ring.remove(nodes.get(0));
+            ring.setWeight(nodes.get(1), 2);
+            Map<SimpleNode, Long> expected = new HashMap<>();
+
+            IntStream.range(0, 4).parallel().forEach(t -> {
+                for (int i = 0; i < 1000; i++) {
+                    ring.locateNode("key_" + i);
+                }
+            });
+            for (int i = 0; i < 1000; i++) {
+                expected.merge(ring.locate("key_" + i).orElse(null), 4L, Long::sum);
+            }
+            ring.locateNode("key".getBytes(UTF_8), 0, 3);
+            RingMetricsSnapshot<SimpleNode> snapshot = metrics.snapshot();
+
+            assertSame(metrics, ring.getMetrics().orElse(null));
+            assertEquals(5001, snapshot.getLocates());
+            assertEquals(expected.keySet(), snapshot.getNodeHits().keySet());
+            expected.forEach((node, hits) -> assertTrue(snapshot.getNodeHits().get(node) >= hits));
+            assertEquals(5001, snapshot.getLocateLatency().getCount());
+            assertEquals(4, snapshot.getMutations());
+            assertEquals(4, snapshot.getMutationLatency().getCount());
+            assertEquals(4, snapshot.getWriteLockWait().getCount());
+            assertEquals(!lockFree, snapshot.getReadLockWait().getCount() > 0);
+        }));
+    }
+
+    @Test
+    @DisplayName("Set null metrics or build array ring with metrics, expected exceptions")
+    public void metrics_invalid_exception() {
+        assertThrows(NullPointerException.class, () -> HashRing.newBuilder().metrics(null));
+        assertThrows(IllegalStateException.class,
+                () -> HashRing.<SimpleNode>newBuilder().metrics(new RingMetrics<>()).buildArrayRing());
+        assertFalse(HashRing.newBuilder().build().getMetrics().isPresent());
+    }
+
+    @Test
+    @DisplayName("Set replica table size less than 1, expected IAE")
+    public void replicaTable_lessThanOne_exception() {
+        assertThrows(IllegalArgumentException.class, () -> HashRing.newBuilder().replicaTable(0));
+    }
+
+    @Test
+    @DisplayName("Build ring with replica table and without lock-free reads, expected ISE")
+    public void replicaTable_withoutLockFreeReads_exception() {
+        assertThrows(IllegalStateException.class, () -> HashRing.newBuilder().replicaTable(3).build());
     }
 
     @Test
@@ -157,6 +377,70 @@ public class HashRingTest {
         );
     }
 
+    @TestFactory
+    public Stream<DynamicTest> addAll_bulk_sameAsIncremental() {
+        List<SimpleNode> nodes = buildNodes(700);
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> incremental = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(100)
+                    .lockFreeReads(lockFree)
+                    .build();
+            nodes.forEach(incremental::add);
+            HashRing<SimpleNode> bulk = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(100)
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes)
+                    .build();
+            HashRing<SimpleNode> merged = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(100)
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes.subList(0, 10))
+                    .build();
+            merged.addAll(nodes.subList(10, 700));
+            HashRing<SimpleNode> inserted = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(100)
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes.subList(0, 690))
+                    .build();
+            inserted.addAll(nodes.subList(690, 700));
+
+            for (HashRing<SimpleNode> ring : asList(bulk, merged, inserted)) {
+                assertEquals(700, ring.size());
+                assertArrayEquals(incremental.snapshot().slots(), ring.snapshot().slots());
+                for (int i = 0; i < 1000; i++) {
+                    String key = "key_" + i;
+                    assertEquals(incremental.locate(key), ring.locate(key));
+                    assertEquals(incremental.locate(key, 3), ring.locate(key, 3));
+                }
+            }
+        }));
+    }
+
+    @Test
+    @DisplayName("Add colliding nodes in different order, expected the same node keeps the slot")
+    public void addAll_collisionInHasher_orderIndependent() {
+        Hasher hasher = mock(Hasher.class, in ->
+                in.getArguments().length > 1 ? in.getArgument(1, Integer.class).longValue() : 0
+        );
+        SimpleNode n1 = SimpleNode.of("key1");
+        SimpleNode n2 = SimpleNode.of("key2");
+        HashRing<SimpleNode> ring1 = HashRing.<SimpleNode>newBuilder()
+                .hasher(hasher)
+                .partitionRate(1)
+                .nodes(asList(n1, n2))
+                .build();
+        HashRing<SimpleNode> ring2 = HashRing.<SimpleNode>newBuilder()
+                .hasher(hasher)
+                .partitionRate(1)
+                .nodes(asList(n2, n1))
+                .build();
+
+        assertEquals(Optional.of(n1), ring1.locate("key"));
+        assertEquals(Optional.of(n1), ring2.locate("key"));
+        assertArrayEquals(new long[]{0, 1}, ring1.snapshot().slots());
+        assertArrayEquals(new long[]{0, 1}, ring2.snapshot().slots());
+    }
+
     @Test
     @DisplayName("Add and remove node from the ring, assert if ring contains it before and after removing")
     public void contains_nodeInTheRing_true(@Mock Node node) {
@@ -237,4 +521,577 @@ public class HashRingTest {
                         () -> assertTrue(emptyRing.locate("key", 2).isEmpty()))
         );
     }
+
+    @Test
+    @DisplayName("Build rings with and without lock-free reads, expected the same located nodes")
+    public void locate_lockFreeReads_sameAsLocking() {
+        List<SimpleNode> nodes = buildNodes(30);
+        HashRing<SimpleNode> locking = HashRing.<SimpleNode>newBuilder().partitionRate(100).nodes(nodes).build();
+        HashRing<SimpleNode> lockFree = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(100)
+                .lockFreeReads(true)
+                .nodes(nodes)
+                .build();
+        locking.remove(nodes.get(5));
+        lockFree.remove(nodes.get(5));
+
+        assertTrue(lockFree.isLockFreeReads());
+        assertEquals(locking.getNodes(), lockFree.getNodes());
+        assertEquals(locking.size(), lockFree.size());
+        assertFalse(lockFree.contains(nodes.get(5)));
+        for (int i = 0; i < 1000; i++) {
+            String key = "key_" + i;
+            assertEquals(locking.locate(key), lockFree.locate(key));
+            assertEquals(locking.locate(key, 3), lockFree.locate(key, 3));
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> snapshot() {
+        List<SimpleNode> nodes = buildNodes(10);
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes)
+                    .build();
+            RingSnapshot<SimpleNode> before = ring.snapshot();
+            assertSame(before, ring.snapshot());
+
+            ring.remove(nodes.get(0));
+            RingSnapshot<SimpleNode> after = ring.snapshot();
+
+            assertTrue(after.getVersion() > before.getVersion());
+            assertTrue(before.contains(nodes.get(0)));
+            assertFalse(after.contains(nodes.get(0)));
+            assertEquals(10, before.size());
+            assertEquals(9, after.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(ring.locate("key_" + i), after.locate("key_" + i));
+            }
+        }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> locate_buffers() {
+        List<SimpleNode> nodes = buildNodes(10);
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes)
+                    .build();
+            for (int i = 0; i < 100; i++) {
+                String key = "key_" + i;
+                SimpleNode[] out = new SimpleNode[3];
+                List<SimpleNode> list = new ArrayList<>();
+
+                assertEquals(3, ring.locate(key, out));
+                assertEquals(3, ring.locate(key, 3, list));
+                assertEquals(ring.locateNode(key), out[0]);
+                assertEquals(asList(out), list);
+                assertEquals(ring.locate(key, 3), new HashSet<>(list));
+            }
+            assertNull(ring.locateNode(null));
+            assertEquals(10, ring.locate("key", new SimpleNode[20]));
+            assertEquals(0, ring.locate(null, new SimpleNode[2]));
+            assertEquals(0, ring.locate("key", -1, new ArrayList<>()));
+        }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> preferenceList() {
+        List<SimpleNode> nodes = buildNodes(10);
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(20)
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes)
+                    .build();
+            ring.remove(nodes.get(2));
+            ring.add(nodes.get(2));
+            for (int i = 0; i < 100; i++) {
+                String key = "key_" + i;
+                SimpleNode[] out = new SimpleNode[10];
+                ring.locate(key, out);
+
+                assertEquals(asList(out).subList(0, 3), ring.preferenceList(key, 3));
+                assertEquals(asList(out), ring.preferenceList(key, 10));
+                assertEquals(asList(out), ring.preferenceList(key, 20));
+            }
+            List<SimpleNode> list = ring.preferenceList("key", 3);
+            assertThrows(UnsupportedOperationException.class, () -> list.add(nodes.get(0)));
+            assertTrue(ring.preferenceList(null, 3).isEmpty());
+            assertTrue(ring.preferenceList("key", 0).isEmpty());
+            assertTrue(HashRing.<SimpleNode>newBuilder().lockFreeReads(lockFree).build()
+                    .preferenceList("key", 3).isEmpty());
+        }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> locate_binaryAndCharSequenceKeys() {
+        List<SimpleNode> nodes = buildNodes(10);
+        byte[] bytes = "__binary_key__".getBytes(UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes)
+                    .build();
+            SimpleNode node = ring.locateNode(bytes, 2, 10);
+
+            assertNotNull(node);
+            assertEquals(node, ring.locateNode(ByteBuffer.wrap(bytes), 2, 10));
+            assertEquals(node, ring.locateNode(direct, 2, 10));
+            assertEquals(Optional.of(node), ring.locate(direct, 2, 10));
+            assertEquals(Optional.of(node), ring.locate(bytes, 2, 10));
+            assertEquals(ring.locateNode("key"), ring.locateNode(new StringBuilder("key")));
+            assertEquals(ring.locate("key"), ring.locate(new StringBuilder("key")));
+            assertNull(ring.locateNode((byte[]) null, 0, 0));
+            assertNull(ring.locateNode((CharSequence) null));
+        }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> build_invalidLoadEpsilon_exception() {
+        return Stream.of(0d, -0.5, Double.NaN, Double.POSITIVE_INFINITY).map(epsilon ->
+                dynamicTest("Build ring with load epsilon " + epsilon + ", expected IllegalArgumentException",
+                        () -> assertThrows(IllegalArgumentException.class,
+                                () -> HashRing.newBuilder().boundedLoads(epsilon))));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> acquire_boundedLoads_loadsCapped() {
+        List<SimpleNode> nodes = buildNodes(10);
+        int keys = 10_000;
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(10)
+                    .lockFreeReads(lockFree)
+                    .boundedLoads(0.25)
+                    .nodes(nodes)
+                    .build();
+            HashRing<SimpleNode> unbounded = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(10)
+                    .nodes(nodes)
+                    .build();
+
+            assertTrue(ring.isBoundedLoads());
+            assertEquals(0.25, ring.getLoadEpsilon());
+            assertEquals(unbounded.locateNode("key"), ring.locateNode("key"));
+
+            List<SimpleNode> assigned = IntStream.range(0, keys)
+                    .mapToObj(i -> ring.acquire("key_" + i))
+                    .collect(Collectors.toList());
+            long capacity = (long) Math.ceil(1.25 * keys / nodes.size());
+            nodes.forEach(node -> assertTrue(ring.getLoad(node) <= capacity));
+            assertEquals(keys, nodes.stream().mapToLong(ring::getLoad).sum());
+
+            assigned.forEach(ring::release);
+            nodes.forEach(node -> assertEquals(0, ring.getLoad(node)));
+        }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> acquireAndRelease() {
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                .boundedLoads(0.5)
+                .nodes(buildNodes(3))
+                .build();
+        SimpleNode node = ring.acquire("key");
+        return Stream.of(
+                dynamicTest("Acquire key, expected load of located node incremented",
+                        () -> assertEquals(1, ring.getLoad(node))),
+                dynamicTest("Release node without acquired keys, expected false and load not below zero",
+                        () -> {
+                            SimpleNode idle = ring.getNodes().stream().filter(n -> !n.equals(node)).findFirst().get();
+                            assertFalse(ring.release(idle));
+                            assertEquals(0, ring.getLoad(idle));
+                            assertEquals(1, ring.getLoad(node));
+                            assertEquals(1, ring.getTotalLoad());
+                        }),
+                dynamicTest("Release key twice, expected the second release rejected",
+                        () -> {
+                            assertTrue(ring.release(node));
+                            assertFalse(ring.release(node));
+                            assertEquals(0, ring.getLoad(node));
+                            assertEquals(node, ring.acquire("key"));
+                        }),
+                dynamicTest("Remove loaded node, expected its load dropped and release rejected",
+                        () -> {
+                            assertTrue(ring.remove(node));
+                            assertEquals(0, ring.getLoad(node));
+                            assertEquals(0, ring.getTotalLoad());
+                            assertFalse(ring.release(node));
+                            assertFalse(ring.release(null));
+                        }),
+                dynamicTest("Acquire and release without bounded loads, expected IllegalStateException",
+                        () -> {
+                            HashRing<SimpleNode> unbounded = HashRing.<SimpleNode>newBuilder().build();
+                            assertFalse(unbounded.isBoundedLoads());
+                            assertEquals(0, unbounded.getLoadEpsilon());
+                            assertThrows(IllegalStateException.class, () -> unbounded.acquire("key"));
+                            assertThrows(IllegalStateException.class, () -> unbounded.release(node));
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Acquire and release keys while nodes are added and removed, expected total load back to zero")
+    public void acquireAndRelease_concurrentMembershipChange_totalLoadZero() throws Exception {
+        List<SimpleNode> nodes = buildNodes(4);
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(10)
+                .boundedLoads(0.25)
+                .nodes(nodes.subList(0, 2))
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AtomicBoolean done = new AtomicBoolean();
+            Future<?> membership = executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    SimpleNode node = nodes.get(2 + i % 2);
+                    ring.add(node);
+                    ring.remove(node);
+                }
+                done.set(true);
+            });
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                int thread = t;
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; !done.get(); i++) {
+                        SimpleNode node = ring.acquire("key_" + thread + "_" + i);
+                        ring.release(node);
+                    }
+                }));
+            }
+            membership.get(30, TimeUnit.SECONDS);
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, ring.getTotalLoad());
+        nodes.forEach(node -> assertEquals(0, ring.getLoad(node)));
+        ring.add(nodes.get(2));
+        assertEquals(0, ring.getLoad(nodes.get(2)));
+    }
+
+    @Test
+    @DisplayName("Build ring with weighted nodes, expected share of keys proportional to weight")
+    public void build_weightedNodes_proportionalDistribution() {
+        List<SimpleNode> nodes = buildNodes(5);
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(200)
+                .weigher(node -> node.equals(nodes.get(0)) ? 3 : 1)
+                .nodes(nodes)
+                .build();
+        Map<SimpleNode, Long> loads = IntStream.range(0, 10_000)
+                .mapToObj(i -> ring.locateNode("key_" + i))
+                .collect(Collectors.groupingBy(n -> n, Collectors.counting()));
+
+        assertEquals(3, ring.getWeight(nodes.get(0)));
+        assertEquals(1, ring.getWeight(nodes.get(1)));
+        // total weight is 7, so the heavy node expects 3/7 of keys
+        assertTrue(Math.abs(loads.get(nodes.get(0)) - 10_000 * 3 / 7) < 10_000 * 3 / 7 * 0.15);
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> weights_invalid_exception() {
+        List<SimpleNode> nodes = buildNodes(3);
+        return Stream.of(
+                dynamicTest("Add nodes with one invalid weight, expected IllegalArgumentException and no node added",
+                        () -> {
+                            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                                    .weigher(node -> node.equals(nodes.get(2)) ? -1 : 1)
+                                    .build();
+                            assertThrows(IllegalArgumentException.class, () -> ring.addAll(nodes));
+                            assertEquals(0, ring.size());
+                        }),
+                dynamicTest("Set invalid weight, expected IllegalArgumentException",
+                        () -> {
+                            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder().nodes(nodes).build();
+                            assertThrows(IllegalArgumentException.class, () -> ring.setWeight(nodes.get(0), 0));
+                            assertThrows(IllegalArgumentException.class, () -> ring.setWeight(nodes.get(0), Double.NaN));
+                            assertEquals(1, ring.getWeight(nodes.get(0)));
+                        }),
+                dynamicTest("Set weight of absent node, expected false",
+                        () -> {
+                            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder().build();
+                            assertFalse(ring.setWeight(nodes.get(0), 2));
+                            assertEquals(0, ring.getWeight(nodes.get(0)));
+                        }),
+                dynamicTest("Build array ring with weights, expected IllegalStateException",
+                        () -> assertThrows(IllegalStateException.class,
+                                () -> HashRing.<SimpleNode>newBuilder().weigher(node -> 2).buildArrayRing()))
+        );
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> setWeight_deltaPartitions_minimalDisruption() {
+        List<SimpleNode> nodes = buildNodes(5);
+        SimpleNode node = nodes.get(0);
+        List<String> keys = IntStream.range(0, 10_000).mapToObj(i -> "key_" + i).collect(Collectors.toList());
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                    .partitionRate(100)
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes)
+                    .build();
+            List<SimpleNode> before = keys.stream().map(ring::locateNode).collect(Collectors.toList());
+
+            assertTrue(ring.setWeight(node, 2));
+            assertEquals(2, ring.getWeight(node));
+            assertEquals(600, ring.snapshot().slots().length);
+            for (int i = 0; i < keys.size(); i++) {
+                SimpleNode located = ring.locateNode(keys.get(i));
+                assertTrue(located.equals(before.get(i)) || located.equals(node));
+            }
+
+            assertTrue(ring.setWeight(node, 1));
+            assertEquals(500, ring.snapshot().slots().length);
+            assertEquals(before, keys.stream().map(ring::locateNode).collect(Collectors.toList()));
+        }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> mutationDelta_movedArcs() {
+        List<SimpleNode> nodes = buildNodes(13);
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(100)
+                .nodes(nodes.subList(0, 10))
+                .build();
+        return Stream.of(
+                dynamicTest("Add node, expected arcs moved to the node",
+                        () -> {
+                            Map<String, SimpleNode> before = locateKeys(ring);
+                            RingDelta<SimpleNode> delta = ring.addWithDelta(nodes.get(10));
+                            assertDelta(before, ring, delta);
+                            assertTrue(delta.size() <= 100);
+                            assertEquals(ring.snapshot().getVersion(), delta.getVersion());
+                        }),
+                dynamicTest("Add nodes, expected arcs moved to the nodes",
+                        () -> {
+                            Map<String, SimpleNode> before = locateKeys(ring);
+                            assertDelta(before, ring, ring.addAllWithDelta(nodes.subList(10, 13)));
+                        }),
+                dynamicTest("Remove node, expected arcs moved from the node",
+                        () -> {
+                            Map<String, SimpleNode> before = locateKeys(ring);
+                            RingDelta<SimpleNode> delta = ring.removeWithDelta(nodes.get(3));
+                            assertDelta(before, ring, delta);
+                            delta.forEach((start, end, from, to) -> assertEquals(nodes.get(3), from));
+                        }),
+                dynamicTest("Add present node and remove absent one, expected empty delta",
+                        () -> {
+                            assertTrue(ring.addWithDelta(nodes.get(0)).isEmpty());
+                            assertTrue(ring.removeWithDelta(nodes.get(3)).isEmpty());
+                            assertTrue(ring.addAllWithDelta(null).isEmpty());
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Add first node and remove the last one, expected whole ring arcs without owner")
+    public void mutationDelta_emptyRing_noOwner() {
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder().partitionRate(1).build();
+        SimpleNode node = SimpleNode.of("node");
+
+        RingDelta<SimpleNode> added = ring.addWithDelta(node);
+        RingDelta<SimpleNode> removed = ring.removeWithDelta(node);
+
+        assertEquals(1, added.size());
+        assertEquals(added.getStart(0), added.getEnd(0));
+        assertNull(added.getFrom(0));
+        assertEquals(node, added.getTo(0));
+        assertEquals(0, added.indexOf(Long.MAX_VALUE));
+        assertEquals(1, removed.size());
+        assertEquals(node, removed.getFrom(0));
+        assertNull(removed.getTo(0));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> ranges_ownedArcs() {
+        List<SimpleNode> nodes = buildNodes(10);
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(100)
+                .nodes(nodes)
+                .build();
+        return Stream.of(
+                dynamicTest("Primary ranges, expected keys in ranges of their nodes only",
+                        () -> {
+                            for (int i = 0; i < 2000; i++) {
+                                String key = "key_" + i;
+                                long slot = Math.abs(ring.getHasher().hash(key, 0));
+                                SimpleNode owner = ring.locateNode(key);
+                                for (SimpleNode node : nodes) {
+                                    assertEquals(node.equals(owner), ring.ranges(node).contains(slot));
+                                }
+                            }
+                        }),
+                dynamicTest("Replica ranges, expected keys in ranges of their replicas only",
+                        () -> {
+                            for (int i = 0; i < 2000; i++) {
+                                String key = "key_" + i;
+                                long slot = Math.abs(ring.getHasher().hash(key, 0));
+                                Set<SimpleNode> replicas = ring.locate(key, 3);
+                                for (SimpleNode node : nodes) {
+                                    assertEquals(replicas.contains(node), ring.ranges(node, 3).contains(slot));
+                                }
+                            }
+                        }),
+                dynamicTest("Ownership fractions, expected the whole ring in total",
+                        () -> {
+                            double total = nodes.stream().mapToDouble(ring::ownershipFraction).sum();
+                            double replicas = nodes.stream().mapToDouble(n -> ring.ranges(n, 3).getFraction()).sum();
+                            assertEquals(1, total, 1e-9);
+                            assertEquals(3, replicas, 1e-9);
+                            assertEquals(1, ring.ranges(nodes.get(0), 10).getFraction(), 1e-9);
+                        }),
+                dynamicTest("Ranges of the same version, expected cached instance",
+                        () -> {
+                            TokenRanges ranges = ring.ranges(nodes.get(0));
+                            assertSame(ranges, ring.ranges(nodes.get(0)));
+                            assertEquals(ranges.size() * 2, ranges.toArray().length);
+                            ring.remove(nodes.get(1));
+                            assertNotSame(ranges, ring.ranges(nodes.get(0)));
+                        }),
+                dynamicTest("Ranges of absent node, expected empty",
+                        () -> {
+                            assertTrue(ring.ranges(nodes.get(1)).isEmpty());
+                            assertEquals(0, ring.ownershipFraction(nodes.get(1)));
+                            assertThrows(IllegalArgumentException.class, () -> ring.ranges(nodes.get(0), 0));
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Ranges of the single node, expected the whole ring")
+    public void ranges_singleNode_wholeRing() {
+        SimpleNode node = SimpleNode.of("node");
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                .partitionRate(10)
+                .lockFreeReads(true)
+                .nodes(singleton(node))
+                .build();
+
+        TokenRanges ranges = ring.ranges(node);
+
+        assertEquals(1, ranges.size());
+        assertEquals(ranges.getStart(0), ranges.getEnd(0));
+        assertEquals(1, ranges.getFraction());
+        assertTrue(ranges.contains(0));
+        assertTrue(ranges.contains(Long.MAX_VALUE));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> locateAll_groupedByNode() {
+        List<SimpleNode> nodes = buildNodes(10);
+        List<String> keys = IntStream.range(0, 1000).mapToObj(i -> "key_" + i).collect(Collectors.toList());
+        keys.add(null);
+        keys.add("key_1");
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes)
+                    .build();
+            HashRing<SimpleNode> emptyRing = HashRing.<SimpleNode>newBuilder().lockFreeReads(lockFree).build();
+            Map<SimpleNode, List<String>> expected = keys.stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.groupingBy(ring::locateNode));
+
+            assertEquals(expected, ring.locateAll(keys));
+            assertTrue(emptyRing.locateAll(keys).isEmpty());
+        }));
+    }
+
+    @Test
+    @DisplayName("Locate nodes into buffers with read lock, expected no allocation on the hot path")
+    public void locate_buffers_locked_noAllocation() {
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                .nodes(buildNodes(10))
+                .build();
+        String[] keys = IntStream.range(0, 1000).mapToObj(i -> "key_" + i).toArray(String[]::new);
+        SimpleNode[] out = new SimpleNode[3];
+        List<SimpleNode> list = new ArrayList<>(3);
+        Runnable lookups = () -> {
+            for (String key : keys) {
+                ring.locate(key, out);
+                list.clear();
+                ring.locate(key, 3, list);
+            }
+        };
+        lookups.run();
+
+        assertTrue(allocatedBytes(lookups) < 1024);
+    }
+
+    @Test
+    @DisplayName("Locate nodes with lock-free reads, expected no allocation on the hot path")
+    public void locate_lockFreeReads_noAllocation() {
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder()
+                .lockFreeReads(true)
+                .nodes(buildNodes(10))
+                .build();
+        String[] keys = IntStream.range(0, 1000).mapToObj(i -> "key_" + i).toArray(String[]::new);
+        SimpleNode[] out = new SimpleNode[3];
+        List<SimpleNode> list = new ArrayList<>(3);
+        byte[] bytes = "binary_key".getBytes(UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Runnable lookups = () -> {
+            for (String key : keys) {
+                ring.locateNode(key);
+                ring.locate(key, out);
+                list.clear();
+                ring.locate(key, 3, list);
+                ring.locateNode(bytes, 0, bytes.length);
+                ring.locateNode(direct, 0, bytes.length);
+            }
+        };
+
+        assertTrue(allocatedBytes(lookups) < 1024);
+    }
+
+    private static Map<String, SimpleNode> locateKeys(HashRing<SimpleNode> ring) {
+        return IntStream.range(0, 5000)
+                .mapToObj(i -> "key_" + i)
+                .collect(Collectors.toMap(key -> key, ring::locateNode));
+    }
+
+    private static void assertDelta(Map<String, SimpleNode> before, HashRing<SimpleNode> ring,
+                                    RingDelta<SimpleNode> delta) {
+        assertFalse(delta.isEmpty());
+        before.forEach((key, node) -> {
+            int arc = delta.indexOf(Math.abs(ring.getHasher().hash(key, 0)));
+            SimpleNode after = ring.locateNode(key);
+            if (node.equals(after)) {
+                assertEquals(-1, arc);
+            } else {
+                assertTrue(arc >= 0);
+                assertEquals(node, delta.getFrom(arc));
+                assertEquals(after, delta.getTo(arc));
+            }
+        });
+    }
+
+    private static List<SimpleNode> buildNodes(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> SimpleNode.of("192.168.1." + i))
+                .collect(Collectors.toList());
+    }
+
+    static long allocatedBytes(Runnable task) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+
+        long threadId = Thread.currentThread().getId();
+        task.run();
+        long start = bean.getThreadAllocatedBytes(threadId);
+        task.run();
+        return bean.getThreadAllocatedBytes(threadId) - start;
+    }
 }
@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.ishugaliy.allgood.consistent.hash.HotKeyRouter.Selection.RANDOM;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotKeyRouterTest {
+
+    @Test
+    @DisplayName("Locate not hot keys, expected the same nodes as the ring")
+    public void locate_notHotKey_sameAsRing() {
+        HashRing<SimpleNode> ring = buildRing(10);
+        HotKeyRouter<SimpleNode> router = HotKeyRouter.newBuilder(ring).build();
+        router.markHot("hot");
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.locate("key_" + i), router.locate("key_" + i));
+        }
+        assertNull(router.locateNode(null));
+    }
+
+    @Test
+    @DisplayName("Locate marked hot key, expected spread nodes in turn")
+    public void locate_hotKey_roundRobin() {
+        HashRing<SimpleNode> ring = buildRing(10);
+        HotKeyRouter<SimpleNode> router = HotKeyRouter.newBuilder(ring).spread(3).build();
+        router.markHot("hot");
+        List<SimpleNode> spread = ring.preferenceList("hot", 3);
+
+        List<SimpleNode> located = IntStream.range(0, 6)
+                .mapToObj(i -> router.locateNode("hot"))
+                .collect(Collectors.toList());
+
+        List<SimpleNode> expected = new ArrayList<>(spread);
+        expected.addAll(spread);
+        assertEquals(expected, located);
+        assertTrue(router.isHot("hot"));
+        assertEquals(Collections.singleton("hot"), router.getHotKeys());
+    }
+
+    @Test
+    @DisplayName("Locate marked hot key with random selection, expected several of spread nodes")
+    public void locate_hotKey_random() {
+        HashRing<SimpleNode> ring = buildRing(10);
+        HotKeyRouter<SimpleNode> router = HotKeyRouter.newBuilder(ring).spread(4).selection(RANDOM).build();
+        router.markHot("hot");
+        Set<SimpleNode> located = new HashSet<>();
+
+        for (int i = 0; i < 200; i++) {
+            located.add(router.locateNode("hot"));
+        }
+
+        assertEquals(RANDOM, router.getSelection());
+        assertTrue(located.size() > 1);
+        assertTrue(ring.preferenceList("hot", 4).containsAll(located));
+    }
+
+    @Test
+    @DisplayName("Change spread and unmark hot key, expected router to follow the changes")
+    public void reconfigure_atRuntime() {
+        HashRing<SimpleNode> ring = buildRing(10);
+        HotKeyRouter<SimpleNode> router = HotKeyRouter.newBuilder(ring).build();
+        router.markHot("hot");
+        router.setSpread(5);
+        Set<SimpleNode> located = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            located.add(router.locateNode("hot"));
+        }
+        assertEquals(new HashSet<>(ring.preferenceList("hot", 5)), located);
+
+        assertTrue(router.unmarkHot("hot"));
+        assertFalse(router.unmarkHot("hot"));
+        assertFalse(router.isHot("hot"));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ring.locateNode("hot"), router.locateNode("hot"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> router.setSpread(1));
+    }
+
+    @Test
+    @DisplayName("Locate key more often than the threshold, expected key detected and cooled down later")
+    public void detector_hotKey_detectedAndCooled() {
+        HashRing<SimpleNode> ring = buildRing(10);
+        HotKeyRouter<SimpleNode> router = HotKeyRouter.newBuilder(ring).detector(50, 1000).build();
+
+        for (int i = 0; i < 1000; i++) {
+            router.locateNode(i % 10 == 0 ? "viral" : "key_" + i);
+        }
+        assertTrue(router.isHot("viral"));
+        assertEquals(Collections.singleton("viral"), router.getHotKeys());
+
+        for (int i = 0; i < 5000; i++) {
+            router.locateNode("key_" + i);
+        }
+        assertFalse(router.isHot("viral"));
+    }
+
+    @Test
+    @DisplayName("Locate key with the same hash code as the hot key, expected key not detected")
+    public void detector_hashCodeCollision_notDetected() {
+        HotKeyRouter<SimpleNode> router = HotKeyRouter.newBuilder(buildRing(10)).detector(50, 1000).build();
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        for (int i = 0; i < 200; i++) {
+            router.locateNode("Aa");
+        }
+        for (int i = 0; i < 10; i++) {
+            router.locateNode("BB");
+        }
+        assertTrue(router.isHot("Aa"));
+        assertFalse(router.isHot("BB"));
+    }
+
+    @Test
+    @DisplayName("Mark detected key explicitly, expected key not cooled down")
+    public void detector_markedKey_notCooled() {
+        HotKeyRouter<SimpleNode> router = HotKeyRouter.newBuilder(buildRing(3)).detector(2, 100).build();
+        router.markHot("hot");
+
+        for (int i = 0; i < 1000; i++) {
+            router.locateNode("key_" + i);
+        }
+        assertTrue(router.isHot("hot"));
+    }
+
+    @Test
+    @DisplayName("Locate hot key in small and empty rings, expected all nodes or null")
+    public void locate_smallRing() {
+        HashRing<SimpleNode> ring = buildRing(1);
+        HotKeyRouter<SimpleNode> router = HotKeyRouter.newBuilder(ring).spread(3).build();
+        router.markHot("hot");
+        assertEquals(ring.locateNode("hot"), router.locateNode("hot"));
+
+        HotKeyRouter<SimpleNode> empty = HotKeyRouter.newBuilder(buildRing(0)).build();
+        empty.markHot("hot");
+        assertFalse(empty.locate("hot").isPresent());
+    }
+
+    @Test
+    @DisplayName("Build router with invalid properties, expected exceptions")
+    public void builder_invalid_exception() {
+        HashRing<SimpleNode> ring = buildRing(1);
+        assertThrows(NullPointerException.class, () -> HotKeyRouter.newBuilder(null));
+        assertThrows(IllegalArgumentException.class, () -> HotKeyRouter.newBuilder(ring).spread(1));
+        assertThrows(NullPointerException.class, () -> HotKeyRouter.newBuilder(ring).selection(null));
+        assertThrows(IllegalArgumentException.class, () -> HotKeyRouter.newBuilder(ring).detector(1, 100));
+        assertThrows(IllegalArgumentException.class, () -> HotKeyRouter.newBuilder(ring).detector(10, 5));
+        assertThrows(IllegalArgumentException.class, () -> HotKeyRouter.newBuilder(ring).maxDetected(0));
+        assertThrows(NullPointerException.class, () -> HotKeyRouter.newBuilder(ring).build().markHot(null));
+    }
+
+    private static HashRing<SimpleNode> buildRing(int size) {
+        return HashRing.<SimpleNode>newBuilder()
+                .partitionRate(50)
+                .nodes(IntStream.range(0, size)
+                        .mapToObj(i -> SimpleNode.of("node_" + i))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher.METRO_HASH;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class JumpHashRingTest {
+
+    private static final int KEYS_COUNT = 10_000;
+
+    @Test
+    @DisplayName("Build jump hash and check if all properties were properly set")
+    public void build_allPropertiesSet_fullyInitializedHash() {
+        JumpHashRing<SimpleNode> ring = JumpHashRing.<SimpleNode>newBuilder()
+                .name("jump")
+                .hasher(METRO_HASH)
+                .nodes(buildNodes(3))
+                .build();
+
+        assertEquals("jump", ring.getName());
+        assertEquals(METRO_HASH, ring.getHasher());
+        assertEquals(new HashSet<>(buildNodes(3)), ring.getNodes());
+    }
+
+    @Test
+    @DisplayName("Build jump hash without any parameters and check if all properties have default values")
+    public void build_nonePropertiesSet_hashWithDefaultProperties() {
+        JumpHashRing<SimpleNode> ring = JumpHashRing.<SimpleNode>newBuilder().build();
+
+        assertNotNull(ring.getName());
+        assertNotNull(ring.getHasher());
+        assertEquals(0, ring.size());
+        assertNull(ring.locateNode("key"));
+        assertTrue(ring.locate("key", 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Compute jump hash for known inputs, expected values of reference implementation")
+    public void jump_referenceValues() {
+        assertEquals(0, JumpHashRing.jump(1, 1));
+        assertEquals(43, JumpHashRing.jump(42, 57));
+        assertEquals(0, JumpHashRing.jump(0xDEAD10CCL, 1));
+        assertEquals(361, JumpHashRing.jump(0xDEAD10CCL, 666));
+        assertEquals(520, JumpHashRing.jump(256, 1024));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> addAndRemove() {
+        List<SimpleNode> nodes = buildNodes(4);
+        JumpHashRing<SimpleNode> ring = JumpHashRing.<SimpleNode>newBuilder().build();
+        return Stream.of(
+                dynamicTest("Add nodes, expected true and nodes added",
+                        () -> {
+                            assertTrue(ring.addAll(nodes));
+                            assertEquals(4, ring.size());
+                        }),
+                dynamicTest("Add existing and null nodes, expected false",
+                        () -> {
+                            assertFalse(ring.add(nodes.get(0)));
+                            assertFalse(ring.add(null));
+                            assertFalse(ring.addAll(null));
+                        }),
+                dynamicTest("Remove node, expected true and node removed",
+                        () -> {
+                            assertTrue(ring.remove(nodes.get(1)));
+                            assertFalse(ring.remove(nodes.get(1)));
+                            assertFalse(ring.contains(nodes.get(1)));
+                            assertEquals(3, ring.size());
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Add node to the tail, expected only keys moved to the new node")
+    public void add_tailNode_minimalDisruption() {
+        List<SimpleNode> nodes = buildNodes(10);
+        JumpHashRing<SimpleNode> ring = JumpHashRing.<SimpleNode>newBuilder().nodes(nodes).build();
+        List<SimpleNode> before = locateAll(ring);
+
+        SimpleNode added = SimpleNode.of("192.168.1.10");
+        ring.add(added);
+        List<SimpleNode> after = locateAll(ring);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            if (!before.get(i).equals(after.get(i))) {
+                assertEquals(added, after.get(i));
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS_COUNT / 11 * 0.8 && moved < KEYS_COUNT / 11 * 1.2);
+    }
+
+    @Test
+    @DisplayName("Remove inner node, expected keys moved only from the removed and the last nodes")
+    public void remove_innerNode_lastNodeMoved() {
+        List<SimpleNode> nodes = buildNodes(10);
+        JumpHashRing<SimpleNode> ring = JumpHashRing.<SimpleNode>newBuilder().nodes(nodes).build();
+        List<SimpleNode> before = locateAll(ring);
+
+        ring.remove(nodes.get(3));
+        List<SimpleNode> after = locateAll(ring);
+
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            SimpleNode prev = before.get(i);
+            if (!prev.equals(nodes.get(3)) && !prev.equals(nodes.get(9))) {
+                assertEquals(prev, after.get(i));
+            }
+            assertNotEquals(nodes.get(3), after.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Locate keys, expected even distribution between nodes")
+    public void locate_evenDistribution() {
+        JumpHashRing<SimpleNode> ring = JumpHashRing.<SimpleNode>newBuilder().nodes(buildNodes(10)).build();
+        Map<SimpleNode, Long> loads = locateAll(ring).stream()
+                .collect(Collectors.groupingBy(n -> n, Collectors.counting()));
+
+        assertEquals(10, loads.size());
+        loads.values().forEach(load -> assertTrue(Math.abs(load - KEYS_COUNT / 10) < KEYS_COUNT / 10 * 0.15));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> locate_replicas() {
+        JumpHashRing<SimpleNode> ring = JumpHashRing.<SimpleNode>newBuilder().nodes(buildNodes(5)).build();
+        return Stream.of(
+                dynamicTest("Locate 3 nodes, expected 3 distinct nodes, primary first",
+                        () -> {
+                            for (int i = 0; i < 100; i++) {
+                                String key = "key_" + i;
+                                SimpleNode[] out = new SimpleNode[3];
+                                List<SimpleNode> list = new ArrayList<>();
+
+                                assertEquals(3, ring.locate(key, out));
+                                assertEquals(3, ring.locate(key, 3, list));
+                                assertEquals(ring.locateNode(key), out[0]);
+                                assertEquals(Arrays.asList(out), list);
+                                assertEquals(new HashSet<>(list), ring.locate(key, 3));
+                            }
+                        }),
+                dynamicTest("Locate all nodes, expected all nodes",
+                        () -> {
+                            assertEquals(5, ring.locate("key", new SimpleNode[10]));
+                            assertEquals(ring.getNodes(), ring.locate("key", 10));
+                        }),
+                dynamicTest("Locate with null key or negative count, expected empty result",
+                        () -> {
+                            assertFalse(ring.locate(null).isPresent());
+                            assertTrue(ring.locate(null, 2).isEmpty());
+                            assertTrue(ring.locate("key", -1).isEmpty());
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Locate all keys at once, expected keys grouped by located nodes")
+    public void locateAll_groupedByNode() {
+        JumpHashRing<SimpleNode> ring = JumpHashRing.<SimpleNode>newBuilder().nodes(buildNodes(5)).build();
+        List<String> keys = IntStream.range(0, 100).mapToObj(i -> "key_" + i).collect(Collectors.toList());
+        Map<SimpleNode, List<String>> expected = keys.stream().collect(Collectors.groupingBy(ring::locateNode));
+
+        assertEquals(expected, ring.locateAll(keys));
+        assertTrue(JumpHashRing.<SimpleNode>newBuilder().build().locateAll(keys).isEmpty());
+    }
+
+    private static List<SimpleNode> buildNodes(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> SimpleNode.of("192.168.1." + i))
+                .collect(Collectors.toList());
+    }
+
+    private static List<SimpleNode> locateAll(ConsistentHash<SimpleNode> ring) {
+        return IntStream.range(0, KEYS_COUNT)
+                .mapToObj(i -> ring.locateNode("key_" + i))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class MigrationPlannerTest {
+
+    @TestFactory
+    public Stream<DynamicTest> plan_scaleOut_movedKeysOnly() {
+        List<SimpleNode> nodes = buildNodes(12);
+        return Stream.of(1, 3).map(rf -> dynamicTest("Replication factor " + rf, () -> {
+            HashRing<SimpleNode> ring = buildRing(nodes.subList(0, 10));
+            RingSnapshot<SimpleNode> before = ring.snapshot();
+            ring.addAll(nodes.subList(10, 12));
+            RingSnapshot<SimpleNode> after = ring.snapshot();
+
+            MigrationPlan<SimpleNode> plan = MigrationPlanner.plan(before, after, rf);
+
+            assertEquals(rf, plan.getReplicationFactor());
+            assertFalse(plan.isEmpty());
+            assertMoved(before, after, plan, rf);
+        }));
+    }
+
+    @Test
+    @DisplayName("Plan removal of a node with replication, expected sources among the old replicas")
+    public void plan_scaleIn_movedKeysOnly() {
+        List<SimpleNode> nodes = buildNodes(10);
+        HashRing<SimpleNode> ring = buildRing(nodes);
+        RingSnapshot<SimpleNode> before = ring.snapshot();
+        ring.remove(nodes.get(4));
+        RingSnapshot<SimpleNode> after = ring.snapshot();
+
+        MigrationPlan<SimpleNode> plan = MigrationPlanner.plan(before, after, 3);
+
+        assertMoved(before, after, plan, 3);
+        plan.getTransfers().forEach(transfer -> assertNotEquals(nodes.get(4), transfer.getTarget()));
+    }
+
+    @Test
+    @DisplayName("Plan new replica of keys, which old replicas all stay, expected load spread between sources")
+    public void plan_allReplicasStay_sourcesSpread() {
+        List<SimpleNode> nodes = buildNodes(3);
+        HashRing<SimpleNode> ring = buildRing(nodes.subList(0, 2));
+        RingSnapshot<SimpleNode> before = ring.snapshot();
+        ring.add(nodes.get(2));
+        RingSnapshot<SimpleNode> after = ring.snapshot();
+
+        MigrationPlan<SimpleNode> plan = MigrationPlanner.plan(before, after, 3);
+
+        Map<SimpleNode, Double> sent = plan.getTransfers().stream().collect(Collectors.groupingBy(
+                MigrationPlan.Transfer::getSource, Collectors.summingDouble(MigrationPlan.Transfer::getFraction)));
+        assertEquals(new HashSet<>(nodes.subList(0, 2)), sent.keySet());
+        assertEquals(1, plan.getFraction(), 1e-9);
+        sent.values().forEach(fraction -> assertEquals(0.5, fraction, 0.05));
+    }
+
+    @Test
+    @DisplayName("Plan pending membership changes, expected the same plan as for the changed ring")
+    public void plan_pendingChanges_sameAsChangedRing() {
+        List<SimpleNode> nodes = buildNodes(12);
+        HashRing<SimpleNode> ring = buildRing(nodes.subList(0, 10));
+        RingSnapshot<SimpleNode> before = ring.snapshot();
+
+        MigrationPlan<SimpleNode> pending = MigrationPlanner.plan(ring, nodes.subList(10, 12),
+                singletonList(nodes.get(2)), 2);
+
+        assertSame(before, ring.snapshot());
+        ring.remove(nodes.get(2));
+        ring.addAll(nodes.subList(10, 12));
+        MigrationPlan<SimpleNode> applied = MigrationPlanner.plan(before, ring.snapshot(), 2);
+        assertEquals(applied.getTransfers().size(), pending.getTransfers().size());
+        for (int i = 0; i < applied.getTransfers().size(); i++) {
+            MigrationPlan.Transfer<SimpleNode> expected = applied.getTransfers().get(i);
+            MigrationPlan.Transfer<SimpleNode> actual = pending.getTransfers().get(i);
+            assertEquals(expected.getSource(), actual.getSource());
+            assertEquals(expected.getTarget(), actual.getTarget());
+            assertArrayEquals(expected.getRanges().toArray(), actual.getRanges().toArray());
+        }
+    }
+
+    @Test
+    @DisplayName("Plan without changes or from empty ring, expected empty plan")
+    public void plan_noChanges_empty() {
+        HashRing<SimpleNode> ring = buildRing(buildNodes(5));
+        HashRing<SimpleNode> empty = buildRing(emptyList());
+
+        assertTrue(MigrationPlanner.plan(ring, emptyList(), emptyList(), 3).isEmpty());
+        assertTrue(MigrationPlanner.plan(empty.snapshot(), ring.snapshot(), 1).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> MigrationPlanner.plan(ring.snapshot(), ring.snapshot(), 0));
+    }
+
+    @Test
+    @DisplayName("Split plan into chunks and rounds, expected bounded chunks and streams per node")
+    public void schedule_boundedChunksAndStreams() {
+        List<SimpleNode> nodes = buildNodes(20);
+        HashRing<SimpleNode> ring = buildRing(nodes.subList(0, 16));
+        MigrationPlan<SimpleNode> plan = MigrationPlanner.plan(ring, nodes.subList(16, 20), emptyList(), 3);
+
+        List<MigrationPlan.Transfer<SimpleNode>> chunks = plan.chunks(0.01);
+        List<List<MigrationPlan.Transfer<SimpleNode>>> rounds = plan.schedule(0.01, 2);
+
+        assertEquals(plan.getFraction(), chunks.stream().mapToDouble(MigrationPlan.Transfer::getFraction).sum(), 1e-9);
+        chunks.forEach(chunk -> assertTrue(chunk.getFraction() <= 0.01 + 1e-12));
+        assertEquals(chunks.size(), rounds.stream().mapToInt(List::size).sum());
+        for (List<MigrationPlan.Transfer<SimpleNode>> round : rounds) {
+            Map<SimpleNode, Integer> streams = new HashMap<>();
+            round.forEach(chunk -> {
+                streams.merge(chunk.getSource(), 1, Integer::sum);
+                streams.merge(chunk.getTarget(), 1, Integer::sum);
+            });
+            streams.values().forEach(count -> assertTrue(count <= 2));
+        }
+        assertThrows(IllegalArgumentException.class, () -> plan.chunks(0));
+        assertThrows(IllegalArgumentException.class, () -> plan.schedule(0.1, 0));
+    }
+
+    private static void assertMoved(RingSnapshot<SimpleNode> before, RingSnapshot<SimpleNode> after,
+                                    MigrationPlan<SimpleNode> plan, int rf) {
+        for (int i = 0; i < 5000; i++) {
+            String key = "key_" + i;
+            long slot = Math.abs(before.hasher().hash(key, 0));
+            Set<SimpleNode> oldReplicas = before.locate(key, rf);
+            Set<SimpleNode> newReplicas = after.locate(key, rf);
+            Set<SimpleNode> targets = new HashSet<>(newReplicas);
+            targets.removeAll(oldReplicas);
+
+            List<MigrationPlan.Transfer<SimpleNode>> transfers = plan.getTransfers().stream()
+                    .filter(transfer -> transfer.getRanges().contains(slot))
+                    .collect(Collectors.toList());
+            assertEquals(targets, transfers.stream().map(MigrationPlan.Transfer::getTarget).collect(Collectors.toSet()));
+            assertEquals(targets.size(), transfers.size());
+            transfers.forEach(transfer -> assertTrue(oldReplicas.contains(transfer.getSource())));
+        }
+    }
+
+    private static HashRing<SimpleNode> buildRing(List<SimpleNode> nodes) {
+        return HashRing.<SimpleNode>newBuilder()
+                .partitionRate(50)
+                .nodes(nodes)
+                .build();
+    }
+
+    private static List<SimpleNode> buildNodes(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> SimpleNode.of("192.168.1." + i))
+                .collect(Collectors.toList());
+    }
+}
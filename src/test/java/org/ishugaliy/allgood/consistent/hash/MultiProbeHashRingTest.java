@@ -0,0 +1,224 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher.METRO_HASH;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class MultiProbeHashRingTest {
+
+    private static final int KEYS_COUNT = 10_000;
+
+    @Test
+    @DisplayName("Build multi-probe ring and check if all properties were properly set")
+    public void build_allPropertiesSet_fullyInitializedRing() {
+        MultiProbeHashRing<SimpleNode> ring = MultiProbeHashRing.<SimpleNode>newBuilder()
+                .name("multi_probe")
+                .hasher(METRO_HASH)
+                .probes(5)
+                .nodes(buildNodes(3))
+                .build();
+
+        assertEquals("multi_probe", ring.getName());
+        assertEquals(METRO_HASH, ring.getHasher());
+        assertEquals(5, ring.getProbes());
+        assertEquals(new HashSet<>(buildNodes(3)), ring.getNodes());
+    }
+
+    @Test
+    @DisplayName("Build multi-probe ring without any parameters and check if all properties have default values")
+    public void build_nonePropertiesSet_ringWithDefaultProperties() {
+        MultiProbeHashRing<SimpleNode> ring = MultiProbeHashRing.<SimpleNode>newBuilder().build();
+
+        assertNotNull(ring.getName());
+        assertNotNull(ring.getHasher());
+        assertEquals(21, ring.getProbes());
+        assertEquals(0, ring.size());
+        assertNull(ring.locateNode("key"));
+        assertTrue(ring.locate("key", 2).isEmpty());
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> build_invalidProbes_exception() {
+        return Stream.of(0, -1).map(probes ->
+                dynamicTest("Build multi-probe ring with " + probes + " probes, expected IllegalArgumentException",
+                        () -> assertThrows(IllegalArgumentException.class,
+                                () -> MultiProbeHashRing.newBuilder().probes(probes))));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> addAndRemove() {
+        List<SimpleNode> nodes = buildNodes(4);
+        MultiProbeHashRing<SimpleNode> ring = MultiProbeHashRing.<SimpleNode>newBuilder().build();
+        return Stream.of(
+                dynamicTest("Add nodes, expected true and nodes added",
+                        () -> {
+                            assertTrue(ring.addAll(nodes));
+                            assertEquals(4, ring.size());
+                        }),
+                dynamicTest("Add existing and null nodes, expected false",
+                        () -> {
+                            assertFalse(ring.add(nodes.get(0)));
+                            assertFalse(ring.add(null));
+                            assertFalse(ring.addAll(null));
+                        }),
+                dynamicTest("Remove node, expected true and node removed",
+                        () -> {
+                            assertTrue(ring.remove(nodes.get(1)));
+                            assertFalse(ring.remove(nodes.get(1)));
+                            assertFalse(ring.contains(nodes.get(1)));
+                            assertEquals(3, ring.size());
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Add and remove node, expected only keys of the changed node moved")
+    public void addAndRemove_minimalDisruption() {
+        List<SimpleNode> nodes = buildNodes(10);
+        MultiProbeHashRing<SimpleNode> ring = MultiProbeHashRing.<SimpleNode>newBuilder().nodes(nodes).build();
+        List<SimpleNode> before = locateAll(ring);
+
+        SimpleNode added = SimpleNode.of("192.168.1.10");
+        ring.add(added);
+        List<SimpleNode> afterAdd = locateAll(ring);
+        ring.remove(nodes.get(3));
+        List<SimpleNode> afterRemove = locateAll(ring);
+
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            if (!afterAdd.get(i).equals(added)) {
+                assertEquals(before.get(i), afterAdd.get(i));
+            }
+            if (!afterAdd.get(i).equals(nodes.get(3))) {
+                assertEquals(afterAdd.get(i), afterRemove.get(i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Locate keys, expected peak load close to the mean")
+    public void locate_peakToMeanLoad() {
+        MultiProbeHashRing<SimpleNode> ring = MultiProbeHashRing.<SimpleNode>newBuilder().nodes(buildNodes(10)).build();
+        Map<SimpleNode, Long> loads = locateAll(ring).stream()
+                .collect(Collectors.groupingBy(n -> n, Collectors.counting()));
+
+        // probes bound the peak load, node with the short arc before it may still get fewer keys
+        assertEquals(10, loads.size());
+        assertTrue(Collections.max(loads.values()) < KEYS_COUNT / 10 * 1.15);
+    }
+
+    @Test
+    @DisplayName("Locate char sequence and binary keys, expected same nodes as for string and byte array keys")
+    public void locateNode_binaryKeys_sameAsString() {
+        MultiProbeHashRing<SimpleNode> ring = MultiProbeHashRing.<SimpleNode>newBuilder().nodes(buildNodes(10)).build();
+        for (int i = 0; i < 100; i++) {
+            String key = "key_" + i;
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip();
+            SimpleNode node = ring.locateNode(bytes, 0, bytes.length);
+
+            assertEquals(ring.locateNode(key), ring.locateNode(new StringBuilder(key)));
+            assertEquals(node, ring.locateNode(ByteBuffer.wrap(bytes), 0, bytes.length));
+            assertEquals(node, ring.locateNode(direct, 0, bytes.length));
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> locate_replicas() {
+        MultiProbeHashRing<SimpleNode> ring = MultiProbeHashRing.<SimpleNode>newBuilder().nodes(buildNodes(5)).build();
+        return Stream.of(
+                dynamicTest("Locate 3 nodes, expected 3 distinct nodes, primary first",
+                        () -> {
+                            for (int i = 0; i < 100; i++) {
+                                String key = "key_" + i;
+                                SimpleNode[] out = new SimpleNode[3];
+                                List<SimpleNode> list = new ArrayList<>();
+
+                                assertEquals(3, ring.locate(key, out));
+                                assertEquals(3, ring.locate(key, 3, list));
+                                assertEquals(ring.locateNode(key), out[0]);
+                                assertEquals(Arrays.asList(out), list);
+                                assertEquals(3, new HashSet<>(list).size());
+                                assertEquals(new HashSet<>(list), ring.locate(key, 3));
+                            }
+                        }),
+                dynamicTest("Locate all nodes, expected all nodes",
+                        () -> {
+                            assertEquals(5, ring.locate("key", new SimpleNode[10]));
+                            assertEquals(ring.getNodes(), ring.locate("key", 10));
+                        }),
+                dynamicTest("Locate with null key or negative count, expected empty result",
+                        () -> {
+                            assertFalse(ring.locate(null).isPresent());
+                            assertTrue(ring.locate(null, 2).isEmpty());
+                            assertTrue(ring.locate("key", -1).isEmpty());
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Locate node, expected zero allocation")
+    public void locateNode_zeroAllocation() {
+        MultiProbeHashRing<SimpleNode> ring = MultiProbeHashRing.<SimpleNode>newBuilder().nodes(buildNodes(10)).build();
+        SimpleNode[] out = new SimpleNode[3];
+        ring.locateNode("key");
+        ring.locate("key", out);
+
+        long allocated = HashRingTest.allocatedBytes(() -> {
+            for (int i = 0; i < 1000; i++) {
+                ring.locateNode("key");
+                ring.locate("key", out);
+            }
+        });
+        assertTrue(allocated < 1024);
+    }
+
+    private static List<SimpleNode> buildNodes(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> SimpleNode.of("192.168.1." + i))
+                .collect(Collectors.toList());
+    }
+
+    private static List<SimpleNode> locateAll(ConsistentHash<SimpleNode> ring) {
+        return IntStream.range(0, KEYS_COUNT)
+                .mapToObj(i -> ring.locateNode("key_" + i))
+                .collect(Collectors.toList());
+    }
+}
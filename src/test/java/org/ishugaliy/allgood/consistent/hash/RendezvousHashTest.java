@@ -0,0 +1,265 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher.METRO_HASH;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class RendezvousHashTest {
+
+    private static final int KEYS_COUNT = 10_000;
+
+    @Test
+    @DisplayName("Build rendezvous hash and check if all properties were properly set")
+    public void build_allPropertiesSet_fullyInitializedHash() {
+        RendezvousHash<SimpleNode> ring = RendezvousHash.<SimpleNode>newBuilder()
+                .name("rendezvous")
+                .hasher(METRO_HASH)
+                .weigher(node -> 2)
+                .nodes(buildNodes(3))
+                .build();
+
+        assertEquals("rendezvous", ring.getName());
+        assertEquals(METRO_HASH, ring.getHasher());
+        assertEquals(2, ring.getWeight(SimpleNode.of("192.168.1.0")));
+        assertEquals(new HashSet<>(buildNodes(3)), ring.getNodes());
+    }
+
+    @Test
+    @DisplayName("Build rendezvous hash without any parameters and check if all properties have default values")
+    public void build_nonePropertiesSet_hashWithDefaultProperties() {
+        RendezvousHash<SimpleNode> ring = RendezvousHash.<SimpleNode>newBuilder().build();
+
+        assertNotNull(ring.getName());
+        assertNotNull(ring.getHasher());
+        assertEquals(0, ring.size());
+        assertNull(ring.locateNode("key"));
+        assertTrue(ring.locate("key", 2).isEmpty());
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> add_invalidWeight_exception() {
+        return Stream.of(0d, -1d, Double.NaN, Double.POSITIVE_INFINITY).map(weight ->
+                dynamicTest("Add node with weight " + weight + ", expected IllegalArgumentException",
+                        () -> {
+                            RendezvousHash<SimpleNode> ring = RendezvousHash.<SimpleNode>newBuilder()
+                                    .weigher(node -> weight)
+                                    .build();
+                            assertThrows(IllegalArgumentException.class, () -> ring.add(SimpleNode.of("node")));
+                            assertEquals(0, ring.size());
+                        }));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> addAndRemove() {
+        List<SimpleNode> nodes = buildNodes(4);
+        RendezvousHash<SimpleNode> ring = RendezvousHash.<SimpleNode>newBuilder().build();
+        return Stream.of(
+                dynamicTest("Add nodes, expected true and nodes added",
+                        () -> {
+                            assertTrue(ring.addAll(nodes));
+                            assertEquals(4, ring.size());
+                            assertEquals(1, ring.getWeight(nodes.get(0)));
+                        }),
+                dynamicTest("Add existing and null nodes, expected false",
+                        () -> {
+                            assertFalse(ring.add(nodes.get(0)));
+                            assertFalse(ring.add(null));
+                            assertFalse(ring.addAll(null));
+                        }),
+                dynamicTest("Remove node, expected true and node removed",
+                        () -> {
+                            assertTrue(ring.remove(nodes.get(1)));
+                            assertFalse(ring.remove(nodes.get(1)));
+                            assertFalse(ring.contains(nodes.get(1)));
+                            assertEquals(0, ring.getWeight(nodes.get(1)));
+                            assertEquals(3, ring.size());
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Add and remove node, expected only keys of the changed node moved")
+    public void addAndRemove_minimalDisruption() {
+        List<SimpleNode> nodes = buildNodes(10);
+        RendezvousHash<SimpleNode> ring = RendezvousHash.<SimpleNode>newBuilder().nodes(nodes).build();
+        List<SimpleNode> before = locateAll(ring);
+
+        SimpleNode added = SimpleNode.of("192.168.1.10");
+        ring.add(added);
+        List<SimpleNode> afterAdd = locateAll(ring);
+        ring.remove(nodes.get(3));
+        List<SimpleNode> afterRemove = locateAll(ring);
+
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            if (!afterAdd.get(i).equals(added)) {
+                assertEquals(before.get(i), afterAdd.get(i));
+            }
+            if (!afterAdd.get(i).equals(nodes.get(3))) {
+                assertEquals(afterAdd.get(i), afterRemove.get(i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Locate keys, expected even distribution between nodes")
+    public void locate_evenDistribution() {
+        RendezvousHash<SimpleNode> ring = RendezvousHash.<SimpleNode>newBuilder().nodes(buildNodes(10)).build();
+        Map<SimpleNode, Long> loads = locateAll(ring).stream()
+                .collect(Collectors.groupingBy(n -> n, Collectors.counting()));
+
+        assertEquals(10, loads.size());
+        loads.values().forEach(load -> assertTrue(Math.abs(load - KEYS_COUNT / 10) < KEYS_COUNT / 10 * 0.15));
+    }
+
+    @Test
+    @DisplayName("Locate keys on weighted nodes, expected load proportional to weight")
+    public void locate_weightedNodes_proportionalDistribution() {
+        SimpleNode heavy = SimpleNode.of("192.168.1.0");
+        RendezvousHash<SimpleNode> ring = RendezvousHash.<SimpleNode>newBuilder()
+                .weigher(node -> node.equals(heavy) ? 3 : 1)
+                .nodes(buildNodes(5))
+                .build();
+        Map<SimpleNode, Long> loads = locateAll(ring).stream()
+                .collect(Collectors.groupingBy(n -> n, Collectors.counting()));
+
+        // total weight is 7, so the heavy node expects 3/7 and each other node 1/7 of keys
+        assertTrue(Math.abs(loads.get(heavy) - KEYS_COUNT * 3 / 7) < KEYS_COUNT * 3 / 7 * 0.1);
+        loads.forEach((node, load) -> {
+            if (!node.equals(heavy)) {
+                assertTrue(Math.abs(load - KEYS_COUNT / 7) < KEYS_COUNT / 7 * 0.15);
+            }
+        });
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> locate_replicas() {
+        RendezvousHash<SimpleNode> ring = RendezvousHash.<SimpleNode>newBuilder().nodes(buildNodes(20)).build();
+        return Stream.of(
+                dynamicTest("Locate 3 nodes, expected 3 distinct nodes, primary first",
+                        () -> {
+                            for (int i = 0; i < 100; i++) {
+                                String key = "key_" + i;
+                                SimpleNode[] out = new SimpleNode[3];
+                                List<SimpleNode> list = new ArrayList<>();
+
+                                assertEquals(3, ring.locate(key, out));
+                                assertEquals(3, ring.locate(key, 3, list));
+                                assertEquals(ring.locateNode(key), out[0]);
+                                assertEquals(Arrays.asList(out), list);
+                                assertEquals(new HashSet<>(list), ring.locate(key, 3));
+                            }
+                        }),
+                dynamicTest("Locate more nodes, expected fewer nodes as prefix",
+                        () -> {
+                            for (int i = 0; i < 100; i++) {
+                                String key = "key_" + i;
+                                SimpleNode[] three = new SimpleNode[3];
+                                SimpleNode[] five = new SimpleNode[5];
+                                ring.locate(key, three);
+                                ring.locate(key, five);
+
+                                assertEquals(Arrays.asList(three), Arrays.asList(five).subList(0, 3));
+                            }
+                        }),
+                dynamicTest("Locate all nodes, expected all nodes",
+                        () -> {
+                            assertEquals(20, ring.locate("key", new SimpleNode[30]));
+                            assertEquals(ring.getNodes(), ring.locate("key", 30));
+                        }),
+                dynamicTest("Locate with null key or negative count, expected empty result",
+                        () -> {
+                            assertFalse(ring.locate(null).isPresent());
+                            assertTrue(ring.locate(null, 2).isEmpty());
+                            assertTrue(ring.locate("key", -1).isEmpty());
+                        })
+        );
+    }
+
+    @Test
+    @DisplayName("Locate replicas into buffers, expected zero allocation")
+    public void locate_buffers_zeroAllocation() {
+        RendezvousHash<SimpleNode> ring = RendezvousHash.<SimpleNode>newBuilder().nodes(buildNodes(100)).build();
+        SimpleNode[] out = new SimpleNode[3];
+        List<SimpleNode> list = new ArrayList<>(3);
+        ring.locate("key", out);
+        ring.locate("key", 3, list);
+
+        long allocated = HashRingTest.allocatedBytes(() -> {
+            for (int i = 0; i < 1000; i++) {
+                ring.locate("key", out);
+                list.clear();
+                ring.locate("key", 3, list);
+            }
+        });
+        assertTrue(allocated < 1024);
+    }
+
+    @Test
+    @DisplayName("Locate 3 replicas of 100 nodes, expected less allocation than hash ring")
+    public void locate_replicas_lessAllocationThanHashRing() {
+        List<SimpleNode> nodes = buildNodes(100);
+        RendezvousHash<SimpleNode> rendezvous = RendezvousHash.<SimpleNode>newBuilder().nodes(nodes).build();
+        HashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder().nodes(nodes).build();
+        rendezvous.locate("key", 3);
+        ring.locate("key", 3);
+
+        long rendezvousBytes = HashRingTest.allocatedBytes(() -> {
+            for (int i = 0; i < 1000; i++) {
+                rendezvous.locate("key", 3);
+            }
+        });
+        long ringBytes = HashRingTest.allocatedBytes(() -> {
+            for (int i = 0; i < 1000; i++) {
+                ring.locate("key", 3);
+            }
+        });
+        assertTrue(rendezvousBytes * 2 < ringBytes);
+    }
+
+    private static List<SimpleNode> buildNodes(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> SimpleNode.of("192.168.1." + i))
+                .collect(Collectors.toList());
+    }
+
+    private static List<SimpleNode> locateAll(ConsistentHash<SimpleNode> ring) {
+        return IntStream.range(0, KEYS_COUNT)
+                .mapToObj(i -> ring.locateNode("key_" + i))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class RingArraysTest {
+
+    private static final int SIZE = RingArrays.PARALLEL_SORT_THRESHOLD * 3 + 7;
+
+    @TestFactory
+    public Stream<DynamicTest> parallelSort_sameAsSort() {
+        Random random = new Random(42);
+        return Stream.of(
+                dynamicTest("Sort non-negative hashes, expected the same order as of sequential sort",
+                        () -> assertSameAsSort(() -> random.nextLong() & Long.MAX_VALUE, SIZE)),
+                dynamicTest("Sort negative and positive keys, expected the same order as of sequential sort",
+                        () -> assertSameAsSort(random::nextLong, SIZE)),
+                dynamicTest("Sort keys with many duplicates, expected equal keys ordered by values",
+                        () -> assertSameAsSort(() -> random.nextInt(100) - 50, SIZE)),
+                dynamicTest("Sort the same key, expected all elements in one bucket ordered by values",
+                        () -> assertSameAsSort(() -> 7, SIZE)),
+                dynamicTest("Sort array smaller than the parallel threshold, expected the same order as of sequential sort",
+                        () -> assertSameAsSort(random::nextLong, 1000))
+        );
+    }
+
+    private static void assertSameAsSort(LongSupplier key, int size) {
+        long[] keys = new long[size + 1];
+        int[] values = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            keys[i] = key.getAsLong();
+            values[i] = size - i;
+        }
+        keys[size] = Long.MIN_VALUE;
+        long[] expectedKeys = keys.clone();
+        int[] expectedValues = values.clone();
+        RingArrays.sort(expectedKeys, expectedValues, 0, size);
+
+        RingArrays.parallelSort(keys, values, size);
+
+        assertArrayEquals(expectedKeys, keys);
+        assertArrayEquals(expectedValues, values);
+        assertEquals(Long.MIN_VALUE, keys[size], "elements after size are not sorted");
+        for (int i = 1; i < size; i++) {
+            assertTrue(keys[i - 1] < keys[i] || (keys[i - 1] == keys[i] && values[i - 1] < values[i]));
+        }
+        assertEquals(size, Arrays.stream(values, 0, size).distinct().count());
+    }
+}
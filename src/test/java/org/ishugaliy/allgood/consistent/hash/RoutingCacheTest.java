@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoutingCacheTest {
+
+    @Test
+    @DisplayName("Put and get keys, expected hits only for the same epoch")
+    public void get_epochChanged_miss() {
+        RoutingCache<String> cache = new RoutingCache<>(100);
+        cache.put("key1", "node1", 1);
+        cache.put("key2", "node2", 1);
+
+        assertEquals("node1", cache.get("key1", 1));
+        assertEquals("node2", cache.get("key2", 1));
+        assertNull(cache.get("key3", 1));
+        assertNull(cache.get("key1", 2));
+
+        RoutingCacheStats stats = cache.stats(1);
+        assertEquals(128, stats.getCapacity());
+        assertEquals(2, stats.getSize());
+        assertEquals(2, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+        assertEquals(0, cache.stats(2).getSize());
+    }
+
+    @Test
+    @DisplayName("Put key into the full set, expected not referenced entry to be evicted")
+    public void put_fullSet_clockEviction() {
+        RoutingCache<String> cache = new RoutingCache<>(1);
+        for (int i = 0; i < 4; i++) {
+            cache.put("key" + i, "node" + i, 1);
+        }
+        cache.get("key0", 1);
+        cache.get("key1", 1);
+
+        cache.put("key4", "node4", 1);
+
+        assertEquals(4, cache.capacity());
+        assertNull(cache.get("key2", 1));
+        assertEquals("node0", cache.get("key0", 1));
+        assertEquals("node1", cache.get("key1", 1));
+        assertEquals("node3", cache.get("key3", 1));
+        assertEquals("node4", cache.get("key4", 1));
+        assertEquals(1, cache.stats(1).getEvictions());
+    }
+
+    @Test
+    @DisplayName("Put key into the set with stale entries, expected stale entry to be replaced without eviction")
+    public void put_staleEntries_noEviction() {
+        RoutingCache<String> cache = new RoutingCache<>(1);
+        for (int i = 0; i < 4; i++) {
+            cache.put("key" + i, "node" + i, 1);
+        }
+
+        cache.put("key4", "node4", 2);
+
+        assertEquals("node4", cache.get("key4", 2));
+        assertEquals(0, cache.stats(2).getEvictions());
+        assertEquals(1, cache.stats(2).getSize());
+    }
+
+    @Test
+    @DisplayName("Put keys into the cache of more than 2^18 entries, expected all sets to be used")
+    public void put_largeCapacity_allSetsUsed() {
+        int capacity = 1 << 20;
+        int keys = capacity / 2;
+        RoutingCache<String> cache = new RoutingCache<>(capacity);
+        for (int i = 0; i < keys; i++) {
+            cache.put("key_" + i, "node", 1);
+        }
+
+        assertEquals(capacity, cache.capacity());
+        assertTrue(cache.stats(1).getSize() > keys * 0.9);
+    }
+}
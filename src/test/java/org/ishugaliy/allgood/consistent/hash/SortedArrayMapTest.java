@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class SortedArrayMapTest {
+
+    private static final long[] KEYS = {1, 5, 10, 20, 40};
+    private static final String[] VALUES = {"a", "b", "c", "d", "e"};
+
+    @Test
+    @DisplayName("Copy map into tree map, expected the same mappings")
+    public void treeMap_sameMappings() {
+        SortedArrayMap<String> map = new SortedArrayMap<>(KEYS, VALUES);
+        TreeMap<Long, String> expected = new TreeMap<>();
+        for (int i = 0; i < KEYS.length; i++) {
+            expected.put(KEYS[i], VALUES[i]);
+        }
+
+        assertEquals(expected, new TreeMap<>(map));
+        assertEquals(expected, map);
+        assertEquals(1L, map.firstKey());
+        assertEquals(40L, map.lastKey());
+        assertEquals("c", map.get(10L));
+        assertNull(map.get(11L));
+        assertNull(map.get("10"));
+        assertTrue(map.containsKey(20L));
+        assertFalse(map.containsKey(0L));
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> views_sameAsTreeMap() {
+        SortedArrayMap<String> map = new SortedArrayMap<>(KEYS, VALUES);
+        TreeMap<Long, String> tree = new TreeMap<>(map);
+        return Stream.of(
+                dynamicTest("Head map", () -> assertEquals(tree.headMap(10L), map.headMap(10L))),
+                dynamicTest("Tail map", () -> assertEquals(tree.tailMap(11L), map.tailMap(11L))),
+                dynamicTest("Sub map", () -> assertEquals(tree.subMap(2L, 40L), map.subMap(2L, 40L))),
+                dynamicTest("Sub map of sub map", () ->
+                        assertEquals(tree.subMap(2L, 40L).tailMap(10L), map.subMap(2L, 40L).tailMap(10L))),
+                dynamicTest("Empty view", () -> {
+                    SortedMap<Long, String> empty = map.subMap(6L, 9L);
+                    assertTrue(empty.isEmpty());
+                    assertThrows(NoSuchElementException.class, empty::firstKey);
+                    assertThrows(NoSuchElementException.class, empty::lastKey);
+                }),
+                dynamicTest("Sub map with fromKey greater than toKey, expected IllegalArgumentException", () ->
+                        assertThrows(IllegalArgumentException.class, () -> map.subMap(10L, 5L)))
+        );
+    }
+}
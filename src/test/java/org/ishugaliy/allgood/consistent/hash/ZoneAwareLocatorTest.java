@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash;
+
+import org.ishugaliy.allgood.consistent.hash.node.ServerNode;
+import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class ZoneAwareLocatorTest {
+
+    @TestFactory
+    public Stream<DynamicTest> locate_distinctZones_sameAsRingWalk() {
+        List<ServerNode> nodes = buildServers(3, 4);
+        return Stream.of(false, true).map(lockFree -> dynamicTest("Lock-free reads: " + lockFree, () -> {
+            HashRing<ServerNode> ring = HashRing.<ServerNode>newBuilder()
+                    .partitionRate(50)
+                    .lockFreeReads(lockFree)
+                    .nodes(nodes)
+                    .build();
+            ZoneAwareLocator<ServerNode> locator = ZoneAwareLocator.of(ring::snapshot);
+
+            assertEquals(new HashSet<>(Arrays.asList("dc0", "dc1", "dc2")), locator.getZones());
+            for (int i = 0; i < 1000; i++) {
+                String key = "key_" + i;
+                List<ServerNode> replicas = locator.locate(key, 3);
+                assertEquals(walk(ring.snapshot(), key, 3), replicas);
+                assertEquals(ring.locate(key).orElse(null), replicas.get(0));
+                assertEquals(3, replicas.stream().map(ServerNode::getDc).distinct().count());
+            }
+        }));
+    }
+
+    @Test
+    @DisplayName("Locate more replicas than zones, expected distinct zones first and then next distinct nodes")
+    public void locate_moreThanZones_nextDistinctNodes() {
+        List<ServerNode> nodes = buildServers(2, 3);
+        HashRing<ServerNode> ring = HashRing.<ServerNode>newBuilder().partitionRate(50).nodes(nodes).build();
+        ZoneAwareLocator<ServerNode> locator = ZoneAwareLocator.of(ring::snapshot);
+
+        for (int i = 0; i < 1000; i++) {
+            String key = "key_" + i;
+            List<ServerNode> replicas = locator.locate(key, 4);
+            assertEquals(walk(ring.snapshot(), key, 4), replicas);
+            assertEquals(4, new HashSet<>(replicas).size());
+            assertNotEquals(replicas.get(0).getDc(), replicas.get(1).getDc());
+            assertEquals(6, locator.locate(key, 10).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Remove the last node of the zone, expected locator to follow the ring snapshot")
+    public void locate_ringChanged_newSnapshot() {
+        List<ServerNode> nodes = buildServers(3, 1);
+        HashRing<ServerNode> ring = HashRing.<ServerNode>newBuilder().lockFreeReads(true).nodes(nodes).build();
+        ZoneAwareLocator<ServerNode> locator = ZoneAwareLocator.of(ring::snapshot);
+        assertEquals(3, locator.locate("key", 3).size());
+
+        ring.remove(nodes.get(1));
+
+        assertEquals(new HashSet<>(Arrays.asList("dc0", "dc2")), locator.getZones());
+        assertEquals(2, locator.locate("key", 3).size());
+        assertFalse(locator.locate("key", 3).contains(nodes.get(1)));
+    }
+
+    @Test
+    @DisplayName("Locate with custom zone extractor, expected distinct zones")
+    public void locate_customZones_distinctZones() {
+        List<SimpleNode> nodes = IntStream.range(0, 12)
+                .mapToObj(i -> SimpleNode.of("rack" + i % 4 + ".node" + i))
+                .collect(Collectors.toList());
+        ArrayHashRing<SimpleNode> ring = HashRing.<SimpleNode>newBuilder().partitionRate(50).buildArrayRing();
+        ring.addAll(nodes);
+        ZoneAwareLocator<SimpleNode> locator = ZoneAwareLocator.of(ring::snapshot, node -> node.getKey().substring(0, 5));
+
+        for (int i = 0; i < 1000; i++) {
+            List<SimpleNode> replicas = locator.locate("key_" + i, 4);
+            assertEquals(4, replicas.stream().map(node -> node.getKey().substring(0, 5)).distinct().count());
+        }
+    }
+
+    @Test
+    @DisplayName("Locate in empty ring, by null key or non positive count, expected empty list")
+    public void locate_emptyResult() {
+        HashRing<ServerNode> empty = HashRing.<ServerNode>newBuilder().build();
+        HashRing<ServerNode> ring = HashRing.<ServerNode>newBuilder().nodes(buildServers(2, 2)).build();
+
+        assertTrue(ZoneAwareLocator.of(empty::snapshot).locate("key", 2).isEmpty());
+        assertTrue(ZoneAwareLocator.of(ring::snapshot).locate(null, 2).isEmpty());
+        assertTrue(ZoneAwareLocator.of(ring::snapshot).locate("key", 0).isEmpty());
+        assertThrows(NullPointerException.class, () -> ZoneAwareLocator.of(ring::snapshot, null));
+    }
+
+    /**
+     * Walk the ring clockwise taking the first node of each new zone, then the rest of distinct nodes.
+     */
+    private static List<ServerNode> walk(RingSnapshot<ServerNode> snapshot, String key, int count) {
+        long[] slots = snapshot.slots();
+        int start = RingArrays.ceiling(slots, slots.length, Math.abs(snapshot.hasher().hash(key, 0))) % slots.length;
+        List<ServerNode> res = new ArrayList<>();
+        Set<String> zones = new HashSet<>();
+        for (int i = 0; i < slots.length && res.size() < count; i++) {
+            ServerNode node = snapshot.node(snapshot.owners()[(start + i) % slots.length]);
+            if (zones.add(node.getDc())) {
+                res.add(node);
+            }
+        }
+        for (int i = 0; i < slots.length && res.size() < count; i++) {
+            ServerNode node = snapshot.node(snapshot.owners()[(start + i) % slots.length]);
+            if (!res.contains(node)) {
+                res.add(node);
+            }
+        }
+        return res;
+    }
+
+    private static List<ServerNode> buildServers(int zones, int perZone) {
+        List<ServerNode> nodes = new ArrayList<>();
+        for (int zone = 0; zone < zones; zone++) {
+            for (int i = 0; i < perZone; i++) {
+                nodes.add(new ServerNode("dc" + zone, "10.0." + zone + "." + i, 80));
+            }
+        }
+        return nodes;
+    }
+}
@@ -24,14 +24,18 @@
 
 package org.ishugaliy.allgood.consistent.hash.hasher;
 
+import net.openhft.hashing.LongHashFunction;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.DynamicTest.*;
 
 public class DefaultHasherTest {
@@ -64,4 +68,66 @@ public class DefaultHasherTest {
                         () -> assertNotEquals(hasher.hash(key1, seed), hasher.hash(key2, seed)))
                 );
     }
+
+    @TestFactory
+    @DisplayName("For all default hasher check char sequence hash is equal to the String hash")
+    public Stream<DynamicTest> calculateHash_charSequence_sameAsString() {
+        String key = "Best key123_ever+:.!";
+        int seed = 7;
+
+        return Arrays
+                .stream(DefaultHasher.values())
+                .map(hasher -> dynamicTest(
+                        hasher.name(),
+                        () -> {
+                            assertEquals(hasher.hash(key, seed), hasher.hash((CharSequence) key, seed));
+                            assertEquals(hasher.hash(key, seed), hasher.hash(new StringBuilder(key), seed));
+                            assertEquals(hasher.hash(key, seed), hasher.hash(new StringBuffer(key), seed));
+                        })
+                );
+    }
+
+    @TestFactory
+    @DisplayName("For all default hasher check bytes hash is equal for array, heap and direct buffers")
+    public Stream<DynamicTest> calculateHash_bytes_sameForAllSources() {
+        byte[] bytes = "__Best key123_ever+:.!__".getBytes(UTF_8);
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        int seed = 1231238;
+
+        return Arrays
+                .stream(DefaultHasher.values())
+                .map(hasher -> dynamicTest(
+                        hasher.name(),
+                        () -> {
+                            long expected = hasher.hash(Arrays.copyOfRange(bytes, 2, 22), 0, 20, seed);
+                            assertEquals(expected, hasher.hash(bytes, 2, 20, seed));
+                            assertEquals(expected, hasher.hash(heap, 2, 20, seed));
+                            assertEquals(expected, hasher.hash(direct, 2, 20, seed));
+                            assertEquals(0, direct.position());
+                        })
+                );
+    }
+
+    @Test
+    @DisplayName("Check hash of cached and not cached seeds is equal to the hash of newly built function")
+    public void calculateHash_seeds_sameAsHashFunction() {
+        String key = "Best key123_ever+:.!";
+        assertEquals(LongHashFunction.xx(0).hashChars(key), DefaultHasher.XX_HASH.hash(key, 0));
+        assertEquals(LongHashFunction.xx(63).hashChars(key), DefaultHasher.XX_HASH.hash(key, 63));
+        assertEquals(LongHashFunction.xx(64).hashChars(key), DefaultHasher.XX_HASH.hash(key, 64));
+        assertEquals(LongHashFunction.xx(-1).hashChars(key), DefaultHasher.XX_HASH.hash(key, -1));
+    }
+
+    @Test
+    @DisplayName("Check default binary hashing of custom hasher, expected each byte mapped to a char")
+    public void calculateHash_customHasherBytes_hashedAsLatin1String() {
+        Hasher hasher = (key, seed) -> key.hashCode() + seed;
+        byte[] bytes = {'k', 'e', 'y', (byte) 0xFF};
+
+        assertEquals(hasher.hash("key\u00FF", 1), hasher.hash(bytes, 0, 4, 1));
+        assertEquals(hasher.hash("ey", 1), hasher.hash(ByteBuffer.wrap(bytes), 1, 2, 1));
+        assertEquals(hasher.hash("key", 1), hasher.hash(new StringBuilder("key"), 1));
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Map values to buckets, expected bucket bounds within 1/16 of the value")
+    public void bucket_relativeError() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int bucket = LatencyHistogram.bucket(value);
+            long upper = LatencyHistogram.upperBound(bucket);
+
+            assertTrue(bucket >= 0 && bucket < LatencyHistogram.BUCKETS);
+            assertTrue(value <= upper);
+            assertTrue(upper - value <= value / LatencyHistogram.SUB_BUCKETS);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    @DisplayName("Record values from 1 to 1000, expected percentiles within the bucket error")
+    public void snapshot_percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(1001, snapshot.getCount());
+        assertEquals(500_500, snapshot.getSum());
+        assertEquals(1000, snapshot.getMax());
+        assertEquals(0, snapshot.getPercentile(0));
+        assertEquals(500, snapshot.getPercentile(0.5), 500 / 16.0);
+        assertEquals(990, snapshot.getPercentile(0.99), 990 / 16.0);
+        assertEquals(1000, snapshot.getPercentile(1));
+        assertEquals(16, snapshot.getCountAtOrBelow(15));
+        assertEquals(1001, snapshot.getCountAtOrBelow(Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getPercentile(1.5));
+        assertEquals(0, new LatencyHistogram().snapshot().getPercentile(0.99));
+    }
+
+    @Test
+    @DisplayName("Record values from several threads, expected no lost values")
+    public void record_concurrently_allCounted() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        IntStream.range(0, 8).parallel().forEach(t -> {
+            for (int i = 0; i < 10_000; i++) {
+                histogram.record(i % 100);
+            }
+        });
+
+        assertEquals(80_000, histogram.snapshot().getCount());
+        assertEquals(8 * 100 * 4950, histogram.snapshot().getSum());
+    }
+}
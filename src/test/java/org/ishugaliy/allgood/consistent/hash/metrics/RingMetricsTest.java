@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingMetricsTest {
+
+    @Test
+    @DisplayName("Record located nodes, expected hits of added nodes only")
+    public void recordLocate_addedNodes_counted() {
+        RingMetrics<String> metrics = new RingMetrics<>();
+        metrics.nodeAdded("n1");
+        metrics.nodeAdded("n2");
+
+        metrics.recordLocate("n1");
+        metrics.recordLocate("n1");
+        metrics.recordLocate("n2");
+        metrics.recordLocate("n3");
+        metrics.recordLocate(null);
+        RingMetricsSnapshot<String> before = metrics.snapshot();
+        metrics.nodeRemoved("n1");
+        RingMetricsSnapshot<String> after = metrics.snapshot();
+
+        assertEquals(5, before.getLocates());
+        assertEquals(2L, before.getNodeHits().get("n1"));
+        assertEquals(1L, before.getNodeHits().get("n2"));
+        assertFalse(before.getNodeHits().containsKey("n3"));
+        assertFalse(after.getNodeHits().containsKey("n1"));
+        assertThrows(UnsupportedOperationException.class, () -> after.getNodeHits().put("n1", 1L));
+    }
+
+    @Test
+    @DisplayName("Record latencies, expected them in separate histograms")
+    public void recordLatencies() {
+        RingMetrics<String> metrics = new RingMetrics<>();
+        metrics.recordLocateLatency(100);
+        metrics.recordMutation(2000);
+        metrics.recordMutation(3000);
+        metrics.recordReadLockWait(5);
+        metrics.recordWriteLockWait(7);
+
+        RingMetricsSnapshot<String> snapshot = metrics.snapshot();
+
+        assertEquals(2, snapshot.getMutations());
+        assertEquals(1, snapshot.getLocateLatency().getCount());
+        assertEquals(3000, snapshot.getMutationLatency().getMax());
+        assertEquals(5, snapshot.getReadLockWait().getMax());
+        assertEquals(7, snapshot.getWriteLockWait().getMax());
+    }
+
+    @Test
+    @DisplayName("Sample calls, expected roughly one of sampling calls measured")
+    public void sample_rate() {
+        RingMetrics<String> all = new RingMetrics<>();
+        RingMetrics<String> sampled = new RingMetrics<>(10);
+        long measured = IntStream.range(0, 100_000).filter(i -> sampled.sample()).count();
+
+        assertTrue(IntStream.range(0, 100).allMatch(i -> all.sample()));
+        assertEquals(10_000, measured, 1_000);
+        assertThrows(IllegalArgumentException.class, () -> new RingMetrics<>(0));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020 Yuriy Shugaliy
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.ishugaliy.allgood.consistent.hash.partition;
+
+import org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hasher;
+import org.ishugaliy.allgood.consistent.hash.hasher.Hashes;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DefaultSlotGeneratorTest {
+
+    @Test
+    @DisplayName("Generate slot by partition key, expected hash of replication partition key")
+    public void partitionKey_sameAsReplicationPartition() {
+        Hasher hasher = DefaultHasher.MURMUR_3;
+
+        assertEquals(hasher.hash("rp0:node", 0), DefaultSlotGenerator.PARTITION_KEY.slot(hasher, "node", 0, 0));
+        assertEquals(hasher.hash("rp12:node", 3), DefaultSlotGenerator.PARTITION_KEY.slot(hasher, "node", 12, 3));
+    }
+
+    @Test
+    @DisplayName("Generate slots by node key, expected node key is hashed once")
+    public void nodeKeyMix_hashNodeKeyOnce() {
+        Hasher hasher = mock(Hasher.class);
+        when(hasher.hash(anyString(), anyInt())).thenReturn(42L);
+
+        DefaultSlotGenerator.NODE_KEY_MIX.slots(hasher, "node", 0, 1000, new long[1000], 0);
+
+        verify(hasher, only()).hash("node", 0);
+    }
+
+    @Test
+    @DisplayName("Generate slot by node key mix, expected placement of existing rings is not changed")
+    public void nodeKeyMix_placementPinned() {
+        Hasher hasher = DefaultHasher.MURMUR_3;
+
+        assertEquals(4356520369557503481L, DefaultSlotGenerator.NODE_KEY_MIX.slot(hasher, "node", 0, 0));
+        assertEquals(-395242028729706792L, DefaultSlotGenerator.NODE_KEY_MIX.slot(hasher, "node", 12, 3));
+        assertEquals(Hashes.mix(hasher.hash("node", 0), 5), DefaultSlotGenerator.NODE_KEY_MIX.slot(hasher, "node", 5, 0));
+    }
+
+    @TestFactory
+    @DisplayName("For all default slot generators check bulk slots are equal to the first attempt slots")
+    public Stream<DynamicTest> slots_sameAsFirstAttempt() {
+        Hasher hasher = DefaultHasher.MURMUR_3;
+        return Arrays.stream(DefaultSlotGenerator.values())
+                .map(generator -> dynamicTest(generator.name(), () -> {
+                    long[] slots = new long[12];
+                    generator.slots(hasher, "node", 10, 20, slots, 2);
+                    for (int idx = 10; idx < 20; idx++) {
+                        assertEquals(generator.slot(hasher, "node", idx, 0), slots[idx - 8]);
+                    }
+                    assertEquals(0, slots[0]);
+                    assertEquals(0, slots[1]);
+                }));
+    }
+
+    @TestFactory
+    @DisplayName("For all default slot generators check slots of indexes and attempts are distinct")
+    public Stream<DynamicTest> slot_distinct() {
+        Hasher hasher = DefaultHasher.MURMUR_3;
+        return Arrays.stream(DefaultSlotGenerator.values())
+                .map(generator -> dynamicTest(generator.name(), () -> {
+                    Set<Long> slots = new HashSet<>();
+                    for (int idx = 0; idx < 100; idx++) {
+                        for (int attempt = 0; attempt < 10; attempt++) {
+                            assertTrue(slots.add(generator.slot(hasher, "node", idx, attempt)));
+                        }
+                    }
+                    assertNotEquals(generator.slot(hasher, "node1", 0, 0), generator.slot(hasher, "node2", 0, 0));
+                }));
+    }
+}